@@ -0,0 +1,163 @@
+package example.circuitbreaker;
+
+import example.circuitbreaker.exceptions.CircuitBreakerBulkheadFullException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed pool of threads with a bounded queue, isolating the synchronous invocations of one breaker, or of a group
+ * of breakers sharing it, from the rest of the process: a stuck dependency holds at most its threads and queue slots,
+ * and an invocation finding them all taken is rejected at once with a {@link CircuitBreakerBulkheadFullException}.
+ * <p>
+ * The time an invocation waits in the queue counts toward its timeout. The bulkhead can be given thresholds of queue
+ * depth and queue wait beyond which the dependency is considered saturated, opening the circuit of the breaker.
+ */
+public final class Bulkhead implements AutoCloseable {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int queueDepthThreshold;
+    private final long queueWaitThresholdNanos;
+    private final LongAdder rejectedCalls = new LongAdder();
+
+    private Bulkhead(Builder builder) {
+        this.name = builder.name;
+        this.queueDepthThreshold = builder.queueDepthThreshold;
+        this.queueWaitThresholdNanos = builder.queueWaitThresholdNanos;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(builder.threads, builder.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(builder.queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, name + "-bulkhead-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * @param name the name of the bulkhead, prefixing the names of its threads
+     */
+    public static Builder builder(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Name must not be empty");
+        }
+        return new Builder(name);
+    }
+
+    <V> Future<V> submit(Callable<V> call) {
+        try {
+            return executor.submit(call);
+        } catch (RejectedExecutionException e) {
+            rejectedCalls.increment();
+            throw new CircuitBreakerBulkheadFullException("Bulkhead " + name + " is full");
+        }
+    }
+
+    // whether the queue is deeper than the threshold, counting the invocation just queued
+    boolean isQueueSaturated() {
+        return executor.getQueue().size() > queueDepthThreshold;
+    }
+
+    boolean isWaitSaturated(long queueWaitNanos) {
+        return queueWaitNanos > queueWaitThresholdNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveThreads() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return the number of invocations rejected because the bulkhead was full
+     */
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    /**
+     * Stops the threads of the bulkhead, interrupting the running invocations.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public static final class Builder {
+        private final String name;
+        private int threads = 10;
+        private int queueCapacity = 10;
+        private int queueDepthThreshold = Integer.MAX_VALUE;
+        private long queueWaitThresholdNanos = Long.MAX_VALUE;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * The number of threads running the invocations, 10 by default.
+         */
+        public Builder threads(int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Threads must be positive");
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * The number of invocations waiting for a thread before the next ones are rejected, 10 by default.
+         */
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity < 1) {
+                throw new IllegalArgumentException("Queue capacity must be positive");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * Opens the circuit when an invocation is queued behind more than the given number of invocations, or
+         * rejected because the queue is full.
+         */
+        public Builder openOnQueueDepth(int queueDepth) {
+            if (queueDepth < 0) {
+                throw new IllegalArgumentException("Queue depth must not be negative");
+            }
+            this.queueDepthThreshold = queueDepth;
+            return this;
+        }
+
+        /**
+         * Opens the circuit when an invocation waited longer than the given time for a thread.
+         */
+        public Builder openOnQueueWait(Duration queueWait) {
+            if (Objects.requireNonNull(queueWait).isNegative()) {
+                throw new IllegalArgumentException("Queue wait must not be negative");
+            }
+            this.queueWaitThresholdNanos = Deadline.budgetNanos(queueWait);
+            return this;
+        }
+
+        public Bulkhead build() {
+            if (queueDepthThreshold != Integer.MAX_VALUE && queueDepthThreshold >= queueCapacity) {
+                throw new IllegalArgumentException("Queue depth threshold must be below the queue capacity");
+            }
+            return new Bulkhead(this);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package example.circuitbreaker;
+
+import java.util.concurrent.Future;
+
+/**
+ * Called when an invocation is abandoned on a timeout, or because the calling thread was interrupted, right after
+ * its future was cancelled. Cancelling the future interrupts a synchronous function and cancels the future of an
+ * asynchronous one, but code ignoring the interrupt or the cancellation keeps running: the hook is the place to
+ * release what it holds, e.g. abort an HTTP exchange or close a connection.
+ */
+@FunctionalInterface
+public interface CancellationHook {
+
+    /**
+     * Must not block, it runs on the calling thread for a synchronous invocation, and on the timer thread for an
+     * asynchronous one. An exception thrown by the hook is ignored.
+     *
+     * @param invocation the cancelled future: the executor task running a synchronous function, or the future returned
+     *                   by an asynchronous function
+     */
+    void onCancel(Future<?> invocation);
+}
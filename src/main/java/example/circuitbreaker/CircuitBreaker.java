@@ -1,6 +1,12 @@
 package example.circuitbreaker;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -15,4 +21,53 @@ public interface CircuitBreaker {
     <T> T execute(Supplier<T> func);
 
     <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> func);
+
+    /**
+     * Executes an asynchronous function like {@link #executeAsync(Supplier)}, but completes the returned future on
+     * the given executor, so that the caller's continuations run on it rather than on the thread completing the
+     * function's future or on the timer thread. The executor also runs the async stages of the future by default.
+     */
+    <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> func, Executor executor);
+
+    /**
+     * Executes a function returning an {@code int}, whose result is not boxed on its way back to the caller.
+     */
+    int executeAsInt(IntSupplier func);
+
+    /**
+     * Executes a function returning a {@code long}, whose result is not boxed on its way back to the caller.
+     */
+    long executeAsLong(LongSupplier func);
+
+    /**
+     * Executes a function returning a {@code double}, whose result is not boxed on its way back to the caller.
+     */
+    double executeAsDouble(DoubleSupplier func);
+
+    /**
+     * Executes a function returning a {@code boolean}, whose result is not boxed on its way back to the caller.
+     */
+    boolean executeAsBoolean(BooleanSupplier func);
+
+    /**
+     * Executes a batch of functions under a single admission check of the current state.
+     * At most {@code parallelism} functions run at the same time, and the outcomes of the whole
+     * batch are recorded at once when it completes.
+     *
+     * @param funcs       the functions to be executed
+     * @param parallelism the maximum number of functions running at the same time, must be positive
+     * @return the outcome of each function, in the order of {@code funcs}
+     */
+    <T> List<Outcome<T>> executeBatch(List<? extends Supplier<T>> funcs, int parallelism);
+
+    /**
+     * Asynchronous counterpart of {@link #executeBatch(List, int)}: at most {@code parallelism}
+     * futures are in flight at the same time.
+     *
+     * @param funcs       the asynchronous functions to be executed
+     * @param parallelism the maximum number of futures in flight at the same time, must be positive
+     * @return a future of the outcome of each function, in the order of {@code funcs}
+     */
+    <T> CompletableFuture<List<Outcome<T>>> executeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                            int parallelism);
 }
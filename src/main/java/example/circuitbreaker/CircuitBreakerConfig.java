@@ -0,0 +1,149 @@
+package example.circuitbreaker;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * The immutable settings of a {@link DefaultCircuitBreaker}. A breaker reads its current config on every call, and
+ * {@link DefaultCircuitBreaker#reconfigure(CircuitBreakerConfig) reconfiguring} it swaps the whole config at once,
+ * keeping the state of the circuit.
+ *
+ * <pre>{@code
+ * CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+ *         .maxFailures(5)
+ *         .invocationTimeout(Duration.ofSeconds(2))
+ *         .resetTimeout(Duration.ofSeconds(30))
+ *         .build();
+ * breaker.reconfigure(config.toBuilder().maxFailures(10).build());
+ * }</pre>
+ */
+public final class CircuitBreakerConfig {
+
+    private static final int DEFAULT_MAX_FAILURES = 5;
+    private static final Duration DEFAULT_INVOCATION_TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_RESET_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int maxFailures;
+    private final Duration invocationTimeout;
+    private final ResetTimeoutPolicy resetTimeoutPolicy;
+    private final int failureCounterStripes;
+
+    private CircuitBreakerConfig(Builder builder) {
+        this.maxFailures = builder.maxFailures;
+        this.invocationTimeout = builder.invocationTimeout;
+        this.resetTimeoutPolicy = builder.resetTimeoutPolicy;
+        this.failureCounterStripes = builder.failureCounterStripes;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a builder starting from the settings of this config
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.maxFailures = maxFailures;
+        builder.invocationTimeout = invocationTimeout;
+        builder.resetTimeoutPolicy = resetTimeoutPolicy;
+        builder.failureCounterStripes = failureCounterStripes;
+        return builder;
+    }
+
+    /**
+     * @return the number of consecutive failures opening the circuit
+     */
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    public Duration getInvocationTimeout() {
+        return invocationTimeout;
+    }
+
+    public ResetTimeoutPolicy getResetTimeoutPolicy() {
+        return resetTimeoutPolicy;
+    }
+
+    /**
+     * @return the number of stripes of the failure counter of the Closed state, 0 for a single counter
+     */
+    public int getFailureCounterStripes() {
+        return failureCounterStripes;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerConfig[maxFailures=" + maxFailures + ", invocationTimeout=" + invocationTimeout
+                + ", failureCounterStripes=" + failureCounterStripes + "]";
+    }
+
+    public static final class Builder {
+        private int maxFailures = DEFAULT_MAX_FAILURES;
+        private Duration invocationTimeout = DEFAULT_INVOCATION_TIMEOUT;
+        private ResetTimeoutPolicy resetTimeoutPolicy = ResetTimeoutPolicy.fixed(DEFAULT_RESET_TIMEOUT);
+        private int failureCounterStripes;
+
+        private Builder() {
+        }
+
+        /**
+         * The number of consecutive failures opening the circuit, 5 by default.
+         */
+        public Builder maxFailures(int maxFailures) {
+            if (maxFailures < 1) {
+                throw new IllegalArgumentException("Max failures must be positive");
+            }
+            this.maxFailures = maxFailures;
+            return this;
+        }
+
+        /**
+         * The timeout of each invocation, 1 second by default.
+         */
+        public Builder invocationTimeout(Duration invocationTimeout) {
+            if (invocationTimeout == null) {
+                throw new IllegalArgumentException("Invocation timeout must not be null");
+            }
+            this.invocationTimeout = invocationTimeout;
+            return this;
+        }
+
+        /**
+         * Keeps the circuit open for the given time on every opening, 30 seconds by default.
+         */
+        public Builder resetTimeout(Duration resetTimeout) {
+            if (resetTimeout == null) {
+                throw new IllegalArgumentException("Reset timeout must not be null");
+            }
+            return resetTimeoutPolicy(ResetTimeoutPolicy.fixed(resetTimeout));
+        }
+
+        /**
+         * Decides how long the circuit stays open on each consecutive opening.
+         */
+        public Builder resetTimeoutPolicy(ResetTimeoutPolicy resetTimeoutPolicy) {
+            this.resetTimeoutPolicy = Objects.requireNonNull(resetTimeoutPolicy);
+            return this;
+        }
+
+        /**
+         * Spreads the failure counter of the Closed state over the given number of stripes, so that many threads
+         * recording successes do not contend on one counter, see
+         * {@link example.circuitbreaker.states.StripedClosedCircuitBreakerState}. A single counter by default. The
+         * counter is chosen when the breaker is created and cannot be reconfigured.
+         */
+        public Builder failureCounterStripes(int stripes) {
+            if (stripes < 0) {
+                throw new IllegalArgumentException("Stripes must not be negative");
+            }
+            this.failureCounterStripes = stripes;
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
@@ -3,7 +3,13 @@ package example.circuitbreaker;
 import example.circuitbreaker.states.CircuitBreakerState;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -46,4 +52,65 @@ public interface CircuitBreakerInvoker {
      * according to the rules and behavior defined by the provided CircuitBreakerState.
      */
     <T> CompletableFuture<T> invokeThroughAsync(CircuitBreakerState state, Supplier<CompletableFuture<T>> func, Duration timeout);
+
+    /**
+     * Executes the provided asynchronous function like {@link #invokeThroughAsync(CircuitBreakerState, Supplier, Duration)},
+     * completing the returned future on the given executor, which also runs its async stages by default.
+     *
+     * @param executor the executor completing the returned future, or null to complete it on the thread completing
+     *                 the function's future or the timeout
+     */
+    <T> CompletableFuture<T> invokeThroughAsync(CircuitBreakerState state, Supplier<CompletableFuture<T>> func,
+                                                Duration timeout, Executor executor);
+
+    /**
+     * Executes the provided function through the specified CircuitBreaker state with a timeout,
+     * passing its {@code int} result back to the caller without boxing it.
+     */
+    int invokeAsIntThrough(CircuitBreakerState state, IntSupplier func, Duration timeout);
+
+    /**
+     * Executes the provided function through the specified CircuitBreaker state with a timeout,
+     * passing its {@code long} result back to the caller without boxing it.
+     */
+    long invokeAsLongThrough(CircuitBreakerState state, LongSupplier func, Duration timeout);
+
+    /**
+     * Executes the provided function through the specified CircuitBreaker state with a timeout,
+     * passing its {@code double} result back to the caller without boxing it.
+     */
+    double invokeAsDoubleThrough(CircuitBreakerState state, DoubleSupplier func, Duration timeout);
+
+    /**
+     * Executes the provided function through the specified CircuitBreaker state with a timeout,
+     * passing its {@code boolean} result back to the caller without boxing it.
+     */
+    boolean invokeAsBooleanThrough(CircuitBreakerState state, BooleanSupplier func, Duration timeout);
+
+    /**
+     * Executes a batch of functions through the given CircuitBreaker state with bounded parallelism.
+     * Each lane of the batch is granted {@code timeout} per function it is expected to run, items that
+     * have not completed by then fail with a timeout. The outcomes are reported to the state at once
+     * through {@link CircuitBreakerState#invocationsComplete(int, int)}, only the failures after the last
+     * success of the batch counting as consecutive.
+     *
+     * @param state       the current state of the CircuitBreaker that admitted the batch. Must not be null.
+     * @param funcs       the functions to be executed. Must not be null.
+     * @param parallelism the maximum number of functions running at the same time.
+     * @param timeout     the maximum duration for each function execution. Must not be null.
+     * @return the outcome of each function, in the order of {@code funcs}.
+     */
+    <T> List<Outcome<T>> invokeBatchThrough(CircuitBreakerState state, List<? extends Supplier<T>> funcs,
+                                            int parallelism, Duration timeout);
+
+    /**
+     * Executes a batch of asynchronous functions through the given CircuitBreaker state, keeping at most
+     * {@code parallelism} futures in flight. Each future is subject to {@code timeout}, and the outcomes
+     * are reported to the state at once when the last one completes.
+     *
+     * @return a future of the outcome of each function, in the order of {@code funcs}.
+     */
+    <T> CompletableFuture<List<Outcome<T>>> invokeAllThroughAsync(CircuitBreakerState state,
+                                                                  List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism, Duration timeout);
 }
\ No newline at end of file
@@ -28,4 +28,13 @@ public interface CircuitBreakerListener {
      * @param breaker the CircuitBreaker instance that transitioned to the Half-Open state
      */
     void onCircuitHalfOpened(CircuitBreaker breaker);
+
+    /**
+     * Invoked when the circuit breaker is disabled, after which it does not transition on its own until forced
+     * closed.
+     *
+     * @param breaker the CircuitBreaker instance that was disabled
+     */
+    default void onCircuitDisabled(CircuitBreaker breaker) {
+    }
 }
@@ -0,0 +1,206 @@
+package example.circuitbreaker;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Call statistics of a circuit breaker: call, rejection and timeout counts, and a latency histogram.
+ * <p>
+ * Recording never blocks and reading never locks: counters are {@link LongAdder}s, and latencies are counted in a
+ * fixed array of log-linear buckets, each power of two of microseconds being split in four buckets,
+ * so percentiles are exact to within 25%. Reads are not atomic across counters, which is fine for monitoring.
+ */
+public final class CircuitBreakerMetrics {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // latencies from 2^33 microseconds on, i.e. about 2.4 hours, are counted in the last bucket
+    private static final int MAX_EXPONENT = 32;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final LongAdder successfulCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder abandonedCalls = new LongAdder();
+    private final LongAdder runningAbandonedCalls = new LongAdder();
+    private final LongAdder latencySum = new LongAdder();
+    private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a call that succeeded after the given number of nanoseconds.
+     */
+    public void recordSuccess(long nanos) {
+        successfulCalls.increment();
+        recordLatency(nanos);
+    }
+
+    /**
+     * Records a call that failed, or timed out, after the given number of nanoseconds.
+     */
+    public void recordFailure(long nanos) {
+        failedCalls.increment();
+        recordLatency(nanos);
+    }
+
+    /**
+     * Records the outcomes of a batch, whose items are not timed individually.
+     */
+    public void recordOutcomes(int successes, int failures) {
+        successfulCalls.add(successes);
+        failedCalls.add(failures);
+    }
+
+    public void recordRejection() {
+        rejectedCalls.increment();
+    }
+
+    /**
+     * Records a call that timed out, the call itself is recorded as failed by {@link #recordFailure(long)}.
+     */
+    public void recordTimeout() {
+        timeouts.increment();
+    }
+
+    /**
+     * Records a call abandoned on a timeout or an interrupt before it completed.
+     */
+    public void recordAbandonedCall() {
+        abandonedCalls.increment();
+    }
+
+    /**
+     * Records that a call counted by {@link #recordAbandonedCall()} is seen to keep running, until
+     * {@link #recordAbandonedCallFinished()} is called for it.
+     */
+    public void recordAbandonedCallRunning() {
+        runningAbandonedCalls.increment();
+    }
+
+    /**
+     * Records that a call counted by {@link #recordAbandonedCallRunning()} finished running.
+     */
+    public void recordAbandonedCallFinished() {
+        runningAbandonedCalls.decrement();
+    }
+
+    public long getSuccessfulCalls() {
+        return successfulCalls.sum();
+    }
+
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * @return the number of calls abandoned on a timeout or an interrupt before they completed
+     */
+    public long getAbandonedCalls() {
+        return abandonedCalls.sum();
+    }
+
+    /**
+     * @return the number of abandoned calls seen to be still running, i.e. ignored their cancellation. The work behind
+     * a cancelled {@code CompletableFuture} is not visible to the breaker, and is not counted here
+     */
+    public long getRunningAbandonedCalls() {
+        // a call may finish right before it is counted as abandoned
+        return Math.max(0, runningAbandonedCalls.sum());
+    }
+
+    /**
+     * @return the total latency of the timed calls, in nanoseconds
+     */
+    public long getLatencySumNanos() {
+        return latencySum.sum();
+    }
+
+    /**
+     * @return the number of calls timed in the given latency bucket
+     * @see #latencyBuckets()
+     */
+    public long getLatencyCount(int bucket) {
+        return latencies.get(bucket);
+    }
+
+    /**
+     * @return the number of latency buckets, the buckets are ordered by increasing latency
+     */
+    public static int latencyBuckets() {
+        return BUCKETS;
+    }
+
+    /**
+     * Returns the highest latency counted in the given bucket, in microseconds. The bucket below each power of two of
+     * microseconds ends right below it, so exporters can fold the buckets into power of two boundaries exactly.
+     */
+    public static long latencyUpperBoundMicros(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE / 1000 : lowerBoundMicros(bucket + 1) - 1;
+    }
+
+    /**
+     * Returns the latency under which the given percentage of the timed calls completed, rounded up to the upper
+     * bound of its bucket.
+     *
+     * @param percentile the percentage of calls, between 0 and 100
+     * @return the latency, or {@link Duration#ZERO} if no call was timed
+     */
+    public Duration getLatencyPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latencies.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Duration.ofNanos(latencyUpperBoundMicros(i) * 1000);
+            }
+        }
+        return Duration.ofNanos(latencyUpperBoundMicros(BUCKETS - 1) * 1000);
+    }
+
+    private void recordLatency(long nanos) {
+        long elapsed = Math.max(0, nanos);
+        latencySum.add(elapsed);
+        latencies.getAndIncrement(bucketOf(elapsed / 1000));
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBoundMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+}
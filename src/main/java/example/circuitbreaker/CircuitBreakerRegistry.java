@@ -0,0 +1,94 @@
+package example.circuitbreaker;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keeps the {@link DefaultCircuitBreaker}s of an application by name.
+ * <p>
+ * Snapshots handed to {@link #restore(Map)} are applied to the registered breakers, and kept for the breakers
+ * registered later under the same name, so that a breaker is restored whenever it is created.
+ */
+public class CircuitBreakerRegistry {
+
+    private final Map<String, DefaultCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreakerSnapshot> pendingSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the given breaker under its name.
+     *
+     * @param breaker the breaker to register. Must not be null.
+     * @return the given breaker
+     * @throws IllegalArgumentException if another breaker is registered under the same name
+     */
+    public DefaultCircuitBreaker register(DefaultCircuitBreaker breaker) {
+        Objects.requireNonNull(breaker);
+        if (breakers.putIfAbsent(breaker.getName(), breaker) != null) {
+            throw new IllegalArgumentException("A circuit breaker named " + breaker.getName() + " is already registered");
+        }
+        restorePending(breaker);
+        return breaker;
+    }
+
+    /**
+     * Returns the breaker registered under the given name, creating and registering it if needed.
+     *
+     * @param name    the name of the breaker
+     * @param factory creates the breaker from its name, the created breaker must have that name
+     */
+    public DefaultCircuitBreaker computeIfAbsent(String name, Function<String, DefaultCircuitBreaker> factory) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(factory);
+        DefaultCircuitBreaker breaker = breakers.get(name);
+        if (breaker != null) {
+            return breaker;
+        }
+        boolean[] created = new boolean[1];
+        breaker = breakers.computeIfAbsent(name, key -> {
+            created[0] = true;
+            return factory.apply(key);
+        });
+        if (created[0]) {
+            restorePending(breaker);
+        }
+        return breaker;
+    }
+
+    /**
+     * @return the breaker registered under the given name, or {@code null} if there is none
+     */
+    public DefaultCircuitBreaker get(String name) {
+        return breakers.get(name);
+    }
+
+    public DefaultCircuitBreaker remove(String name) {
+        return breakers.remove(name);
+    }
+
+    /**
+     * @return a live, unmodifiable view of the registered breakers
+     */
+    public Collection<DefaultCircuitBreaker> getAll() {
+        return Collections.unmodifiableCollection(breakers.values());
+    }
+
+    /**
+     * Restores the registered breakers from the given snapshots, keyed by breaker name.
+     * Snapshots of breakers that are not registered yet are applied when they get registered.
+     */
+    public void restore(Map<String, CircuitBreakerSnapshot> snapshots) {
+        pendingSnapshots.putAll(snapshots);
+        breakers.values().forEach(this::restorePending);
+    }
+
+    private void restorePending(DefaultCircuitBreaker breaker) {
+        CircuitBreakerSnapshot snapshot = pendingSnapshots.remove(breaker.getName());
+        if (snapshot != null) {
+            breaker.restore(snapshot);
+        }
+    }
+}
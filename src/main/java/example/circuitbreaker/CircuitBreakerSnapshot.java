@@ -0,0 +1,69 @@
+package example.circuitbreaker;
+
+import java.util.Objects;
+
+/**
+ * An immutable capture of the state of a {@link DefaultCircuitBreaker}, used to restore a breaker
+ * after a restart without starting over from a Closed state with zero counters.
+ */
+public final class CircuitBreakerSnapshot {
+
+    private final CircuitState state;
+    private final int failures;
+    private final int consecutiveOpenings;
+    private final long openUntilMillis;
+
+    /**
+     * @param state               the state of the breaker
+     * @param failures            the failure counter of the Closed state
+     * @param consecutiveOpenings the number of openings since the circuit was last closed
+     * @param openUntilMillis     the wall-clock time, in epoch milliseconds, at which the Open state attempts to close
+     *                            the circuit, {@code 0} when the circuit is closed
+     */
+    public CircuitBreakerSnapshot(CircuitState state, int failures, int consecutiveOpenings, long openUntilMillis) {
+        this.state = Objects.requireNonNull(state);
+        this.failures = failures;
+        this.consecutiveOpenings = consecutiveOpenings;
+        this.openUntilMillis = openUntilMillis;
+    }
+
+    public CircuitState getState() {
+        return state;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+
+    public int getConsecutiveOpenings() {
+        return consecutiveOpenings;
+    }
+
+    public long getOpenUntilMillis() {
+        return openUntilMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CircuitBreakerSnapshot)) {
+            return false;
+        }
+        CircuitBreakerSnapshot that = (CircuitBreakerSnapshot) o;
+        return failures == that.failures && consecutiveOpenings == that.consecutiveOpenings
+                && openUntilMillis == that.openUntilMillis && state == that.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(state, failures, consecutiveOpenings, openUntilMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerSnapshot[state=" + state + ", failures=" + failures
+                + ", consecutiveOpenings=" + consecutiveOpenings + ", openUntilMillis=" + openUntilMillis + "]";
+    }
+}
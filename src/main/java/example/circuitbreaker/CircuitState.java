@@ -0,0 +1,27 @@
+package example.circuitbreaker;
+
+/**
+ * The states a circuit breaker can be in.
+ */
+public enum CircuitState {
+    /**
+     * Requests flow through, failures are counted.
+     */
+    CLOSED,
+    /**
+     * Requests are rejected until the reset timeout elapses.
+     */
+    OPEN,
+    /**
+     * A trial request is allowed through to decide whether to close or re-open the circuit.
+     */
+    HALF_OPEN,
+    /**
+     * Requests are rejected until the circuit is forced closed, set manually by an operator.
+     */
+    FORCED_OPEN,
+    /**
+     * Requests flow through and their outcomes are ignored, set manually by an operator.
+     */
+    DISABLED
+}
@@ -5,10 +5,14 @@ import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BiConsumer;
 
 public final class CompletableFutureUtil {
 
@@ -17,15 +21,15 @@ public final class CompletableFutureUtil {
     /**
      * Returns a CompletableFuture that completes with the result of the given future,
      * or completes exceptionally with a {@code CircuitBreakerTimeoutException} if the
-     * given future does not complete within the specified timeout duration.
+     * given future does not complete within the specified timeout duration, in which case
+     * the given future is cancelled.
      * <p>
-     * If the timeout duration is zero or negative, the given future is returned,
-     * effectively bypassing the timeout behavior.
+     * If the timeout duration is zero or negative, the returned future times out at once unless the given future
+     * is already completed. If it is infinite, the given future is returned, bypassing the timeout behavior.
      *
      * @param <T>     the type of the result of the CompletableFuture
      * @param future  the original CompletableFuture to be wrapped with a timeout mechanism. Must not be null.
      * @param timeout the maximum amount of time to wait for the CompletableFuture to complete. Must not be null.
-     *                If the value is zero or negative, no timeout will be applied.
      * @return a CompletableFuture that either completes with the result of the given future,
      * or completes exceptionally with a {@code CircuitBreakerTimeoutException} upon timeout.
      * @throws NullPointerException if {@code future} is null.
@@ -35,35 +39,175 @@ public final class CompletableFutureUtil {
         Objects.requireNonNull(timeout);
 
         // #1: infinite timeout or future already completed then treat as "no timeout"
-        if (future.isDone() || timeout.equals(Duration.ofSeconds(Long.MAX_VALUE)) ||
-                timeout.toMillis() == Long.MAX_VALUE) {
+        if (future.isDone() || isInfinite(timeout)) {
             return future;
         }
 
-        // zero timeout or negative timeout treat as "timed out"
-        if (timeout.isZero() || timeout.isNegative()) {
-            CompletableFuture<T> timeoutFuture = new CompletableFuture<>();
-            timeoutFuture.completeExceptionally(new CircuitBreakerTimeoutException("Invocation time out"));
-            return timeoutFuture;
+        // #2: either the future or the timer completes the timed future, whichever comes first
+        return new TimedFuture<T>(null).await(future, timeout);
+    }
+
+    private static boolean isInfinite(Duration timeout) {
+        return timeout.equals(Duration.ofSeconds(Long.MAX_VALUE)) || timeout.toMillis() == Long.MAX_VALUE;
+    }
+
+    /**
+     * A future whose async stages without an explicit executor, and those of its dependents, run on a given executor.
+     */
+    static class ExecutorBoundFuture<T> extends CompletableFuture<T> {
+        final Executor executor;
+
+        /**
+         * @param executor the executor of the async stages, or null for the default one
+         */
+        ExecutorBoundFuture(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public Executor defaultExecutor() {
+            return executor != null ? executor : super.defaultExecutor();
+        }
+
+        @Override
+        public <U> CompletableFuture<U> newIncompleteFuture() {
+            return new ExecutorBoundFuture<>(executor);
+        }
+    }
+
+    /**
+     * A future completing with the outcome of a source future, or with a {@code CircuitBreakerTimeoutException} if
+     * the source does not complete in time. It is at once the returned future, the only dependent of the source and
+     * the timer task: whichever of the source and the timer comes first settles it, which runs {@link #onSettled}
+     * and then completes it. With an executor, it is completed on the executor, so that the stages depending on it
+     * run neither on the timer thread nor on the thread completing the source.
+     */
+    static class TimedFuture<T> extends ExecutorBoundFuture<T> implements BiConsumer<T, Throwable>, Runnable {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TimedFuture> SETTLED =
+                AtomicIntegerFieldUpdater.newUpdater(TimedFuture.class, "settled");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TimedFuture> ABANDONED =
+                AtomicIntegerFieldUpdater.newUpdater(TimedFuture.class, "abandoned");
+
+        private volatile int settled;
+        private volatile ScheduledFuture<?> timer;
+        private volatile CompletableFuture<T> source;
+        // 1 while the source keeps running after its cancellation on the timeout
+        private volatile int abandoned;
+
+        TimedFuture(Executor executor) {
+            super(executor);
+        }
+
+        /**
+         * Starts waiting for the source future, with the same handling of the timeout as
+         * {@link #timeOutAfter(CompletableFuture, Duration)}.
+         *
+         * @return this future
+         */
+        final TimedFuture<T> await(CompletableFuture<T> source, Duration timeout) {
+            this.source = source;
+            if (!source.isDone() && !isInfinite(timeout)) {
+                // in nanoseconds, as a budget narrowed by a deadline may be less than a millisecond
+                long timeoutNanos = Deadline.budgetNanos(timeout);
+                if (timeoutNanos <= 0) {
+                    run();
+                } else {
+                    timer = scheduledExecutor.schedule(this, timeoutNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            // also after an immediate timeout, to learn when a source ignoring its cancellation finishes
+            source.whenComplete(this);
+            return this;
+        }
+
+        /**
+         * Called once, before this future completes, with the outcome it completes with.
+         */
+        protected void onSettled(T result, Throwable failure) {
+        }
+
+        /**
+         * Called when the source was cancelled on the timeout, before {@link #onSettled}.
+         *
+         * @param stillRunning whether the source ignored the cancellation, in which case
+         *                     {@link #onAbandonedFinished()} is called once it completes
+         */
+        protected void onCancelled(CompletableFuture<T> source, boolean stillRunning) {
         }
 
-        // #2: set up timeout future, throw exception if the future does not complete in timeout duration
-        CompletableFuture<T> timeoutFuture = new CompletableFuture<>();
-        ScheduledFuture<?> timeoutHandle = scheduledExecutor.schedule(
-                () -> {
-                    if (!timeoutFuture.isDone()) {
-                        timeoutFuture.completeExceptionally(new CircuitBreakerTimeoutException("Invocation time out"));
+        /**
+         * Called when a source that ignored its cancellation completes.
+         */
+        protected void onAbandonedFinished() {
+        }
+
+        // the source completed
+        @Override
+        public final void accept(T result, Throwable failure) {
+            if (SETTLED.compareAndSet(this, 0, 1)) {
+                ScheduledFuture<?> handle = timer;
+                if (handle != null) {
+                    handle.cancel(false);
+                }
+                settle(result, failure);
+            } else if (ABANDONED.compareAndSet(this, 1, 0)) {
+                onAbandonedFinished();
+            }
+        }
+
+        // the timer fired: the source is cancelled so that it stops holding resources, then this future times out
+        @Override
+        public final void run() {
+            if (SETTLED.compareAndSet(this, 0, 1)) {
+                CompletableFuture<T> cancelled = source;
+                if (cancelled != null) {
+                    cancelled.cancel(true);
+                    // a subclass or a minimal stage may ignore the cancellation
+                    boolean stillRunning = !cancelled.isDone();
+                    if (stillRunning) {
+                        abandoned = 1;
+                        // unless it completed meanwhile, before accept could see the flag
+                        stillRunning = !(cancelled.isDone() && ABANDONED.compareAndSet(this, 1, 0));
                     }
-                },
-                timeout.toMillis(),
-                TimeUnit.MILLISECONDS
-        );
+                    try {
+                        onCancelled(cancelled, stillRunning);
+                    } catch (RuntimeException | Error e) {
+                        // the timeout is reported regardless
+                    }
+                }
+                settle(null, new CircuitBreakerTimeoutException("Invocation time out"));
+            }
+        }
 
-        // cancel timeout future task if the original future completes first
-        future.whenComplete((t, throwable) -> {
-            timeoutHandle.cancel(false);
-        });
+        private void settle(T result, Throwable failure) {
+            try {
+                onSettled(result, failure);
+            } catch (RuntimeException | Error e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            if (executor == null) {
+                finish(result, failure);
+                return;
+            }
+            T settledResult = result;
+            Throwable settledFailure = failure;
+            try {
+                executor.execute(() -> finish(settledResult, settledFailure));
+            } catch (RejectedExecutionException e) {
+                finish(settledResult, settledFailure);
+            }
+        }
 
-        return future.applyToEither(timeoutFuture, t -> t); // when either completes, return its result
+        private void finish(T result, Throwable failure) {
+            if (failure == null) {
+                complete(result);
+            } else {
+                completeExceptionally(failure);
+            }
+        }
     }
 }
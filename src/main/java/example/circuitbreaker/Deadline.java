@@ -0,0 +1,138 @@
+package example.circuitbreaker;
+
+import java.time.Duration;
+
+/**
+ * The point in time by which the work of the current request must complete, carried by the thread doing it.
+ * <p>
+ * A deadline is opened with {@link #within(Duration)}, typically by a request handler, and read by every
+ * {@link DefaultCircuitBreakerInvoker} called while it is open: an invocation is given the smaller of its timeout and
+ * the remaining budget, is failed fast without being made when the budget is below the floor of the invoker, and runs
+ * on the executor thread within its own narrowed deadline, so that the breakers it calls in turn see what remains of
+ * it.
+ *
+ * <pre>{@code
+ * try (Deadline.Scope ignored = Deadline.within(Duration.ofMillis(800))) {
+ *     serviceA.execute(() -> handle(request));
+ * }
+ * }</pre>
+ * <p>
+ * The deadline is kept in a {@code ThreadLocal}: work handed to another thread by the caller's own code must
+ * {@link #attach()} the {@link #current()} deadline there.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    // keeps the differences of System.nanoTime values from overflowing
+    private static final long MAX_BUDGET_NANOS = Long.MAX_VALUE >> 2;
+
+    private final long deadlineNanos;
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budget the time left to complete the work
+     * @return a deadline the given budget from now, which is not attached to the current thread
+     */
+    public static Deadline after(Duration budget) {
+        if (budget == null) {
+            throw new IllegalArgumentException("Budget must not be null");
+        }
+        return new Deadline(System.nanoTime() + budgetNanos(budget));
+    }
+
+    /**
+     * @return the deadline of the current thread, or null when the thread has none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Attaches to the current thread a deadline the given budget from now, or keeps its current deadline when that
+     * one is earlier: a nested deadline can only narrow the budget of the outer one.
+     *
+     * @param budget the time left to complete the work
+     * @return the scope restoring the previous deadline of the thread when closed
+     */
+    public static Scope within(Duration budget) {
+        if (budget == null) {
+            throw new IllegalArgumentException("Budget must not be null");
+        }
+        return narrowed(budgetNanos(budget)).attach();
+    }
+
+    // the current deadline, or a new one the given budget from now when it is earlier
+    static Deadline narrowed(long budgetNanos) {
+        long deadlineNanos = System.nanoTime() + Math.min(budgetNanos, MAX_BUDGET_NANOS);
+        Deadline current = CURRENT.get();
+        if (current != null && current.deadlineNanos - deadlineNanos <= 0) {
+            return current;
+        }
+        return new Deadline(deadlineNanos);
+    }
+
+    /**
+     * Attaches this deadline to the current thread, e.g. a thread continuing the work of the request.
+     *
+     * @return the scope restoring the previous deadline of the thread when closed
+     */
+    public Scope attach() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(this);
+        return scope;
+    }
+
+    /**
+     * @return the time left until the deadline, in nanoseconds, negative once it has passed
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return the time left until the deadline, negative once it has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    static long budgetNanos(Duration budget) {
+        try {
+            return Math.min(budget.toNanos(), MAX_BUDGET_NANOS);
+        } catch (ArithmeticException e) {
+            return budget.isNegative() ? -MAX_BUDGET_NANOS : MAX_BUDGET_NANOS;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[remaining=" + remaining() + "]";
+    }
+
+    /**
+     * The attachment of a deadline to a thread, to be closed on the same thread.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package example.circuitbreaker;
 
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import example.circuitbreaker.jfr.CircuitBreakerEvents;
 import example.circuitbreaker.states.CircuitBreakerState;
+import example.circuitbreaker.states.AbstractClosedCircuitBreakerState;
 import example.circuitbreaker.states.ClosedCircuitBreakerState;
+import example.circuitbreaker.states.DisabledCircuitBreakerState;
+import example.circuitbreaker.states.ForcedOpenCircuitBreakerState;
 import example.circuitbreaker.states.HalfOpenCircuitBreakerState;
 import example.circuitbreaker.states.OpenCircuitBreakerState;
+import example.circuitbreaker.states.StripedClosedCircuitBreakerState;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -16,10 +31,21 @@ import java.util.function.Supplier;
  * Calls the current state and handles state transitions.
  */
 public class DefaultCircuitBreaker implements CircuitBreaker, CircuitBreakerSwitch {
-    private final CircuitBreakerState closedState;
-    private final CircuitBreakerState openState;
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    private final String name;
+    private final AbstractClosedCircuitBreakerState closedState;
+    private final OpenCircuitBreakerState openState;
     private final CircuitBreakerState halfOpenState;
+    private final CircuitBreakerState forcedOpenState;
+    private final CircuitBreakerState disabledState;
+    private final CircuitBreakerMetrics metrics = new CircuitBreakerMetrics();
+    private final DefaultCircuitBreakerInvoker invoker;
     private final AtomicReference<CircuitBreakerState> currentState;
+    // read by the states on every call
+    private volatile CircuitBreakerConfig config;
+
+    private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
 
     private CircuitBreakerListener eventListener;
 
@@ -32,13 +58,263 @@ public class DefaultCircuitBreaker implements CircuitBreaker, CircuitBreakerSwit
      * @param circuitResetTimeout      time interval after which the circuit attempts to close circuit.
      */
     public DefaultCircuitBreaker(ScheduledExecutorService scheduledExecutorService, int maxFailures, Duration invocationTimeout, Duration circuitResetTimeout) {
-        CircuitBreakerInvoker invoker = new DefaultCircuitBreakerInvoker(scheduledExecutorService);
-        closedState = new ClosedCircuitBreakerState(this, invoker, maxFailures, invocationTimeout);
-        openState = new OpenCircuitBreakerState(this, invoker, circuitResetTimeout);
-        halfOpenState = new HalfOpenCircuitBreakerState(this, invoker, invocationTimeout);
+        this(scheduledExecutorService, maxFailures, invocationTimeout, ResetTimeoutPolicy.fixed(circuitResetTimeout));
+    }
+
+    /**
+     * Constructs a DefaultCircuitBreaker whose reset timeout is decided by the given policy, e.g. growing
+     * exponentially while the trial requests keep failing.
+     *
+     * @param scheduledExecutorService the ScheduledExecutorService for scheduling tasks
+     * @param maxFailures              the maximum number of failures before opening the circuit
+     * @param invocationTimeout        the timeout duration for each invocation
+     * @param resetTimeoutPolicy       the policy deciding how long the circuit stays open before attempting to close
+     */
+    public DefaultCircuitBreaker(ScheduledExecutorService scheduledExecutorService, int maxFailures, Duration invocationTimeout, ResetTimeoutPolicy resetTimeoutPolicy) {
+        this("circuit-breaker-" + sequence.incrementAndGet(), scheduledExecutorService, maxFailures, invocationTimeout,
+                resetTimeoutPolicy);
+    }
+
+    /**
+     * Constructs a named DefaultCircuitBreaker, the name identifies the breaker in a {@link CircuitBreakerRegistry}
+     * and in its snapshots.
+     *
+     * @param name                     the name of the breaker
+     * @param scheduledExecutorService the ScheduledExecutorService for scheduling tasks
+     * @param maxFailures              the maximum number of failures before opening the circuit
+     * @param invocationTimeout        the timeout duration for each invocation
+     * @param resetTimeoutPolicy       the policy deciding how long the circuit stays open before attempting to close
+     */
+    public DefaultCircuitBreaker(String name, ScheduledExecutorService scheduledExecutorService, int maxFailures, Duration invocationTimeout, ResetTimeoutPolicy resetTimeoutPolicy) {
+        this(name, scheduledExecutorService, maxFailures, invocationTimeout, resetTimeoutPolicy,
+                FailureClassifier.recordAll());
+    }
+
+    /**
+     * Constructs a named DefaultCircuitBreaker counting as failures only the outcomes selected by the classifier,
+     * e.g. ignoring validation errors or counting HTTP 503 responses.
+     *
+     * @param name                     the name of the breaker
+     * @param scheduledExecutorService the ScheduledExecutorService for scheduling tasks
+     * @param maxFailures              the maximum number of failures before opening the circuit
+     * @param invocationTimeout        the timeout duration for each invocation
+     * @param resetTimeoutPolicy       the policy deciding how long the circuit stays open before attempting to close
+     * @param classifier               decides which exceptions and results count as failures
+     */
+    public DefaultCircuitBreaker(String name, ScheduledExecutorService scheduledExecutorService, int maxFailures, Duration invocationTimeout, ResetTimeoutPolicy resetTimeoutPolicy, FailureClassifier classifier) {
+        this(name, scheduledExecutorService, CircuitBreakerConfig.builder()
+                .maxFailures(maxFailures)
+                .invocationTimeout(invocationTimeout)
+                .resetTimeoutPolicy(resetTimeoutPolicy)
+                .build(), classifier);
+    }
+
+    /**
+     * Constructs a named DefaultCircuitBreaker from a config, which can be swapped later on through
+     * {@link #reconfigure(CircuitBreakerConfig)}.
+     *
+     * @param name                     the name of the breaker
+     * @param scheduledExecutorService the ScheduledExecutorService for scheduling tasks
+     * @param config                   the thresholds and timeouts of the breaker
+     */
+    public DefaultCircuitBreaker(String name, ScheduledExecutorService scheduledExecutorService, CircuitBreakerConfig config) {
+        this(name, scheduledExecutorService, config, FailureClassifier.recordAll());
+    }
+
+    /**
+     * Constructs a named DefaultCircuitBreaker from a config, counting as failures only the outcomes selected by the
+     * classifier.
+     *
+     * @param name                     the name of the breaker
+     * @param scheduledExecutorService the ScheduledExecutorService for scheduling tasks
+     * @param config                   the thresholds and timeouts of the breaker
+     * @param classifier               decides which exceptions and results count as failures
+     */
+    public DefaultCircuitBreaker(String name, ScheduledExecutorService scheduledExecutorService, CircuitBreakerConfig config, FailureClassifier classifier) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Name must not be empty");
+        }
+        if (config == null) {
+            throw new IllegalArgumentException("Config must not be null");
+        }
+        if (classifier == null) {
+            throw new IllegalArgumentException("Classifier must not be null");
+        }
+        this.name = name;
+        this.config = config;
+        invoker = new DefaultCircuitBreakerInvoker(scheduledExecutorService, name, metrics, classifier);
+        Supplier<CircuitBreakerConfig> current = this::getConfig;
+        closedState = config.getFailureCounterStripes() > 0
+                ? new StripedClosedCircuitBreakerState(this, invoker, current, config.getFailureCounterStripes())
+                : new ClosedCircuitBreakerState(this, invoker, current);
+        openState = new OpenCircuitBreakerState(this, invoker, current);
+        halfOpenState = new HalfOpenCircuitBreakerState(this, invoker, current);
+        forcedOpenState = new ForcedOpenCircuitBreakerState();
+        disabledState = new DisabledCircuitBreakerState(invoker, current);
         currentState = new AtomicReference<>(closedState);
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreakerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Swaps the config of the breaker at once, keeping the state of the circuit and its failure count: the calls
+     * made from now on use the new timeout, a failure is compared to the new threshold, and the next opening uses the
+     * new reset timeout policy.
+     *
+     * @param config the new config, whose failure counter stripes must be those of the current one
+     */
+    public void reconfigure(CircuitBreakerConfig config) {
+        if (config == null) {
+            throw new IllegalArgumentException("Config must not be null");
+        }
+        if (config.getFailureCounterStripes() != this.config.getFailureCounterStripes()) {
+            throw new IllegalArgumentException("Failure counter stripes cannot be reconfigured");
+        }
+        this.config = config;
+    }
+
+    public CircuitState getState() {
+        return stateOf(currentState.get());
+    }
+
+    private CircuitState stateOf(CircuitBreakerState state) {
+        if (state == closedState) {
+            return CircuitState.CLOSED;
+        } else if (state == openState) {
+            return CircuitState.OPEN;
+        } else if (state == halfOpenState) {
+            return CircuitState.HALF_OPEN;
+        }
+        return state == forcedOpenState ? CircuitState.FORCED_OPEN : CircuitState.DISABLED;
+    }
+
+    /**
+     * @return the number of consecutive failures counted while the circuit is closed
+     */
+    public int getFailures() {
+        return closedState.getFailureCount();
+    }
+
+    /**
+     * @return the call statistics of this breaker, which can be read at any time without disturbing the calls
+     */
+    public CircuitBreakerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Captures the current state of the breaker. The capture is not atomic: a transition racing with it may be
+     * reflected partially, which is fine for warming a breaker up after a restart.
+     */
+    public CircuitBreakerSnapshot snapshot() {
+        CircuitState state = getState();
+        boolean timed = state == CircuitState.OPEN || state == CircuitState.HALF_OPEN;
+        return new CircuitBreakerSnapshot(state, closedState.getFailureCount(), openState.getConsecutiveOpenings(),
+                timed ? openState.getOpenUntilMillis() : 0L);
+    }
+
+    /**
+     * Restores the breaker from a snapshot. A breaker that was open, or half-open with a trial request whose outcome
+     * is lost, is restored open until the snapshot deadline.
+     * A breaker that was forced open or disabled by an operator is restored as such.
+     * Only a breaker that is still Closed is restored, so a breaker that already transitioned keeps its live state.
+     */
+    public void restore(CircuitBreakerSnapshot snapshot) {
+        if (currentState.get() != closedState) {
+            return;
+        }
+        closedState.setFailureCount(snapshot.getFailures());
+        if (snapshot.getState() == CircuitState.FORCED_OPEN) {
+            if (tryTransitionState(closedState, forcedOpenState)) {
+                notifyOpened();
+            }
+            return;
+        } else if (snapshot.getState() == CircuitState.DISABLED) {
+            if (tryTransitionState(closedState, disabledState)) {
+                notifyDisabled();
+            }
+            return;
+        }
+        if (snapshot.getState() != CircuitState.CLOSED && tryTransitionState(closedState, openState)) {
+            // the restored deadline replaces the reset timeout scheduled on entering
+            openState.resume(snapshot.getOpenUntilMillis(), snapshot.getConsecutiveOpenings());
+            notifyOpened();
+        }
+    }
+
+    /**
+     * Keeps the circuit, if it opens within the given time, open at least until that time has elapsed instead of the
+     * reset timeout of the policy, e.g. honouring a {@code Retry-After} given by the dependency along with a failure.
+     * Record the hint before the outcome of the failed call, so that the opening it causes already applies it. The
+     * hint applies to the next opening only, and is taken as given: cap a hint coming from the dependency.
+     *
+     * @param retryAfter the time not to call the dependency again for
+     */
+    public void deferReset(Duration retryAfter) {
+        if (retryAfter == null || retryAfter.isNegative()) {
+            throw new IllegalArgumentException("Retry after must not be negative");
+        }
+        long now = System.currentTimeMillis();
+        // saturated rather than overflowing
+        long untilMillis = retryAfter.compareTo(Duration.ofMillis(Long.MAX_VALUE - now)) < 0
+                ? now + retryAfter.toMillis() : Long.MAX_VALUE;
+        openState.deferReset(untilMillis);
+    }
+
+    /**
+     * Opens the circuit if it is closed, as if the failure threshold had been reached, e.g. on evidence gathered
+     * outside this breaker. A Half-Open circuit is left to its trial request.
+     *
+     * @return whether the circuit was opened by this call
+     */
+    public boolean tripOpen() {
+        CircuitBreakerState state = currentState.get();
+        if (state != closedState) {
+            return false;
+        }
+        boolean isTransitioned = tryTransitionState(state, openState);
+        if (isTransitioned) {
+            notifyOpened();
+        }
+        return isTransitioned;
+    }
+
+    /**
+     * Opens the circuit whatever its state, until it is forced closed. Unlike an open circuit, a forced open circuit
+     * never attempts to close on its own.
+     */
+    public void forceOpen() {
+        if (forceTransitionState(forcedOpenState)) {
+            notifyOpened();
+        }
+    }
+
+    /**
+     * Closes the circuit whatever its state, a circuit that was not closed starts over with no failures.
+     */
+    public void forceClose() {
+        if (forceTransitionState(closedState)) {
+            openState.resetConsecutiveOpenings();
+            notifyClosed();
+        }
+    }
+
+    /**
+     * Disables the breaker until it is forced closed: calls flow through with the invocation timeout, and their
+     * outcomes are ignored so the circuit never opens.
+     */
+    public void disable() {
+        if (forceTransitionState(disabledState)) {
+            notifyDisabled();
+        }
+    }
+
     public CircuitBreakerListener getEventListener() {
         return eventListener;
     }
@@ -47,12 +323,67 @@ public class DefaultCircuitBreaker implements CircuitBreaker, CircuitBreakerSwit
         this.eventListener = eventListener;
     }
 
+    /**
+     * Sets the hook called for every call abandoned on a timeout or an interrupt, e.g. to abort an HTTP exchange
+     * that ignores its cancellation.
+     *
+     * @param cancellationHook the hook, or null for none
+     */
+    public void setCancellationHook(CancellationHook cancellationHook) {
+        invoker.setCancellationHook(cancellationHook);
+    }
+
+    /**
+     * Runs the synchronous calls on the given bulkhead, see {@link DefaultCircuitBreakerInvoker#setBulkhead(Bulkhead)}.
+     *
+     * @param bulkhead the bulkhead isolating the calls, possibly shared with other breakers, or null for none
+     */
+    public void setBulkhead(Bulkhead bulkhead) {
+        invoker.setBulkhead(bulkhead);
+    }
+
+    /**
+     * @return the bulkhead isolating the synchronous calls, or null for none
+     */
+    public Bulkhead getBulkhead() {
+        return invoker.getBulkhead();
+    }
+
+    /**
+     * Sets the least budget a call made within a {@link Deadline} needs to be invoked, see
+     * {@link DefaultCircuitBreakerInvoker#setDeadlineFloor(Duration)}.
+     *
+     * @param deadlineFloor the least remaining budget worth invoking
+     */
+    public void setDeadlineFloor(Duration deadlineFloor) {
+        invoker.setDeadlineFloor(deadlineFloor);
+    }
+
+    /**
+     * Adds a listener notified of transitions in addition to the {@link #setEventListener(CircuitBreakerListener) event listener},
+     * so that several components can observe the same breaker.
+     */
+    public void addEventListener(CircuitBreakerListener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeEventListener(CircuitBreakerListener listener) {
+        listeners.remove(listener);
+    }
+
     @Override
     public void execute(Runnable action) {
         if (action == null) {
             throw new IllegalArgumentException("Action must not be null");
         }
-        currentState.get().invoke(action);
+        CircuitBreakerState state = currentState.get();
+        try {
+            state.invoke(action);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
     }
 
     @Override
@@ -60,7 +391,14 @@ public class DefaultCircuitBreaker implements CircuitBreaker, CircuitBreakerSwit
         if (func == null) {
             throw new IllegalArgumentException("Func must not be null");
         }
-        return currentState.get().invoke(func);
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invoke(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
     }
 
     @Override
@@ -68,38 +406,216 @@ public class DefaultCircuitBreaker implements CircuitBreaker, CircuitBreakerSwit
         if (func == null) {
             throw new IllegalArgumentException("Func must not be null");
         }
-        return currentState.get().invokeAsync(func);
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsync(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        if (func == null || executor == null) {
+            throw new IllegalArgumentException("Func and executor must not be null");
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsync(func, executor);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public int executeAsInt(IntSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsInt(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public long executeAsLong(LongSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsLong(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public double executeAsDouble(DoubleSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsDouble(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean executeAsBoolean(BooleanSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAsBoolean(func);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> List<Outcome<T>> executeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        checkBatch(funcs, parallelism);
+        if (funcs.isEmpty()) {
+            return List.of();
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeBatch(funcs, parallelism);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> executeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                   int parallelism) {
+        checkBatch(funcs, parallelism);
+        if (funcs.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        CircuitBreakerState state = currentState.get();
+        try {
+            return state.invokeAllAsync(funcs, parallelism);
+        } catch (CircuitBreakerOpenException e) {
+            metrics.recordRejection();
+            CircuitBreakerEvents.rejection(name, stateOf(state));
+            throw e;
+        }
+    }
+
+    private static void checkBatch(List<?> funcs, int parallelism) {
+        if (funcs == null) {
+            throw new IllegalArgumentException("Funcs must not be null");
+        }
+        for (Object func : funcs) {
+            if (func == null) {
+                throw new IllegalArgumentException("Func must not be null");
+            }
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
     }
 
     @Override
     public void closeCircuit(CircuitBreakerState from) {
         boolean isTransitioned = tryTransitionState(from, closedState);
-        if (isTransitioned && eventListener != null) {
-            eventListener.onCircuitClosed(this);
+        if (isTransitioned) {
+            openState.resetConsecutiveOpenings();
+            notifyClosed();
         }
     }
 
     @Override
     public void openCircuit(CircuitBreakerState from) {
         boolean isTransitioned = tryTransitionState(from, openState);
-        if (isTransitioned && eventListener != null) {
-            eventListener.onCircuitOpened(this);
+        if (isTransitioned) {
+            notifyOpened();
         }
     }
 
     @Override
     public void attemptToCloseCircuit(CircuitBreakerState from) {
         boolean isTransitioned = tryTransitionState(from, halfOpenState);
-        if (isTransitioned && eventListener != null) {
+        if (isTransitioned) {
+            notifyHalfOpened();
+        }
+    }
+
+    private void notifyClosed() {
+        if (eventListener != null) {
+            eventListener.onCircuitClosed(this);
+        }
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onCircuitClosed(this);
+        }
+    }
+
+    private void notifyOpened() {
+        if (eventListener != null) {
+            eventListener.onCircuitOpened(this);
+        }
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onCircuitOpened(this);
+        }
+    }
+
+    private void notifyHalfOpened() {
+        if (eventListener != null) {
             eventListener.onCircuitHalfOpened(this);
         }
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onCircuitHalfOpened(this);
+        }
+    }
+
+    private void notifyDisabled() {
+        if (eventListener != null) {
+            eventListener.onCircuitDisabled(this);
+        }
+        for (CircuitBreakerListener listener : listeners) {
+            listener.onCircuitDisabled(this);
+        }
     }
 
     private boolean tryTransitionState(CircuitBreakerState from, CircuitBreakerState to) {
         if (currentState.compareAndSet(from, to)) {
+            CircuitBreakerEvents.transition(name, stateOf(from), stateOf(to));
             to.enter();
             return true;
         }
         return false;
     }
+
+    // transitions from whatever state the circuit is in, the states left behind are not notified
+    private boolean forceTransitionState(CircuitBreakerState to) {
+        CircuitBreakerState from = currentState.getAndSet(to);
+        if (from == to) {
+            return false;
+        }
+        CircuitBreakerEvents.transition(name, stateOf(from), stateOf(to));
+        to.enter();
+        return true;
+    }
 }
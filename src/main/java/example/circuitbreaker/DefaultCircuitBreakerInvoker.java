@@ -1,19 +1,35 @@
 package example.circuitbreaker;
 
+import example.circuitbreaker.exceptions.CircuitBreakerBulkheadFullException;
+import example.circuitbreaker.exceptions.CircuitBreakerDeadlineExceededException;
 import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
 import example.circuitbreaker.exceptions.CircuitBreakerInterruptedException;
 import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+import example.circuitbreaker.jfr.CallEvent;
+import example.circuitbreaker.jfr.CircuitBreakerEvents;
 import example.circuitbreaker.states.CircuitBreakerState;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -27,10 +43,100 @@ import java.util.function.Supplier;
 public class DefaultCircuitBreakerInvoker implements CircuitBreakerInvoker {
 
     private final ScheduledExecutorService scheduledExecutor;
+    private final String name;
+    private final CircuitBreakerMetrics metrics;
+    private final FailureClassifier classifier;
     private volatile ScheduledFuture<?> timerHandle;
+    private volatile CancellationHook cancellationHook;
+    private volatile long deadlineFloorNanos;
+    private volatile Bulkhead bulkhead;
 
     public DefaultCircuitBreakerInvoker(ScheduledExecutorService scheduledExecutorService) {
+        this(scheduledExecutorService, "circuit-breaker");
+    }
+
+    /**
+     * @param scheduledExecutorService the ScheduledExecutorService executing the invocations
+     * @param name                     the name of the breaker this invoker belongs to, reported in its events
+     */
+    public DefaultCircuitBreakerInvoker(ScheduledExecutorService scheduledExecutorService, String name) {
+        this(scheduledExecutorService, name, new CircuitBreakerMetrics());
+    }
+
+    /**
+     * @param scheduledExecutorService the ScheduledExecutorService executing the invocations
+     * @param name                     the name of the breaker this invoker belongs to, reported in its events
+     * @param metrics                  records the outcome and latency of every invocation
+     */
+    public DefaultCircuitBreakerInvoker(ScheduledExecutorService scheduledExecutorService, String name,
+                                        CircuitBreakerMetrics metrics) {
+        this(scheduledExecutorService, name, metrics, FailureClassifier.recordAll());
+    }
+
+    /**
+     * @param scheduledExecutorService the ScheduledExecutorService executing the invocations
+     * @param name                     the name of the breaker this invoker belongs to, reported in its events
+     * @param metrics                  records the outcome and latency of every invocation
+     * @param classifier               decides which exceptions and results count as failures of the breaker
+     */
+    public DefaultCircuitBreakerInvoker(ScheduledExecutorService scheduledExecutorService, String name,
+                                        CircuitBreakerMetrics metrics, FailureClassifier classifier) {
         this.scheduledExecutor = Objects.requireNonNull(scheduledExecutorService);
+        this.name = Objects.requireNonNull(name);
+        this.metrics = Objects.requireNonNull(metrics);
+        this.classifier = Objects.requireNonNull(classifier);
+    }
+
+    /**
+     * @param cancellationHook called for every invocation abandoned on a timeout or an interrupt, or null for none
+     */
+    public void setCancellationHook(CancellationHook cancellationHook) {
+        this.cancellationHook = cancellationHook;
+    }
+
+    /**
+     * Runs the synchronous invocations on the given bulkhead instead of the ScheduledExecutorService, whose queue is
+     * unbounded. Batches and scheduled actions still run on the ScheduledExecutorService.
+     *
+     * @param bulkhead the bulkhead isolating the invocations, possibly shared with other breakers, or null for none
+     */
+    public void setBulkhead(Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * @return the bulkhead isolating the synchronous invocations, or null for none
+     */
+    public Bulkhead getBulkhead() {
+        return bulkhead;
+    }
+
+    /**
+     * Sets the least budget an invocation made within a {@link Deadline} needs: an invocation whose caller has less
+     * left is failed fast with a {@link CircuitBreakerDeadlineExceededException}, without being made. Zero by default,
+     * failing only the invocations whose deadline has passed.
+     *
+     * @param deadlineFloor the least remaining budget worth invoking
+     */
+    public void setDeadlineFloor(Duration deadlineFloor) {
+        if (Objects.requireNonNull(deadlineFloor).isNegative()) {
+            throw new IllegalArgumentException("Deadline floor must not be negative");
+        }
+        this.deadlineFloorNanos = Deadline.budgetNanos(deadlineFloor);
+    }
+
+    // the timeout narrowed to what remains of the caller's deadline, failing fast when too little remains
+    private Duration budget(CircuitBreakerState state, Duration timeout) {
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return timeout;
+        }
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0 || remaining < deadlineFloorNanos) {
+            state.invocationSkipped();
+            throw new CircuitBreakerDeadlineExceededException("Deadline exceeded before the invocation");
+        }
+        return remaining < Deadline.budgetNanos(timeout) ? Duration.ofNanos(remaining) : timeout;
     }
 
     @Override
@@ -44,21 +150,26 @@ public class DefaultCircuitBreakerInvoker implements CircuitBreakerInvoker {
     public void invokeThrough(CircuitBreakerState state, Runnable action, Duration timeout) {
         Objects.requireNonNull(state);
         Objects.requireNonNull(action);
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
         try {
-            invoke(action, timeout);
+            invoke(state, action, budget);
         } catch (Exception e) {
-            state.invocationFails();
+            recordException(state, event, start, e);
             throw e;
         }
 
-        state.invocationSucceeds();
+        recordOutcome(state, event, start, false);
     }
 
-    // Delegate to the Supplier-based invoke method
-    private void invoke(Runnable action, Duration timeout) {
-        invoke(() -> {
-            action.run();
-            return null;
+    private void invoke(CircuitBreakerState state, Runnable action, Duration timeout) {
+        await(state, new TrackedCall<Void>() {
+            @Override
+            Void compute() {
+                action.run();
+                return null;
+            }
         }, timeout);
     }
 
@@ -67,58 +178,394 @@ public class DefaultCircuitBreakerInvoker implements CircuitBreakerInvoker {
         Objects.requireNonNull(state);
         Objects.requireNonNull(func);
         T result;
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
         try {
-            result = invoke(func, timeout);
+            result = invoke(state, func, budget);
         } catch (Exception e) {
-            state.invocationFails();
+            recordException(state, event, start, e);
             throw e;
         }
 
-        state.invocationSucceeds();
+        recordOutcome(state, event, start, classifier.isFailureResult(result));
         return result;
     }
 
-    private <T> T invoke(Supplier<T> func, Duration timeout) {
+    // records the outcome of a single invocation, once classified
+    private void recordOutcome(CircuitBreakerState state, CallEvent event, long start, boolean failed) {
+        long elapsed = System.nanoTime() - start;
+        CircuitBreakerEvents.endCall(event, name, !failed);
+        if (failed) {
+            metrics.recordFailure(elapsed);
+            state.invocationFails();
+        } else {
+            metrics.recordSuccess(elapsed);
+            state.invocationSucceeds();
+        }
+    }
+
+    private void recordException(CircuitBreakerState state, CallEvent event, long start, Exception e) {
+        if (e instanceof CircuitBreakerInterruptedException || e instanceof CircuitBreakerBulkheadFullException) {
+            // the caller gave up, e.g. a cancelled sibling of a fan-out, or was not let in, which says nothing of the
+            // callee's health
+            state.invocationSkipped();
+        } else {
+            recordOutcome(state, event, start, classifier.isFailure(e));
+        }
+    }
+
+    private <T> T invoke(CircuitBreakerState state, Supplier<T> func, Duration timeout) {
         Objects.requireNonNull(func);
-        Future<T> tFuture = scheduledExecutor.submit(func::get);
+        return await(state, new TrackedCall<T>() {
+            @Override
+            T compute() {
+                return func.get();
+            }
+        }, timeout);
+    }
+
+    private <V> V await(CircuitBreakerState state, TrackedCall<V> call, Duration timeout) {
+        long timeoutNanos = Deadline.budgetNanos(timeout);
+        call.metrics = metrics;
+        // the breakers called by the function see the deadline of this invocation
+        call.deadline = Deadline.narrowed(timeoutNanos);
+        Bulkhead isolation = bulkhead;
+        Future<V> tFuture = isolation == null ? scheduledExecutor.submit(call) : submit(state, isolation, call);
         try {
-            return tFuture.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return tFuture.get(timeoutNanos, TimeUnit.NANOSECONDS);
         } catch (TimeoutException e) {
+            metrics.recordTimeout();
+            CircuitBreakerEvents.timeout(name, timeout);
+            abandon(call, tFuture);
             throw new CircuitBreakerTimeoutException("Invocation time out", e.getCause());
         } catch (ExecutionException e) {
             throw new CircuitBreakerExecutionException("Invocation execution failed", e.getCause());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            abandon(call, tFuture);
             throw new CircuitBreakerInterruptedException("Invocation interrupted", e);
         } catch (Exception e) {
             throw new RuntimeException();
         } finally {
             // todo: review method boolean param
             tFuture.cancel(true);
+            if (isolation != null && isolation.isWaitSaturated(call.queueWaitNanos())) {
+                state.saturated();
+            }
+        }
+    }
+
+    // the time the call waits in the queue of the bulkhead runs against its timeout, as it is queued by the caller
+    private <V> Future<V> submit(CircuitBreakerState state, Bulkhead isolation, TrackedCall<V> call) {
+        call.queuedNanos = System.nanoTime();
+        try {
+            return isolation.submit(call);
+        } finally {
+            if (isolation.isQueueSaturated()) {
+                state.saturated();
+            }
+        }
+    }
+
+    // interrupts the call, counts it if it keeps running regardless, and lets the hook release what it holds
+    private void abandon(TrackedCall<?> call, Future<?> tFuture) {
+        tFuture.cancel(true);
+        call.abandon();
+        notifyCancelled(tFuture);
+    }
+
+    private void notifyCancelled(Future<?> invocation) {
+        CancellationHook hook = cancellationHook;
+        if (hook != null) {
+            try {
+                hook.onCancel(invocation);
+            } catch (RuntimeException e) {
+                // the hook must not replace the timeout of the invocation
+            }
+        }
+    }
+
+    /**
+     * An invocation submitted to the executor, which knows whether it is still running when it is abandoned, so that
+     * an abandoned call ignoring its interrupt is counted as running until it finishes.
+     */
+    private abstract static class TrackedCall<V> implements Callable<V> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<TrackedCall> STATUS =
+                AtomicIntegerFieldUpdater.newUpdater(TrackedCall.class, "status");
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+        private static final int ABANDONED = 3;
+
+        private volatile int status;
+        // set before the call is submitted, and published by the submission
+        CircuitBreakerMetrics metrics;
+        Deadline deadline;
+        // set when the call is queued in a bulkhead
+        long queuedNanos;
+        private volatile long startedNanos;
+
+        abstract V compute() throws Exception;
+
+        @Override
+        public final V call() throws Exception {
+            if (!STATUS.compareAndSet(this, PENDING, RUNNING)) {
+                return null; // abandoned before it started
+            }
+            if (queuedNanos != 0) {
+                startedNanos = System.nanoTime();
+            }
+            try (Deadline.Scope ignored = deadline.attach()) {
+                return compute();
+            } finally {
+                if (!STATUS.compareAndSet(this, RUNNING, DONE)) {
+                    metrics.recordAbandonedCallFinished();
+                }
+            }
+        }
+
+        final void abandon() {
+            if (STATUS.compareAndSet(this, RUNNING, ABANDONED)) {
+                metrics.recordAbandonedCall();
+                metrics.recordAbandonedCallRunning();
+            } else {
+                STATUS.compareAndSet(this, PENDING, ABANDONED);
+            }
+        }
+
+        // the time the call waited for a thread so far, or in total once it started
+        final long queueWaitNanos() {
+            long started = startedNanos;
+            return (started != 0 ? started : System.nanoTime()) - queuedNanos;
+        }
+
+        // makes a finished call ready to be submitted again
+        final void reset() {
+            status = PENDING;
+            queuedNanos = 0;
+            startedNanos = 0;
+        }
+    }
+
+    @Override
+    public int invokeAsIntThrough(CircuitBreakerState state, IntSupplier func, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(func);
+        int result;
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
+        try {
+            PrimitiveCall call = PrimitiveCall.acquire();
+            call.intFunc = func;
+            long bits = invokePrimitive(state, call, budget);
+            result = (int) bits;
+        } catch (Exception e) {
+            recordException(state, event, start, e);
+            throw e;
+        }
+
+        // the result is only boxed for a classifier that looks at results
+        recordOutcome(state, event, start, classifier.recordsResults() && classifier.isFailureResult(result));
+        return result;
+    }
+
+    @Override
+    public long invokeAsLongThrough(CircuitBreakerState state, LongSupplier func, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(func);
+        long result;
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
+        try {
+            PrimitiveCall call = PrimitiveCall.acquire();
+            call.longFunc = func;
+            long bits = invokePrimitive(state, call, budget);
+            result = bits;
+        } catch (Exception e) {
+            recordException(state, event, start, e);
+            throw e;
+        }
+
+        // the result is only boxed for a classifier that looks at results
+        recordOutcome(state, event, start, classifier.recordsResults() && classifier.isFailureResult(result));
+        return result;
+    }
+
+    @Override
+    public double invokeAsDoubleThrough(CircuitBreakerState state, DoubleSupplier func, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(func);
+        double result;
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
+        try {
+            PrimitiveCall call = PrimitiveCall.acquire();
+            call.doubleFunc = func;
+            long bits = invokePrimitive(state, call, budget);
+            result = Double.longBitsToDouble(bits);
+        } catch (Exception e) {
+            recordException(state, event, start, e);
+            throw e;
+        }
+
+        // the result is only boxed for a classifier that looks at results
+        recordOutcome(state, event, start, classifier.recordsResults() && classifier.isFailureResult(result));
+        return result;
+    }
+
+    @Override
+    public boolean invokeAsBooleanThrough(CircuitBreakerState state, BooleanSupplier func, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(func);
+        boolean result;
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
+        try {
+            PrimitiveCall call = PrimitiveCall.acquire();
+            call.booleanFunc = func;
+            long bits = invokePrimitive(state, call, budget);
+            result = bits != 0;
+        } catch (Exception e) {
+            recordException(state, event, start, e);
+            throw e;
         }
+
+        // the result is only boxed for a classifier that looks at results
+        recordOutcome(state, event, start, classifier.recordsResults() && classifier.isFailureResult(result));
+        return result;
     }
 
+    private long invokePrimitive(CircuitBreakerState state, PrimitiveCall call, Duration timeout) {
+        try {
+            await(state, call, timeout);
+        } catch (CircuitBreakerTimeoutException | CircuitBreakerInterruptedException e) {
+            // the call may still be running, so it is discarded rather than released
+            call.discard();
+            throw e;
+        } catch (RuntimeException e) {
+            call.release();
+            throw e;
+        }
+        return call.release();
+    }
+
+    /**
+     * Carries a primitive function to the executor and its result back as the bits of a {@code long}, where a
+     * {@code Future} would box it. Each caller thread reuses its own call, as a synchronous caller waits for the call
+     * to complete before making the next one; a call made while the thread's call is in use, or after it was
+     * abandoned on a timeout, gets a new one. The function and the result are published through the executor and
+     * {@link Future#get}.
+     */
+    private static final class PrimitiveCall extends TrackedCall<Void> {
+        private static final ThreadLocal<PrimitiveCall> CALLS = ThreadLocal.withInitial(PrimitiveCall::new);
+
+        private IntSupplier intFunc;
+        private LongSupplier longFunc;
+        private DoubleSupplier doubleFunc;
+        private BooleanSupplier booleanFunc;
+        private long result;
+        private boolean inUse;
+
+        static PrimitiveCall acquire() {
+            PrimitiveCall call = CALLS.get();
+            if (call.inUse) {
+                call = new PrimitiveCall();
+            }
+            call.inUse = true;
+            call.reset();
+            return call;
+        }
+
+        @Override
+        Void compute() {
+            if (intFunc != null) {
+                result = intFunc.getAsInt();
+            } else if (longFunc != null) {
+                result = longFunc.getAsLong();
+            } else if (doubleFunc != null) {
+                result = Double.doubleToRawLongBits(doubleFunc.getAsDouble());
+            } else {
+                result = booleanFunc.getAsBoolean() ? 1 : 0;
+            }
+            return null;
+        }
+
+        long release() {
+            intFunc = null;
+            longFunc = null;
+            doubleFunc = null;
+            booleanFunc = null;
+            inUse = false;
+            return result;
+        }
+
+        void discard() {
+            if (CALLS.get() == this) {
+                CALLS.remove();
+            }
+        }
+    }
 
     @Override
     public <T> CompletableFuture<T> invokeThroughAsync(CircuitBreakerState state, Supplier<CompletableFuture<T>> func,
                                                        Duration timeout) {
+        return invokeThroughAsync(state, func, timeout, null);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeThroughAsync(CircuitBreakerState state, Supplier<CompletableFuture<T>> func,
+                                                       Duration timeout, Executor executor) {
         Objects.requireNonNull(state);
         Objects.requireNonNull(func);
         CompletableFuture<T> future;
-        try {
-            future = invokeAsync(func, timeout);
+        Duration budget = budget(state, timeout);
+        CallEvent event = CircuitBreakerEvents.beginCall();
+        long start = System.nanoTime();
+        try (Deadline.Scope ignored = Deadline.within(budget)) {
+            future = Objects.requireNonNull(func.get());
         } catch (Exception e) {
-            state.invocationFails();
+            recordException(state, event, start, e);
             throw e;
         }
 
-        return future.whenComplete((t, throwable) -> {
-            if (Objects.isNull(throwable)) {
-                state.invocationSucceeds();
-            } else {
-                state.invocationFails();
+        // one object handles the timeout, cancels the function's future on it, and records the outcome before
+        // completing the caller's future
+        return new CompletableFutureUtil.TimedFuture<T>(executor) {
+            @Override
+            protected void onSettled(T result, Throwable failure) {
+                if (failure == null) {
+                    recordOutcome(state, event, start, classifier.isFailureResult(result));
+                } else {
+                    if (unwrap(failure) instanceof CircuitBreakerTimeoutException) {
+                        metrics.recordTimeout();
+                        CircuitBreakerEvents.timeout(name, budget);
+                    }
+                    recordOutcome(state, event, start, classifier.isFailure(failure));
+                }
+            }
+
+            @Override
+            protected void onCancelled(CompletableFuture<T> source, boolean stillRunning) {
+                // cancelling a future completes it without stopping the work behind it, so every timed-out future is
+                // abandoned, and only one ignoring its cancellation is seen running
+                metrics.recordAbandonedCall();
+                if (stillRunning) {
+                    metrics.recordAbandonedCallRunning();
+                }
+                notifyCancelled(source);
+            }
+
+            @Override
+            protected void onAbandonedFinished() {
+                metrics.recordAbandonedCallFinished();
             }
-        });
+        }.await(future, budget);
     }
 
     private <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Duration timeout) {
@@ -129,6 +576,207 @@ public class DefaultCircuitBreakerInvoker implements CircuitBreakerInvoker {
         return CompletableFutureUtil.timeOutAfter(future, timeout);
     }
 
+    @Override
+    public <T> List<Outcome<T>> invokeBatchThrough(CircuitBreakerState state, List<? extends Supplier<T>> funcs,
+                                                   int parallelism, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(funcs);
+        Duration budget = budget(state, timeout);
+        Deadline deadline = Deadline.current();
+        int size = funcs.size();
+        int lanes = Math.min(parallelism, size);
+        AtomicReferenceArray<Outcome<T>> outcomes = new AtomicReferenceArray<>(size);
+        AtomicInteger cursor = new AtomicInteger();
+
+        // one executor submission per lane, each lane pulls the next function until the batch is drained
+        List<Future<?>> workers = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            workers.add(scheduledExecutor.submit(() -> runLane(funcs, outcomes, cursor, deadline)));
+        }
+
+        long batchTimeoutNanos = batchTimeoutNanos(budget, size, lanes);
+        if (deadline != null) {
+            batchTimeoutNanos = Math.min(batchTimeoutNanos, deadline.remainingNanos());
+        }
+        Outcome<T> unfinished = awaitLanes(workers, batchTimeoutNanos);
+        cursor.set(size); // stop lanes from claiming further functions
+
+        List<Outcome<T>> results = new ArrayList<>(size);
+        int successes = 0;
+        int trailingFailures = 0;
+        for (int i = 0; i < size; i++) {
+            // an unfinished function is reported as failed even if its lane completes it later
+            Outcome<T> outcome = outcomes.compareAndSet(i, null, unfinished) ? unfinished : outcomes.get(i);
+            if (isFailure(outcome)) {
+                trailingFailures++;
+            } else {
+                successes++;
+                trailingFailures = 0;
+            }
+            results.add(outcome);
+        }
+        workers.forEach(worker -> worker.cancel(true));
+
+        metrics.recordOutcomes(successes, size - successes);
+        state.invocationsComplete(successes, trailingFailures);
+        return results;
+    }
+
+    private static <T> void runLane(List<? extends Supplier<T>> funcs, AtomicReferenceArray<Outcome<T>> outcomes,
+                                    AtomicInteger cursor, Deadline deadline) {
+        if (deadline != null) {
+            try (Deadline.Scope ignored = deadline.attach()) {
+                runLane(funcs, outcomes, cursor, null);
+            }
+            return;
+        }
+        int index;
+        while ((index = cursor.getAndIncrement()) < funcs.size()) {
+            Outcome<T> outcome;
+            try {
+                outcome = Outcome.success(funcs.get(index).get());
+            } catch (Exception | Error e) {
+                // an error fails its own function only, the lane goes on with the next one
+                outcome = Outcome.failure(new CircuitBreakerExecutionException("Invocation execution failed", e));
+            }
+            outcomes.set(index, outcome);
+        }
+    }
+
+    // waits for every lane within the batch budget, returns the outcome of functions that did not finish in time
+    private static <T> Outcome<T> awaitLanes(List<Future<?>> workers, long timeoutNanos) {
+        long start = System.nanoTime();
+        Outcome<T> unfinished = Outcome.failure(new CircuitBreakerTimeoutException("Invocation time out"));
+        for (Future<?> worker : workers) {
+            try {
+                worker.get(Math.max(0, timeoutNanos - (System.nanoTime() - start)), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // a lane that died leaves the function it claimed unfinished, the other lanes are still awaited
+                unfinished = Outcome.failure(new CircuitBreakerExecutionException("Invocation execution failed",
+                        e.getCause()));
+            } catch (TimeoutException e) {
+                return Outcome.failure(new CircuitBreakerTimeoutException("Invocation time out", e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Outcome.failure(new CircuitBreakerInterruptedException("Invocation interrupted", e));
+            }
+        }
+        return unfinished;
+    }
+
+    // every lane is granted one timeout per function it is expected to run
+    private static long batchTimeoutNanos(Duration timeout, int size, int lanes) {
+        long rounds = (size + lanes - 1) / lanes;
+        try {
+            return Math.multiplyExact(timeout.toNanos(), rounds);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllThroughAsync(CircuitBreakerState state,
+                                                                         List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                         int parallelism, Duration timeout) {
+        Objects.requireNonNull(state);
+        Objects.requireNonNull(funcs);
+        return new AsyncBatch<>(state, funcs, budget(state, timeout)).start(Math.min(parallelism, funcs.size()));
+    }
+
+    /**
+     * Keeps a bounded number of futures of a batch in flight: each lane starts the next function
+     * when its current future completes, and the last completion records the outcomes of the batch.
+     */
+    private final class AsyncBatch<T> {
+        private final CircuitBreakerState state;
+        private final List<? extends Supplier<CompletableFuture<T>>> funcs;
+        private final Duration timeout;
+        private final AtomicReferenceArray<Outcome<T>> outcomes;
+        private final AtomicInteger cursor = new AtomicInteger();
+        private final AtomicInteger pending;
+        private final CompletableFuture<List<Outcome<T>>> result = new CompletableFuture<>();
+
+        AsyncBatch(CircuitBreakerState state, List<? extends Supplier<CompletableFuture<T>>> funcs, Duration timeout) {
+            this.state = state;
+            this.funcs = funcs;
+            this.timeout = timeout;
+            this.outcomes = new AtomicReferenceArray<>(funcs.size());
+            this.pending = new AtomicInteger(funcs.size());
+        }
+
+        CompletableFuture<List<Outcome<T>>> start(int lanes) {
+            if (funcs.isEmpty()) {
+                finish();
+            }
+            for (int i = 0; i < lanes; i++) {
+                runLane();
+            }
+            return result;
+        }
+
+        private void runLane() {
+            int index;
+            while ((index = cursor.getAndIncrement()) < funcs.size()) {
+                CompletableFuture<T> future;
+                try {
+                    future = invokeAsync(funcs.get(index), timeout);
+                } catch (Exception e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+
+                int completedIndex = index;
+                if (!future.isDone()) {
+                    // continue this lane from the completing thread
+                    future.whenComplete((value, throwable) -> {
+                        complete(completedIndex, value, throwable);
+                        runLane();
+                    });
+                    return;
+                }
+                future.whenComplete((value, throwable) -> complete(completedIndex, value, throwable));
+            }
+        }
+
+        private void complete(int index, T value, Throwable throwable) {
+            outcomes.set(index, throwable == null ? Outcome.success(value) : Outcome.failure(unwrap(throwable)));
+            if (pending.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            List<Outcome<T>> results = new ArrayList<>(outcomes.length());
+            int successes = 0;
+            int trailingFailures = 0;
+            for (int i = 0; i < outcomes.length(); i++) {
+                Outcome<T> outcome = outcomes.get(i);
+                if (isFailure(outcome)) {
+                    trailingFailures++;
+                } else {
+                    successes++;
+                    trailingFailures = 0;
+                }
+                results.add(outcome);
+            }
+            metrics.recordOutcomes(successes, results.size() - successes);
+            try {
+                state.invocationsComplete(successes, trailingFailures);
+            } finally {
+                result.complete(results);
+            }
+        }
+    }
+
+    private boolean isFailure(Outcome<?> outcome) {
+        return outcome.isFailure() ? classifier.isFailure(outcome.getFailure())
+                : classifier.isFailureResult(outcome.getValue());
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+    }
+
     //helper method to cancel any existing timer
     private void cancelTimerIfNeeded() {
         if (timerHandle != null && !timerHandle.isDone()) {
@@ -0,0 +1,51 @@
+package example.circuitbreaker;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link ResetTimeoutPolicy} that multiplies the reset timeout on each consecutive opening, caps it at a maximum
+ * and subtracts a random jitter from it.
+ *
+ * @see ResetTimeoutPolicy#exponential(Duration, double, Duration, double)
+ */
+final class ExponentialResetTimeoutPolicy implements ResetTimeoutPolicy {
+
+    private final long initialNanos;
+    private final double multiplier;
+    private final long maxNanos;
+    private final double jitter;
+
+    ExponentialResetTimeoutPolicy(Duration initial, double multiplier, Duration max, double jitter) {
+        Objects.requireNonNull(initial);
+        Objects.requireNonNull(max);
+        if (initial.isZero() || initial.isNegative()) {
+            throw new IllegalArgumentException("Initial reset timeout must be positive");
+        }
+        if (!(multiplier >= 1.0)) {
+            throw new IllegalArgumentException("Multiplier must be at least 1");
+        }
+        if (max.compareTo(initial) < 0) {
+            throw new IllegalArgumentException("Max reset timeout must not be less than the initial one");
+        }
+        if (!(jitter >= 0.0 && jitter <= 1.0)) {
+            throw new IllegalArgumentException("Jitter must be within [0, 1]");
+        }
+        this.initialNanos = initial.toNanos();
+        this.multiplier = multiplier;
+        this.maxNanos = max.toNanos();
+        this.jitter = jitter;
+    }
+
+    @Override
+    public Duration resetTimeout(int consecutiveOpenings) {
+        double exponent = Math.max(0, consecutiveOpenings - 1);
+        // the double product saturates to infinity, it is capped before converting back to nanos
+        long nanos = (long) Math.min(maxNanos, initialNanos * Math.pow(multiplier, exponent));
+        if (jitter > 0.0) {
+            nanos -= (long) (nanos * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        return Duration.ofNanos(nanos);
+    }
+}
@@ -0,0 +1,148 @@
+package example.circuitbreaker;
+
+import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+
+/**
+ * Decides which outcomes of an invocation count as failures of the breaker.
+ * <p>
+ * An exception counts as a failure unless its type is ignored, and, when record types are given, only if its type is
+ * one of them. An ignored exception is still thrown to the caller, but counts as a success: the dependency did
+ * answer. The exception thrown by the invocation itself is classified, not the {@link CircuitBreakerExecutionException}
+ * wrapping it. A {@link CircuitBreakerTimeoutException} of the breaker always counts as a failure, whatever the record
+ * and ignore types, so that a dependency which only hangs still opens the circuit. A result counts as a failure when
+ * it matches the result predicate, e.g. an HTTP 503 response, and is still returned to the caller.
+ * <p>
+ * The decision for an exception type is computed once and cached in a {@link ClassValue}, so classifying an exception
+ * costs a single lookup.
+ */
+public final class FailureClassifier {
+
+    private static final FailureClassifier RECORD_ALL = builder().build();
+
+    private final List<Class<? extends Throwable>> recordExceptions;
+    private final List<Class<? extends Throwable>> ignoreExceptions;
+    private final Predicate<Object> recordResult;
+    private final ClassValue<Boolean> failureTypes = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return classify(type);
+        }
+    };
+
+    private FailureClassifier(Builder builder) {
+        this.recordExceptions = List.copyOf(builder.recordExceptions);
+        this.ignoreExceptions = List.copyOf(builder.ignoreExceptions);
+        this.recordResult = builder.recordResult;
+    }
+
+    /**
+     * @return a classifier counting every exception, and no result, as a failure
+     */
+    public static FailureClassifier recordAll() {
+        return RECORD_ALL;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param failure the exception an invocation ended with
+     * @return whether the exception counts as a failure of the breaker
+     */
+    public boolean isFailure(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CircuitBreakerExecutionException || cause instanceof CompletionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return failureTypes.get(cause.getClass());
+    }
+
+    /**
+     * @param result the result an invocation returned
+     * @return whether the result counts as a failure of the breaker
+     */
+    public boolean isFailureResult(Object result) {
+        return recordResult != null && recordResult.test(result);
+    }
+
+    /**
+     * @return whether results are classified at all, so that primitive results are only boxed when they are
+     */
+    boolean recordsResults() {
+        return recordResult != null;
+    }
+
+    private boolean classify(Class<?> type) {
+        if (CircuitBreakerTimeoutException.class.isAssignableFrom(type)) {
+            return true;
+        }
+        for (Class<? extends Throwable> ignored : ignoreExceptions) {
+            if (ignored.isAssignableFrom(type)) {
+                return false;
+            }
+        }
+        if (recordExceptions.isEmpty()) {
+            return true;
+        }
+        for (Class<? extends Throwable> recorded : recordExceptions) {
+            if (recorded.isAssignableFrom(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static final class Builder {
+        private final List<Class<? extends Throwable>> recordExceptions = new ArrayList<>();
+        private final List<Class<? extends Throwable>> ignoreExceptions = new ArrayList<>();
+        private Predicate<Object> recordResult;
+
+        private Builder() {
+        }
+
+        /**
+         * Restricts the failures to the exceptions of the given types and their subtypes.
+         */
+        @SafeVarargs
+        public final Builder recordExceptions(Class<? extends Throwable>... types) {
+            for (Class<? extends Throwable> type : types) {
+                recordExceptions.add(Objects.requireNonNull(type));
+            }
+            return this;
+        }
+
+        /**
+         * Counts the exceptions of the given types and their subtypes as successes, it takes precedence over
+         * {@link #recordExceptions(Class[])}.
+         */
+        @SafeVarargs
+        public final Builder ignoreExceptions(Class<? extends Throwable>... types) {
+            for (Class<? extends Throwable> type : types) {
+                ignoreExceptions.add(Objects.requireNonNull(type));
+            }
+            return this;
+        }
+
+        /**
+         * Counts the results matching the given predicate as failures. The predicate is called on every result,
+         * including {@code null}, and must not throw.
+         */
+        public Builder recordResult(Predicate<Object> predicate) {
+            this.recordResult = Objects.requireNonNull(predicate);
+            return this;
+        }
+
+        public FailureClassifier build() {
+            return new FailureClassifier(this);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package example.circuitbreaker;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hashes breaker names into 64-bit keys that identify a breaker outside the JVM, e.g. in a shared file or a
+ * datagram. The hash is FNV-1a over the UTF-8 bytes of the name, stable across processes and JVM versions,
+ * and never {@code 0} so that zero can mark the absence of a key.
+ */
+public final class NameHash {
+
+    private NameHash() {
+    }
+
+    public static long of(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,56 @@
+package example.circuitbreaker;
+
+import java.util.Objects;
+
+/**
+ * The result of a single item executed through a circuit breaker as part of a batch.
+ * An outcome either holds the value produced by the item or the failure it ended with,
+ * so that a batch can report partial failures without throwing.
+ *
+ * @param <T> the type of the value produced by a successful item
+ */
+public final class Outcome<T> {
+
+    private final T value;
+    private final Throwable failure;
+
+    private Outcome(T value, Throwable failure) {
+        this.value = value;
+        this.failure = failure;
+    }
+
+    public static <T> Outcome<T> success(T value) {
+        return new Outcome<>(value, null);
+    }
+
+    public static <T> Outcome<T> failure(Throwable failure) {
+        return new Outcome<>(null, Objects.requireNonNull(failure));
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    public boolean isFailure() {
+        return failure != null;
+    }
+
+    /**
+     * @return the value of a successful outcome, or {@code null} if the item failed
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * @return the failure of a failed outcome, or {@code null} if the item succeeded
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "Outcome[success=" + value + "]" : "Outcome[failure=" + failure + "]";
+    }
+}
@@ -0,0 +1,44 @@
+package example.circuitbreaker;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Decides how long the circuit stays open before the breaker attempts to close it again.
+ */
+@FunctionalInterface
+public interface ResetTimeoutPolicy {
+
+    /**
+     * Returns the time to wait in the Open state before moving to Half-Open.
+     *
+     * @param consecutiveOpenings the number of times the circuit has been opened since it was last closed,
+     *                            {@code 1} for the opening that follows the Closed state
+     * @return the reset timeout for this opening, never null
+     */
+    Duration resetTimeout(int consecutiveOpenings);
+
+    /**
+     * A policy that always waits the same {@code resetTimeout}.
+     *
+     * @param resetTimeout the reset timeout. Must not be null.
+     */
+    static ResetTimeoutPolicy fixed(Duration resetTimeout) {
+        Objects.requireNonNull(resetTimeout);
+        return consecutiveOpenings -> resetTimeout;
+    }
+
+    /**
+     * A policy where the reset timeout grows exponentially on each consecutive failed trial request,
+     * and returns to {@code initial} once the circuit is closed again.
+     *
+     * @param initial    the reset timeout of the first opening. Must be positive.
+     * @param multiplier the growth factor applied on each consecutive opening. Must be at least 1.
+     * @param max        the upper bound of the reset timeout. Must not be less than {@code initial}.
+     * @param jitter     the fraction in {@code [0, 1]} by which the reset timeout is randomly shortened, so that
+     *                   breakers opened at the same time do not probe their dependency in lockstep.
+     */
+    static ResetTimeoutPolicy exponential(Duration initial, double multiplier, Duration max, double jitter) {
+        return new ExponentialResetTimeoutPolicy(initial, multiplier, max, jitter);
+    }
+}
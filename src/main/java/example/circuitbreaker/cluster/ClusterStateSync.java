@@ -0,0 +1,162 @@
+package example.circuitbreaker.cluster;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitBreakerListener;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.NameHash;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Propagates the transitions of local breakers through a {@link StateSyncTransport}, and opens a local breaker once
+ * {@code quorum} other nodes report the same logical dependency open, without burning its own failure budget.
+ * <p>
+ * Remote transitions are applied on the thread of the transport with the non-blocking {@link DefaultCircuitBreaker#tripOpen()},
+ * they never wait on, nor make wait, the request threads. A breaker opened on remote evidence is not published back,
+ * and an open report that is not refreshed within {@code reportTtl}, e.g. from a node that went away, no longer counts.
+ * A remote close never closes a local breaker: it recovers through its own trial request. A disabled breaker no longer
+ * counts as open for the other nodes.
+ */
+public class ClusterStateSync implements AutoCloseable {
+
+    private final StateSyncTransport transport;
+    private final int quorum;
+    private final long reportTtlNanos;
+    private final Map<Long, DefaultCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final AtomicLong epochs = new AtomicLong();
+    private final CircuitBreakerListener publisher = new Publisher();
+
+    // only accessed by the thread of the transport
+    private final Map<Long, Map<Long, Report>> reports = new HashMap<>();
+    private volatile Thread applyingThread;
+
+    /**
+     * @param transport the transport carrying the transitions
+     * @param quorum    the number of other nodes that must report a breaker open to open it locally
+     * @param reportTtl how long an open report counts without being refreshed
+     */
+    public ClusterStateSync(StateSyncTransport transport, int quorum, Duration reportTtl) {
+        if (quorum < 1) {
+            throw new IllegalArgumentException("Quorum must be positive");
+        }
+        this.transport = Objects.requireNonNull(transport);
+        this.quorum = quorum;
+        this.reportTtlNanos = reportTtl.toNanos();
+        transport.start(this::onRemoteTransition);
+    }
+
+    /**
+     * Synchronizes the given breaker with the breakers of the same name on the other nodes.
+     */
+    public void bind(DefaultCircuitBreaker breaker) {
+        if (breakers.putIfAbsent(NameHash.of(breaker.getName()), breaker) == null) {
+            breaker.addEventListener(publisher);
+        }
+    }
+
+    /**
+     * Synchronizes every breaker currently registered in the registry.
+     */
+    public void bindAll(CircuitBreakerRegistry registry) {
+        registry.getAll().forEach(this::bind);
+    }
+
+    public void unbind(DefaultCircuitBreaker breaker) {
+        if (breakers.remove(NameHash.of(breaker.getName()), breaker)) {
+            breaker.removeEventListener(publisher);
+        }
+    }
+
+    private void onRemoteTransition(long nodeId, long nameHash, CircuitState state, long epoch) {
+        Map<Long, Report> nodes = reports.computeIfAbsent(nameHash, key -> new HashMap<>());
+        Report report = nodes.get(nodeId);
+        long now = System.nanoTime();
+        if (report != null && epoch < report.epoch) {
+            return; // delivered out of order
+        }
+        if (state != CircuitState.OPEN) {
+            nodes.remove(nodeId);
+            return;
+        }
+        nodes.put(nodeId, new Report(epoch, now));
+
+        DefaultCircuitBreaker breaker = breakers.get(nameHash);
+        if (breaker == null || breaker.getState() != CircuitState.CLOSED || countOpen(nodes, now) < quorum) {
+            return;
+        }
+        applyingThread = Thread.currentThread();
+        try {
+            breaker.tripOpen();
+        } finally {
+            applyingThread = null;
+        }
+    }
+
+    private int countOpen(Map<Long, Report> nodes, long now) {
+        int open = 0;
+        for (Iterator<Report> it = nodes.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().receivedAt > reportTtlNanos) {
+                it.remove();
+            } else {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    @Override
+    public void close() {
+        breakers.values().forEach(breaker -> breaker.removeEventListener(publisher));
+        breakers.clear();
+        transport.close();
+    }
+
+    private static final class Report {
+        private final long epoch;
+        private final long receivedAt;
+
+        Report(long epoch, long receivedAt) {
+            this.epoch = epoch;
+            this.receivedAt = receivedAt;
+        }
+    }
+
+    private final class Publisher implements CircuitBreakerListener {
+
+        @Override
+        public void onCircuitClosed(CircuitBreaker breaker) {
+            publish(breaker, CircuitState.CLOSED);
+        }
+
+        @Override
+        public void onCircuitOpened(CircuitBreaker breaker) {
+            if (Thread.currentThread() != applyingThread) {
+                publish(breaker, CircuitState.OPEN);
+            }
+        }
+
+        @Override
+        public void onCircuitHalfOpened(CircuitBreaker breaker) {
+            publish(breaker, CircuitState.HALF_OPEN);
+        }
+
+        // a breaker turned off by an operator withdraws its open report, or the peers would stay tripped by it
+        @Override
+        public void onCircuitDisabled(CircuitBreaker breaker) {
+            publish(breaker, CircuitState.DISABLED);
+        }
+
+        private void publish(CircuitBreaker breaker, CircuitState state) {
+            String name = ((DefaultCircuitBreaker) breaker).getName();
+            transport.publish(NameHash.of(name), state, epochs.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package example.circuitbreaker.cluster;
+
+import example.circuitbreaker.CircuitState;
+
+/**
+ * Receives the transitions published by the other nodes of a cluster.
+ */
+@FunctionalInterface
+public interface RemoteTransitionListener {
+
+    /**
+     * Invoked for each transition received from another node. A transport may deliver the same transition again,
+     * e.g. as a periodic heartbeat of open breakers.
+     *
+     * @param nodeId   the identifier of the node that published the transition
+     * @param nameHash the hash of the breaker name
+     * @param state    the state the breaker transitioned to on that node
+     * @param epoch    the epoch of the transition on that node
+     */
+    void onRemoteTransition(long nodeId, long nameHash, CircuitState state, long epoch);
+}
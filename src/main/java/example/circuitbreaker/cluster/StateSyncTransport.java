@@ -0,0 +1,30 @@
+package example.circuitbreaker.cluster;
+
+import example.circuitbreaker.CircuitState;
+
+/**
+ * Service provider interface carrying the transitions of circuit breakers between the nodes of a cluster.
+ * A breaker is identified by the {@link example.circuitbreaker.NameHash} of its name, so that the same logical
+ * dependency matches across nodes.
+ */
+public interface StateSyncTransport extends AutoCloseable {
+
+    /**
+     * Queues a local transition to be propagated to the other nodes.
+     * Called from the thread that made the transition, usually a request thread: must not block.
+     *
+     * @param nameHash the hash of the breaker name
+     * @param state    the state the breaker transitioned to
+     * @param epoch    increases with each transition published by this node, so that receivers can discard
+     *                 transitions delivered out of order
+     */
+    void publish(long nameHash, CircuitState state, long epoch);
+
+    /**
+     * Starts delivering the transitions of the other nodes to the given listener, on a thread of the transport.
+     */
+    void start(RemoteTransitionListener listener);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,193 @@
+package example.circuitbreaker.cluster;
+
+import example.circuitbreaker.CircuitState;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference {@link StateSyncTransport} gossiping compact UDP datagrams to a static list of peers.
+ * <p>
+ * Published transitions are queued without blocking and sent once per tick, batched in datagrams of
+ * {@code nodeId | count | count x (nameHash | state | epoch)}. On every tick, the breakers this node last reported
+ * open are sent again as a heartbeat, so that receivers can expire the reports of a node that went away, and so that
+ * a lost datagram is repaired by the next one. Received datagrams are delivered on a dedicated receiver thread.
+ */
+public class UdpGossipTransport implements StateSyncTransport {
+
+    private static final int MAX_DATAGRAM_BYTES = 1400;
+    private static final int HEADER_BYTES = Long.BYTES + Short.BYTES;
+    private static final int ENTRY_BYTES = Long.BYTES + Byte.BYTES + Long.BYTES;
+    private static final int MAX_ENTRIES = (MAX_DATAGRAM_BYTES - HEADER_BYTES) / ENTRY_BYTES;
+    private static final CircuitState[] STATES = CircuitState.values();
+
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+    private final DatagramChannel channel;
+    private final Duration tick;
+    private final List<SocketAddress> peers = new CopyOnWriteArrayList<>();
+    private final Queue<Transition> outbox = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService ticker;
+
+    // only accessed by the ticker thread: breakers last reported open by this node
+    private final Map<Long, Transition> open = new HashMap<>();
+
+    /**
+     * Binds the transport, use port {@code 0} to bind an ephemeral port.
+     *
+     * @param bindAddress the local address receiving the datagrams of the other nodes
+     * @param tick        the interval between two batches of datagrams
+     */
+    public UdpGossipTransport(InetSocketAddress bindAddress, Duration tick) throws IOException {
+        this.tick = Objects.requireNonNull(tick);
+        this.channel = DatagramChannel.open().bind(bindAddress);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-gossip-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public InetSocketAddress getLocalAddress() throws IOException {
+        return (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    public void addPeer(InetSocketAddress peer) {
+        peers.add(Objects.requireNonNull(peer));
+    }
+
+    @Override
+    public void publish(long nameHash, CircuitState state, long epoch) {
+        outbox.offer(new Transition(nameHash, state, epoch));
+    }
+
+    @Override
+    public void start(RemoteTransitionListener listener) {
+        Objects.requireNonNull(listener);
+        Thread receiver = new Thread(() -> receive(listener), "circuit-breaker-gossip-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+        ticker.scheduleAtFixedRate(this::sendBatch, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void sendBatch() {
+        // the latest transition of each breaker published during this tick, then the heartbeat of open breakers
+        Map<Long, Transition> batch = new LinkedHashMap<>();
+        Transition transition;
+        while ((transition = outbox.poll()) != null) {
+            batch.put(transition.nameHash, transition);
+            if (transition.state == CircuitState.OPEN) {
+                open.put(transition.nameHash, transition);
+            } else {
+                open.remove(transition.nameHash);
+            }
+        }
+        open.forEach(batch::putIfAbsent);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer datagram = ByteBuffer.allocate(MAX_DATAGRAM_BYTES);
+        int count = 0;
+        for (Transition entry : batch.values()) {
+            if (count == MAX_ENTRIES) {
+                send(datagram, count);
+                count = 0;
+            }
+            if (count == 0) {
+                datagram.clear().putLong(nodeId).putShort((short) 0);
+            }
+            datagram.putLong(entry.nameHash).put((byte) entry.state.ordinal()).putLong(entry.epoch);
+            count++;
+        }
+        send(datagram, count);
+    }
+
+    private void send(ByteBuffer datagram, int count) {
+        datagram.putShort(Long.BYTES, (short) count).flip();
+        for (SocketAddress peer : peers) {
+            try {
+                channel.send(datagram.duplicate(), peer);
+            } catch (IOException e) {
+                // gossip is best effort, the next heartbeat repairs a lost datagram
+            }
+        }
+    }
+
+    private void receive(RemoteTransitionListener listener) {
+        ByteBuffer datagram = ByteBuffer.allocate(64 * 1024);
+        while (channel.isOpen()) {
+            try {
+                datagram.clear();
+                channel.receive(datagram);
+                datagram.flip();
+                deliver(datagram, listener);
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                // drop the malformed or failed datagram, keep receiving
+            }
+        }
+    }
+
+    private void deliver(ByteBuffer datagram, RemoteTransitionListener listener) {
+        if (datagram.remaining() < HEADER_BYTES) {
+            return;
+        }
+        long sender = datagram.getLong();
+        int count = datagram.getShort();
+        if (sender == nodeId || count < 0 || datagram.remaining() < count * ENTRY_BYTES) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            long nameHash = datagram.getLong();
+            int state = datagram.get();
+            long epoch = datagram.getLong();
+            if (state >= 0 && state < STATES.length) {
+                listener.onRemoteTransition(sender, nameHash, STATES[state], epoch);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    private static final class Transition {
+        private final long nameHash;
+        private final CircuitState state;
+        private final long epoch;
+
+        Transition(long nameHash, CircuitState state, long epoch) {
+            this.nameHash = nameHash;
+            this.state = state;
+            this.epoch = epoch;
+        }
+    }
+}
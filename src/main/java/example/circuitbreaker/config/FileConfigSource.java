@@ -0,0 +1,222 @@
+package example.circuitbreaker.config;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Reconfigures the breakers of a {@link CircuitBreakerRegistry} from a properties file, and again every time the file
+ * changes once {@link #start() started}. A setting applies to every breaker, unless it is overridden for a breaker by
+ * prefixing it with its name:
+ *
+ * <pre>
+ * maxFailures=5
+ * invocationTimeout=PT2S
+ * resetTimeout=30000
+ * inventory.maxFailures=3
+ * inventory.resetTimeoutMultiplier=2
+ * inventory.maxResetTimeout=PT30M
+ * inventory.resetTimeoutJitter=0.2
+ * </pre>
+ * <p>
+ * The timeouts are ISO-8601 durations or milliseconds. A setting missing from the file keeps the value of the
+ * breaker's current config. A {@code resetTimeout} replaces the whole {@link ResetTimeoutPolicy} of the breaker,
+ * including an exponential backoff set in code: the reset timeout is fixed, unless {@code resetTimeoutMultiplier} is
+ * set too, in which case it grows from {@code resetTimeout} up to {@code maxResetTimeout}, with an optional
+ * {@code resetTimeoutJitter}. Leave the reset timeout out of the file to keep the policy of the breaker. A file with an invalid setting is not applied to any breaker. Replace the file with an
+ * atomic move rather than rewriting it in place, so that a reload never reads it half-written.
+ */
+public final class FileConfigSource implements AutoCloseable {
+
+    private static final String MAX_FAILURES = "maxFailures";
+    private static final String INVOCATION_TIMEOUT = "invocationTimeout";
+    private static final String RESET_TIMEOUT = "resetTimeout";
+    private static final String RESET_TIMEOUT_MULTIPLIER = "resetTimeoutMultiplier";
+    private static final String MAX_RESET_TIMEOUT = "maxResetTimeout";
+    private static final String RESET_TIMEOUT_JITTER = "resetTimeoutJitter";
+
+    private final Path file;
+    private final CircuitBreakerRegistry registry;
+    private volatile Properties properties = new Properties();
+    private volatile Exception lastError;
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * @param file     the properties file
+     * @param registry the registry of the breakers to reconfigure
+     */
+    public FileConfigSource(Path file, CircuitBreakerRegistry registry) {
+        this.file = Objects.requireNonNull(file).toAbsolutePath();
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    /**
+     * Reads the file and reconfigures every registered breaker.
+     *
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if a setting is invalid, no breaker is then reconfigured
+     */
+    public synchronized void reload() throws IOException {
+        Properties loaded = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            loaded.load(reader);
+        }
+        Map<DefaultCircuitBreaker, CircuitBreakerConfig> configs = new LinkedHashMap<>();
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            configs.put(breaker, apply(loaded, breaker.getName(), breaker.getConfig()));
+        }
+        properties = loaded;
+        configs.forEach(DefaultCircuitBreaker::reconfigure);
+    }
+
+    /**
+     * Returns the given config with the settings of the file for the named breaker, e.g. to create a breaker
+     * registered after the last reload.
+     *
+     * @param name the name of the breaker
+     * @param base the config providing the settings missing from the file
+     */
+    public CircuitBreakerConfig configFor(String name, CircuitBreakerConfig base) {
+        return apply(properties, Objects.requireNonNull(name), Objects.requireNonNull(base));
+    }
+
+    /**
+     * Reloads the file, then watches it on a daemon thread until closed.
+     *
+     * @throws IOException if the file cannot be read or its directory cannot be watched
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            throw new IllegalStateException("Already started");
+        }
+        reload();
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::watch, "circuit-breaker-config-" + file.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @return the failure of the last reload made by the watching thread, or null if it succeeded
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    // an overflow may have dropped the event of the file
+                    changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    try {
+                        reload();
+                        lastError = null;
+                    } catch (IOException | RuntimeException e) {
+                        lastError = e;
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.interrupt();
+            watchService.close();
+        }
+    }
+
+    private static CircuitBreakerConfig apply(Properties properties, String name, CircuitBreakerConfig base) {
+        CircuitBreakerConfig.Builder builder = base.toBuilder();
+        String value = setting(properties, name, MAX_FAILURES);
+        if (value != null) {
+            try {
+                builder.maxFailures(Integer.parseInt(value));
+            } catch (NumberFormatException e) {
+                throw invalid(MAX_FAILURES, value);
+            }
+        }
+        value = setting(properties, name, INVOCATION_TIMEOUT);
+        if (value != null) {
+            builder.invocationTimeout(parseDuration(INVOCATION_TIMEOUT, value));
+        }
+        value = setting(properties, name, RESET_TIMEOUT);
+        String multiplier = setting(properties, name, RESET_TIMEOUT_MULTIPLIER);
+        if (multiplier != null) {
+            String max = setting(properties, name, MAX_RESET_TIMEOUT);
+            String jitter = setting(properties, name, RESET_TIMEOUT_JITTER);
+            builder.resetTimeoutPolicy(ResetTimeoutPolicy.exponential(
+                    parseDuration(RESET_TIMEOUT, required(RESET_TIMEOUT, value)),
+                    parseDouble(RESET_TIMEOUT_MULTIPLIER, multiplier),
+                    parseDuration(MAX_RESET_TIMEOUT, required(MAX_RESET_TIMEOUT, max)),
+                    jitter == null ? 0.0 : parseDouble(RESET_TIMEOUT_JITTER, jitter)));
+        } else if (value != null) {
+            builder.resetTimeout(parseDuration(RESET_TIMEOUT, value));
+        }
+        return builder.build();
+    }
+
+    // a backoff of the reset timeout is only set from the file as a whole
+    private static String required(String key, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key + " for " + RESET_TIMEOUT_MULTIPLIER);
+        }
+        return value;
+    }
+
+    private static double parseDouble(String key, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw invalid(key, value);
+        }
+    }
+
+    private static String setting(Properties properties, String name, String key) {
+        String value = properties.getProperty(name + "." + key, properties.getProperty(key));
+        return value == null ? null : value.trim();
+    }
+
+    private static Duration parseDuration(String key, String value) {
+        try {
+            return value.startsWith("P") || value.startsWith("p") ? Duration.parse(value)
+                    : Duration.ofMillis(Long.parseLong(value));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw invalid(key, value);
+        }
+    }
+
+    private static IllegalArgumentException invalid(String key, String value) {
+        return new IllegalArgumentException("Invalid " + key + ": " + value);
+    }
+}
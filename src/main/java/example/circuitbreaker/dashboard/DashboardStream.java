@@ -0,0 +1,405 @@
+package example.circuitbreaker.dashboard;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import example.circuitbreaker.CircuitBreakerMetrics;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams rolling statistics of the breakers of a registry as server-sent events, on {@code /stream} of the JDK
+ * built-in HTTP server, in the spirit of the Hystrix dashboard stream.
+ * <p>
+ * Every tick, one JSON event is computed for all the breakers: state, failure counter, success, failure, rejection and
+ * timeout rates per second and latency percentiles, over a rolling window of the last ticks. The same encoded event is
+ * then handed to every connected client through a bounded queue. A client whose queue is full, i.e. that fell
+ * {@code maxPendingEvents} events behind, is dropped rather than buffered for, and its connection is closed even
+ * while it is blocked writing to a client that stopped reading.
+ * <p>
+ * Each connected client holds a thread, out of a pool of {@code maxClients} threads and one more to turn the clients
+ * beyond them away with a 503.
+ */
+public class DashboardStream implements AutoCloseable {
+
+    private static final byte[] RETRY = "retry: 1000\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_MAX_CLIENTS = 16;
+
+    private final CircuitBreakerRegistry registry;
+    private final Duration interval;
+    private final int windowTicks;
+    private final int maxPendingEvents;
+    private final int maxClients;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final Semaphore clientSlots;
+
+    // guarded by renderLock, the ticker thread renders most of the events but a tick may also be triggered directly
+    private final ReentrantLock renderLock = new ReentrantLock();
+    private final Map<DefaultCircuitBreaker, RollingWindow> windows = new IdentityHashMap<>();
+    // the latency histogram of the window of one breaker at a time, while its percentiles are computed
+    private final long[] histogram = new long[CircuitBreakerMetrics.latencyBuckets()];
+    private long tickCount;
+
+    private HttpServer server;
+    private ExecutorService clientThreads;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * @param registry         the breakers to stream
+     * @param interval         the interval between two events
+     * @param windowTicks      the number of ticks the rates and percentiles are computed over
+     * @param maxPendingEvents the number of events a client may fall behind before it is dropped
+     */
+    public DashboardStream(CircuitBreakerRegistry registry, Duration interval, int windowTicks, int maxPendingEvents) {
+        this(registry, interval, windowTicks, maxPendingEvents, DEFAULT_MAX_CLIENTS);
+    }
+
+    /**
+     * @param registry         the breakers to stream
+     * @param interval         the interval between two events
+     * @param windowTicks      the number of ticks the rates and percentiles are computed over
+     * @param maxPendingEvents the number of events a client may fall behind before it is dropped
+     * @param maxClients       the number of clients streamed to at once, 16 by default
+     */
+    public DashboardStream(CircuitBreakerRegistry registry, Duration interval, int windowTicks, int maxPendingEvents,
+                           int maxClients) {
+        this.registry = Objects.requireNonNull(registry);
+        this.interval = Objects.requireNonNull(interval);
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive");
+        }
+        if (windowTicks < 1) {
+            throw new IllegalArgumentException("Window ticks must be positive");
+        }
+        if (maxPendingEvents < 1) {
+            throw new IllegalArgumentException("Max pending events must be positive");
+        }
+        if (maxClients < 1) {
+            throw new IllegalArgumentException("Max clients must be positive");
+        }
+        this.windowTicks = windowTicks;
+        this.maxPendingEvents = maxPendingEvents;
+        this.maxClients = maxClients;
+        this.clientSlots = new Semaphore(maxClients);
+    }
+
+    /**
+     * Starts serving the stream on {@code /stream} of the given address, and ticking.
+     *
+     * @throws IllegalStateException if the stream is already started
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Dashboard stream already started");
+        }
+        // each connected client holds a thread while it is streamed to, the spare one answers the others at once
+        clientThreads = Executors.newFixedThreadPool(maxClients + 1, runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-dashboard-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(address, 0);
+        server.setExecutor(clientThreads);
+        server.createContext("/stream", this::handle);
+        server.start();
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "circuit-breaker-dashboard-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the address the stream is served on, or {@code null} if it is not started
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        ticker.shutdownNow();
+        clients.forEach(Client::drop);
+        server.stop(0);
+        clientThreads.shutdownNow();
+        server = null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        if (!clientSlots.tryAcquire()) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        Client client = new Client(maxPendingEvents);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            clients.add(client);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(RETRY);
+                body.flush();
+                client.stream(body);
+            }
+        } catch (IOException e) {
+            // the client went away, or was dropped
+        } finally {
+            clients.remove(client);
+            exchange.close();
+            clientSlots.release();
+            // the pooled thread must not keep the interrupt of a drop
+            Thread.interrupted();
+        }
+    }
+
+    void tick() {
+        byte[] event = render(System.nanoTime());
+        for (Iterator<Client> iterator = clients.iterator(); iterator.hasNext(); ) {
+            Client client = iterator.next();
+            if (!client.offer(event)) {
+                iterator.remove();
+                client.drop();
+            }
+        }
+    }
+
+    byte[] render(long now) {
+        renderLock.lock();
+        try {
+            long tick = ++tickCount;
+            StringBuilder json = new StringBuilder(256 + 256 * windows.size());
+            json.append("data: {\"timestamp\":").append(System.currentTimeMillis()).append(",\"breakers\":[");
+            boolean first = true;
+            for (DefaultCircuitBreaker breaker : registry.getAll()) {
+                RollingWindow window = windows.computeIfAbsent(breaker, key -> new RollingWindow(windowTicks + 1));
+                window.sample(now, breaker.getMetrics(), tick);
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append("{\"name\":");
+                appendString(json, breaker.getName());
+                json.append(",\"state\":\"").append(breaker.getState().name())
+                        .append("\",\"failures\":").append(breaker.getFailures());
+                window.appendStats(json, histogram);
+                json.append('}');
+            }
+            json.append("]}\n\n");
+            // forget the breakers removed from the registry
+            windows.values().removeIf(window -> window.lastTick != tick);
+            return json.toString().getBytes(StandardCharsets.UTF_8);
+        } finally {
+            renderLock.unlock();
+        }
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * A connected client and the events pending to be written to it.
+     */
+    private static final class Client {
+        private static final byte[] DROPPED = new byte[0];
+
+        private final BlockingQueue<byte[]> pending;
+        private volatile boolean dropped;
+        // the thread streaming to the client, while it does
+        private volatile Thread writer;
+
+        Client(int maxPendingEvents) {
+            pending = new ArrayBlockingQueue<>(maxPendingEvents);
+        }
+
+        boolean offer(byte[] event) {
+            return !dropped && pending.offer(event);
+        }
+
+        // a client that stopped reading leaves its thread blocked in a write, which closing the exchange would block
+        // on as well: interrupting the thread closes the channel of the connection under it instead, and an
+        // interrupted thread fails its next write at once rather than closing the stream gracefully
+        void drop() {
+            dropped = true;
+            pending.clear();
+            pending.offer(DROPPED); // wakes the client thread up
+            Thread streaming = writer;
+            if (streaming != null) {
+                streaming.interrupt();
+            }
+        }
+
+        void stream(OutputStream body) throws IOException {
+            writer = Thread.currentThread();
+            try {
+                while (!dropped) {
+                    byte[] event = pending.take();
+                    if (event == DROPPED) {
+                        return;
+                    }
+                    body.write(event);
+                    body.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * The metrics of a breaker sampled at the last ticks, in a ring reused from one tick to the next. A sample holds
+     * the cumulative counters, and only the latency buckets that changed since the previous sample along with their
+     * increase, so that a sample costs a few words rather than the whole histogram. Rates are computed from the
+     * difference between the newest and the oldest sample, and percentiles from the increases of the samples after
+     * the oldest.
+     */
+    private static final class RollingWindow {
+        private static final int SUCCESSES = 0;
+        private static final int FAILURES = 1;
+        private static final int REJECTIONS = 2;
+        private static final int TIMEOUTS = 3;
+        private static final int COUNTERS = 4;
+        // a changed bucket packed with its increase
+        private static final int BUCKET_SHIFT = 48;
+        private static final long INCREASE_MASK = (1L << BUCKET_SHIFT) - 1;
+
+        private final int capacity;
+        private final long[] counters;
+        private final long[] times;
+        private final long[][] increases;
+        private final int[] increaseCounts;
+        // the cumulative latency counts at the newest sample
+        private final long[] latencies = new long[CircuitBreakerMetrics.latencyBuckets()];
+        private int newest = -1;
+        private int size;
+        private long lastTick;
+
+        RollingWindow(int capacity) {
+            this.capacity = capacity;
+            counters = new long[capacity * COUNTERS];
+            times = new long[capacity];
+            increases = new long[capacity][];
+            increaseCounts = new int[capacity];
+        }
+
+        void sample(long now, CircuitBreakerMetrics metrics, long tick) {
+            newest = (newest + 1) % capacity;
+            size = Math.min(size + 1, capacity);
+            lastTick = tick;
+            times[newest] = now;
+            int at = newest * COUNTERS;
+            counters[at + SUCCESSES] = metrics.getSuccessfulCalls();
+            counters[at + FAILURES] = metrics.getFailedCalls();
+            counters[at + REJECTIONS] = metrics.getRejectedCalls();
+            counters[at + TIMEOUTS] = metrics.getTimeouts();
+            long[] changed = increases[newest];
+            int count = 0;
+            for (int bucket = 0; bucket < latencies.length; bucket++) {
+                long latency = metrics.getLatencyCount(bucket);
+                if (latency != latencies[bucket]) {
+                    if (changed == null || count == changed.length) {
+                        changed = Arrays.copyOf(changed == null ? new long[0] : changed, Math.max(4, count * 2));
+                        increases[newest] = changed;
+                    }
+                    changed[count++] = (long) bucket << BUCKET_SHIFT | (latency - latencies[bucket]) & INCREASE_MASK;
+                    latencies[bucket] = latency;
+                }
+            }
+            increaseCounts[newest] = count;
+        }
+
+        /**
+         * @param histogram a histogram of zeros, used while computing the percentiles and left as it was given
+         */
+        void appendStats(StringBuilder json, long[] histogram) {
+            int oldest = (newest - size + 1 + capacity) % capacity;
+            double seconds = (times[newest] - times[oldest]) / 1e9;
+            appendRate(json, "successRate", oldest, SUCCESSES, seconds);
+            appendRate(json, "failureRate", oldest, FAILURES, seconds);
+            appendRate(json, "rejectionRate", oldest, REJECTIONS, seconds);
+            appendRate(json, "timeoutRate", oldest, TIMEOUTS, seconds);
+            long total = 0;
+            for (int sample = (oldest + 1) % capacity, i = 1; i < size; sample = (sample + 1) % capacity, i++) {
+                for (int j = 0; j < increaseCounts[sample]; j++) {
+                    long increase = increases[sample][j] & INCREASE_MASK;
+                    histogram[(int) (increases[sample][j] >>> BUCKET_SHIFT)] += increase;
+                    total += increase;
+                }
+            }
+            appendPercentiles(json, histogram, total);
+            Arrays.fill(histogram, 0);
+        }
+
+        private void appendRate(StringBuilder json, String field, int oldest, int counter, double seconds) {
+            long delta = counters[newest * COUNTERS + counter] - counters[oldest * COUNTERS + counter];
+            double rate = seconds > 0 ? delta / seconds : 0;
+            json.append(",\"").append(field).append("\":").append(String.format(Locale.ROOT, "%.2f", rate));
+        }
+
+        private static void appendPercentiles(StringBuilder json, long[] histogram, long total) {
+            double[] percentiles = {50, 90, 99};
+            String[] fields = {"latencyP50Millis", "latencyP90Millis", "latencyP99Millis"};
+            int next = 0;
+            long seen = 0;
+            for (int i = 0; i < histogram.length && next < percentiles.length && total > 0; i++) {
+                seen += histogram[i];
+                while (next < percentiles.length && seen >= Math.max(1, Math.ceil(percentiles[next] / 100 * total))) {
+                    long micros = CircuitBreakerMetrics.latencyUpperBoundMicros(i);
+                    json.append(",\"").append(fields[next++]).append("\":")
+                            .append(String.format(Locale.ROOT, "%.3f", micros / 1000.0));
+                }
+            }
+            while (next < percentiles.length) {
+                json.append(",\"").append(fields[next++]).append("\":0");
+            }
+        }
+    }
+}
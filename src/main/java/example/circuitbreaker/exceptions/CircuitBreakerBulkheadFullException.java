@@ -0,0 +1,11 @@
+package example.circuitbreaker.exceptions;
+
+/**
+ * Thrown without making the invocation when the bulkhead of the breaker has no free thread nor queue slot left. The
+ * invocation is rejected as by an open circuit, and not counted as a failure.
+ */
+public class CircuitBreakerBulkheadFullException extends CircuitBreakerOpenException {
+    public CircuitBreakerBulkheadFullException(String message) {
+        super(message);
+    }
+}
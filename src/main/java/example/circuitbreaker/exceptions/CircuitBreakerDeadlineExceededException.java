@@ -0,0 +1,11 @@
+package example.circuitbreaker.exceptions;
+
+/**
+ * Thrown without making the invocation when the deadline of the caller leaves less than the floor of the invoker.
+ * The invocation is not counted as a failure of the breaker.
+ */
+public class CircuitBreakerDeadlineExceededException extends CircuitBreakerTimeoutException {
+    public CircuitBreakerDeadlineExceededException(String message) {
+        super(message);
+    }
+}
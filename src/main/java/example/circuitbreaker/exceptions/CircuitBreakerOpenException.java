@@ -5,4 +5,8 @@ public class CircuitBreakerOpenException extends CircuitBreakerException {
     public CircuitBreakerOpenException() {
         super("Circuit Breaker is open. Execution is not allowed.");
     }
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
 }
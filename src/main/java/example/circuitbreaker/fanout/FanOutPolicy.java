@@ -0,0 +1,54 @@
+package example.circuitbreaker.fanout;
+
+/**
+ * Decides when a {@link FanOutScope} has what it needs, so that its unfinished subtasks are cancelled.
+ */
+public final class FanOutPolicy {
+
+    private static final FanOutPolicy ALL_SUCCEED = new FanOutPolicy(0);
+
+    // 0 when every subtask must succeed
+    private final int quorum;
+
+    private FanOutPolicy(int quorum) {
+        this.quorum = quorum;
+    }
+
+    /**
+     * Every subtask must succeed: the scope shuts down on the first failure.
+     */
+    public static FanOutPolicy allSucceed() {
+        return ALL_SUCCEED;
+    }
+
+    /**
+     * The given number of subtasks must succeed: the scope shuts down once they did, or once too many failed for
+     * the others to reach the quorum.
+     *
+     * @param successes the number of successful subtasks needed
+     */
+    public static FanOutPolicy quorum(int successes) {
+        if (successes < 1) {
+            throw new IllegalArgumentException("Quorum must be positive");
+        }
+        return new FanOutPolicy(successes);
+    }
+
+    // whether enough subtasks succeeded; the number of forked subtasks is final once joined
+    boolean isSatisfied(int successes, int forked, boolean joined) {
+        return quorum == 0 ? joined && successes == forked : successes >= quorum;
+    }
+
+    // whether the policy can no longer be satisfied
+    boolean isDefeated(int failures, int forked, boolean joined) {
+        if (quorum == 0) {
+            return failures > 0;
+        }
+        return joined && forked - failures < quorum;
+    }
+
+    @Override
+    public String toString() {
+        return quorum == 0 ? "FanOutPolicy[allSucceed]" : "FanOutPolicy[quorum=" + quorum + "]";
+    }
+}
@@ -0,0 +1,249 @@
+package example.circuitbreaker.fanout;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitBreakerListener;
+import example.circuitbreaker.Deadline;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Forks subtasks that each run through the same {@link CircuitBreaker}, and joins them under one
+ * {@link FanOutPolicy}, in the manner of a {@code StructuredTaskScope}:
+ *
+ * <pre>{@code
+ * try (FanOutScope<Quote> scope = FanOutScope.open(breaker, executor, FanOutPolicy.quorum(3))) {
+ *     for (QuoteService service : services) {
+ *         scope.fork(() -> service.quote(request));
+ *     }
+ *     List<Outcome<Quote>> quotes = scope.join();
+ * }
+ * }</pre>
+ * <p>
+ * The scope shuts down once the policy is satisfied or can no longer be, and as soon as the circuit opens: a
+ * subtask rejected by the open circuit, or a transition to Open of a {@link DefaultCircuitBreaker}. Shutting down
+ * cancels the unfinished subtasks, interrupting their threads, which the breaker neither counts as failures nor
+ * waits for. Each subtask runs within the {@link Deadline} of the thread opening the scope.
+ * <p>
+ * The scope is owned by the thread opening it, which forks, joins and closes it. Any executor can run the subtasks,
+ * e.g. a virtual-thread-per-task executor on a JDK providing one.
+ *
+ * @param <T> the result type of the subtasks
+ */
+public final class FanOutScope<T> implements AutoCloseable {
+
+    private final CircuitBreaker breaker;
+    private final ExecutorService executor;
+    private final FanOutPolicy policy;
+    private final Deadline deadline;
+    private final CircuitBreakerListener openListener;
+
+    // guarded by this
+    private final List<Subtask<T>> subtasks = new ArrayList<>();
+    private int successes;
+    private int failures;
+    private int finished;
+    private boolean joined;
+    private boolean shutdown;
+
+    private FanOutScope(CircuitBreaker breaker, ExecutorService executor, FanOutPolicy policy) {
+        this.breaker = breaker;
+        this.executor = executor;
+        this.policy = policy;
+        this.deadline = Deadline.current();
+        this.openListener = breaker instanceof DefaultCircuitBreaker ? new OpenListener() : null;
+        if (openListener != null) {
+            ((DefaultCircuitBreaker) breaker).addEventListener(openListener);
+        }
+    }
+
+    /**
+     * @param breaker  the CircuitBreaker each subtask runs through
+     * @param executor the ExecutorService running the subtasks
+     * @param policy   decides when the unfinished subtasks are cancelled
+     * @param <T>      the result type of the subtasks
+     * @return a new scope, to be closed by the calling thread
+     */
+    public static <T> FanOutScope<T> open(CircuitBreaker breaker, ExecutorService executor, FanOutPolicy policy) {
+        if (breaker == null || executor == null || policy == null) {
+            throw new IllegalArgumentException("Breaker, executor and policy must not be null");
+        }
+        return new FanOutScope<>(breaker, executor, policy);
+    }
+
+    /**
+     * Starts a subtask executing the given function through the breaker. A subtask forked after the scope shut down
+     * is not started, and its outcome is a {@link CancellationException}.
+     *
+     * @param func the function executed through the breaker
+     * @return the subtask, whose outcome is known once it finished or the scope shut down
+     * @throws IllegalStateException      if the scope was already joined
+     * @throws RejectedExecutionException if the executor rejects the subtask, which then failed with this exception
+     */
+    public synchronized Subtask<T> fork(Supplier<T> func) {
+        Objects.requireNonNull(func);
+        if (joined) {
+            throw new IllegalStateException("Scope already joined");
+        }
+        Subtask<T> subtask = new Subtask<>();
+        subtasks.add(subtask);
+        if (shutdown) {
+            subtask.cancel();
+        } else {
+            try {
+                subtask.future = executor.submit(() -> run(subtask, func));
+            } catch (RejectedExecutionException e) {
+                // a subtask that never runs is settled here, or the scope would wait for it forever
+                finish(subtask, Outcome.failure(e));
+                throw e;
+            }
+        }
+        return subtask;
+    }
+
+    private void run(Subtask<T> subtask, Supplier<T> func) {
+        Outcome<T> outcome;
+        try (Deadline.Scope ignored = deadline == null ? null : deadline.attach()) {
+            outcome = Outcome.success(breaker.execute(func));
+        } catch (RuntimeException | Error e) {
+            // an error settles the subtask as well, or the scope would wait for it forever
+            outcome = Outcome.failure(e);
+        }
+        finish(subtask, outcome);
+    }
+
+    private synchronized void finish(Subtask<T> subtask, Outcome<T> outcome) {
+        if (!subtask.outcome.compareAndSet(null, outcome)) {
+            return; // cancelled meanwhile
+        }
+        finished++;
+        if (outcome.isSuccess()) {
+            successes++;
+        } else {
+            failures++;
+        }
+        if (outcome.getFailure() instanceof CircuitBreakerOpenException) {
+            shutdown();
+        } else {
+            evaluate();
+        }
+    }
+
+    // guarded by this
+    private void evaluate() {
+        int forked = subtasks.size();
+        if (policy.isSatisfied(successes, forked, joined) || policy.isDefeated(failures, forked, joined)
+                || (joined && finished == forked)) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Cancels the unfinished subtasks and wakes up the joining thread. Forking is still allowed, but the forked
+     * subtasks are not started.
+     */
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        for (Subtask<T> subtask : subtasks) {
+            if (subtask.cancel() && subtask.future != null) {
+                subtask.future.cancel(true);
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Waits until the policy is satisfied or defeated, the circuit opens, or every subtask finished.
+     *
+     * @return the outcome of every subtask, in the order they were forked, a cancelled subtask having failed with a
+     * {@link CancellationException}
+     * @throws InterruptedException if the thread is interrupted while waiting, the scope is then shut down
+     */
+    public synchronized List<Outcome<T>> join() throws InterruptedException {
+        joined = true;
+        evaluate();
+        try {
+            while (!shutdown) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            shutdown();
+            throw e;
+        }
+        List<Outcome<T>> outcomes = new ArrayList<>(subtasks.size());
+        for (Subtask<T> subtask : subtasks) {
+            outcomes.add(subtask.outcome());
+        }
+        return outcomes;
+    }
+
+    /**
+     * @return whether the policy was satisfied by the subtasks that succeeded
+     */
+    public synchronized boolean isSatisfied() {
+        return policy.isSatisfied(successes, subtasks.size(), joined);
+    }
+
+    /**
+     * Shuts the scope down, cancelling the unfinished subtasks, and stops observing the breaker.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        if (openListener != null) {
+            ((DefaultCircuitBreaker) breaker).removeEventListener(openListener);
+        }
+    }
+
+    /**
+     * A subtask of the scope.
+     *
+     * @param <T> the result type of the subtask
+     */
+    public static final class Subtask<T> {
+        private final AtomicReference<Outcome<T>> outcome = new AtomicReference<>();
+        private Future<?> future; // guarded by the scope
+
+        private Subtask() {
+        }
+
+        /**
+         * @return the outcome of the subtask, or null while it is running
+         */
+        public Outcome<T> outcome() {
+            return outcome.get();
+        }
+
+        private boolean cancel() {
+            return outcome.compareAndSet(null, Outcome.failure(new CancellationException("Fan-out shut down")));
+        }
+    }
+
+    private final class OpenListener implements CircuitBreakerListener {
+        @Override
+        public void onCircuitOpened(CircuitBreaker breaker) {
+            shutdown();
+        }
+
+        @Override
+        public void onCircuitClosed(CircuitBreaker breaker) {
+        }
+
+        @Override
+        public void onCircuitHalfOpened(CircuitBreaker breaker) {
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package example.circuitbreaker.flow;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A {@link Flow.Processor} that calls an asynchronous function for each element through a {@link CircuitBreaker}
+ * and publishes the {@link Outcome} of each call, in completion order.
+ * <p>
+ * At most {@code maxConcurrency} elements are requested from upstream and not yet delivered downstream, so the
+ * processor propagates the demand of its subscriber upstream. When the breaker rejects an element, the element is
+ * held back and upstream is no longer requested until a retry, every {@code retryInterval}, is admitted again:
+ * an open circuit pauses the stream instead of failing its elements one by one.
+ * <p>
+ * The processor supports a single subscriber, the stream completes once upstream has completed and every admitted
+ * call has been delivered.
+ *
+ * @param <T> the type of the upstream elements
+ * @param <R> the result type of the asynchronous function
+ */
+public class CircuitBreakerProcessor<T, R> implements Flow.Processor<T, Outcome<R>> {
+
+    private final CircuitBreaker breaker;
+    private final Function<? super T, ? extends CompletableFuture<R>> func;
+    private final int maxConcurrency;
+    private final ScheduledExecutorService scheduler;
+    private final Duration retryInterval;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super Outcome<R>>> downstream = new AtomicReference<>();
+    private final Queue<T> received = new ConcurrentLinkedQueue<>();
+    private final Queue<Outcome<R>> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile boolean cancelled;
+    private volatile boolean retryDue;
+    private volatile Throwable invalidRequest;
+
+    // only accessed by the thread running the drain loop
+    private long outstanding; // requested from upstream but not delivered downstream yet
+    private T rejected;
+    private boolean paused;
+    private boolean terminated;
+
+    /**
+     * Constructs a new instance of CircuitBreakerProcessor.
+     *
+     * @param breaker        the CircuitBreaker guarding each call
+     * @param func           the asynchronous function called for each element
+     * @param maxConcurrency the maximum number of elements requested from upstream and not yet delivered downstream
+     * @param scheduler      the ScheduledExecutorService used to retry a rejected element
+     * @param retryInterval  the time to wait before retrying a rejected element
+     */
+    public CircuitBreakerProcessor(CircuitBreaker breaker, Function<? super T, ? extends CompletableFuture<R>> func,
+                                   int maxConcurrency, ScheduledExecutorService scheduler, Duration retryInterval) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Max concurrency must be positive");
+        }
+        this.breaker = Objects.requireNonNull(breaker);
+        this.func = Objects.requireNonNull(func);
+        this.maxConcurrency = maxConcurrency;
+        this.scheduler = Objects.requireNonNull(scheduler);
+        this.retryInterval = Objects.requireNonNull(retryInterval);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Outcome<R>> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("CircuitBreakerProcessor supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new DownstreamSubscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        received.offer(Objects.requireNonNull(item));
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = Objects.requireNonNull(throwable);
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    // serializes every state change and signal, whichever thread triggers it
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (cancelled) {
+                Throwable error = invalidRequest;
+                if (error != null && !terminated) {
+                    terminated = true;
+                    downstream.get().onError(error);
+                }
+                received.clear();
+                completed.clear();
+                rejected = null;
+            } else {
+                Flow.Subscriber<? super Outcome<R>> subscriber = downstream.get();
+                if (subscriber != null) {
+                    emit(subscriber);
+                }
+                admit();
+                if (subscriber != null && !terminated && isDrained()) {
+                    terminated = true;
+                    Throwable error = upstreamError;
+                    if (error != null) {
+                        subscriber.onError(error);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                }
+                requestUpstream(subscriber);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(Flow.Subscriber<? super Outcome<R>> subscriber) {
+        long requested = demand.get();
+        long emitted = 0;
+        Outcome<R> outcome;
+        while (emitted != requested && (outcome = completed.poll()) != null) {
+            subscriber.onNext(outcome);
+            emitted++;
+            outstanding--;
+        }
+        if (emitted > 0 && requested != Long.MAX_VALUE) {
+            demand.addAndGet(-emitted);
+        }
+    }
+
+    private void admit() {
+        if (retryDue) {
+            retryDue = false;
+            paused = false;
+        }
+        while (!paused) {
+            T item = rejected != null ? rejected : received.poll();
+            if (item == null) {
+                return;
+            }
+            rejected = null;
+            if (!tryAdmit(item)) {
+                rejected = item;
+                paused = true;
+                scheduler.schedule(this::retry, retryInterval.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private boolean tryAdmit(T item) {
+        CompletableFuture<R> future;
+        try {
+            future = breaker.executeAsync(() -> func.apply(item));
+        } catch (CircuitBreakerOpenException e) {
+            return false;
+        } catch (RuntimeException e) {
+            completed.offer(Outcome.failure(e));
+            return true;
+        }
+
+        inFlight.incrementAndGet();
+        future.whenComplete((value, throwable) -> {
+            completed.offer(throwable == null ? Outcome.success(value) : Outcome.failure(unwrap(throwable)));
+            inFlight.decrementAndGet();
+            drain();
+        });
+        return true;
+    }
+
+    private void retry() {
+        retryDue = true;
+        drain();
+    }
+
+    private boolean isDrained() {
+        return upstreamDone && rejected == null && received.isEmpty() && inFlight.get() == 0 && completed.isEmpty();
+    }
+
+    // upstream is not requested while paused, elements already requested are buffered within maxConcurrency
+    private void requestUpstream(Flow.Subscriber<? super Outcome<R>> subscriber) {
+        Flow.Subscription subscription = upstream.get();
+        if (subscriber == null || subscription == null || upstreamDone || paused) {
+            return;
+        }
+        long n = maxConcurrency - outstanding;
+        if (n > 0) {
+            outstanding += n;
+            subscription.request(n);
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        return throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+    }
+
+    private final class DownstreamSubscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested elements must be positive");
+                cancel();
+                return;
+            }
+            demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            Flow.Subscription subscription = upstream.get();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            drain();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package example.circuitbreaker.health;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitBreakerListener;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers whether a service is healthy from the circuits of the breakers guarding its dependencies:
+ *
+ * <pre>{@code
+ * HealthAggregator health = HealthAggregator.builder()
+ *         .critical(database)
+ *         .weighted(recommendations, 1)
+ *         .weighted(reviews, 1)
+ *         .downBelow(0.5)
+ *         .build();
+ * boolean ready = health.getStatus() != HealthStatus.DOWN;
+ * }</pre>
+ * <p>
+ * A dependency is unavailable while its circuit is open, forced open or half-open. The service is
+ * {@link HealthStatus#DOWN} while a critical dependency is unavailable, or while the available share of the weights
+ * of the other dependencies is below the {@code downBelow} threshold, and {@link HealthStatus#DEGRADED} while any of
+ * them is unavailable.
+ * <p>
+ * The aggregate is updated on the transitions of the breakers rather than polled, and kept in a single word, so that
+ * reading it costs the same whatever the number of dependencies.
+ */
+public final class HealthAggregator implements AutoCloseable {
+
+    private static final long CRITICAL_UNIT = 1L << 32;
+    private static final long WEIGHT_MASK = CRITICAL_UNIT - 1;
+
+    private final List<Member> members;
+    private final long totalWeight;
+    private final double downBelow;
+    // the number of unavailable critical dependencies in the high half, the unavailable weight in the low half
+    private final AtomicLong aggregate = new AtomicLong();
+
+    private HealthAggregator(Builder builder) {
+        List<Member> created = new ArrayList<>(builder.units.size());
+        builder.units.forEach((breaker, unit) -> created.add(new Member(breaker, unit)));
+        this.members = List.copyOf(created);
+        this.totalWeight = builder.totalWeight;
+        this.downBelow = builder.downBelow;
+        for (Member member : members) {
+            member.breaker.addEventListener(member);
+            member.refresh();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public HealthStatus getStatus() {
+        long current = aggregate.get();
+        if (current >>> 32 > 0 || availability(current & WEIGHT_MASK) < downBelow) {
+            return HealthStatus.DOWN;
+        }
+        return (current & WEIGHT_MASK) > 0 ? HealthStatus.DEGRADED : HealthStatus.UP;
+    }
+
+    /**
+     * @return the share of the weights of the non-critical dependencies that are available, 1 without any of them
+     */
+    public double getAvailability() {
+        return availability(aggregate.get() & WEIGHT_MASK);
+    }
+
+    private double availability(long unavailableWeight) {
+        return totalWeight == 0 ? 1.0 : (double) (totalWeight - unavailableWeight) / totalWeight;
+    }
+
+    /**
+     * @return the number of critical dependencies that are unavailable
+     */
+    public int getUnavailableCritical() {
+        return (int) (aggregate.get() >>> 32);
+    }
+
+    /**
+     * Stops observing the breakers.
+     */
+    @Override
+    public void close() {
+        for (Member member : members) {
+            member.breaker.removeEventListener(member);
+        }
+    }
+
+    private final class Member implements CircuitBreakerListener {
+        private final DefaultCircuitBreaker breaker;
+        // the share of the aggregate of this dependency while it is unavailable
+        private final long unit;
+        private boolean available = true; // guarded by this
+
+        private Member(DefaultCircuitBreaker breaker, long unit) {
+            this.breaker = breaker;
+            this.unit = unit;
+        }
+
+        // reads the state rather than trusting the event, so that events delivered out of order settle on the last
+        // state: the last of them to take the lock reads it
+        private synchronized void refresh() {
+            CircuitState state = breaker.getState();
+            boolean nowAvailable = state == CircuitState.CLOSED || state == CircuitState.DISABLED;
+            if (nowAvailable != available) {
+                available = nowAvailable;
+                aggregate.addAndGet(nowAvailable ? -unit : unit);
+            }
+        }
+
+        @Override
+        public void onCircuitClosed(CircuitBreaker breaker) {
+            refresh();
+        }
+
+        @Override
+        public void onCircuitOpened(CircuitBreaker breaker) {
+            refresh();
+        }
+
+        @Override
+        public void onCircuitHalfOpened(CircuitBreaker breaker) {
+            refresh();
+        }
+
+        @Override
+        public void onCircuitDisabled(CircuitBreaker breaker) {
+            refresh();
+        }
+    }
+
+    public static final class Builder {
+        private final Map<DefaultCircuitBreaker, Long> units = new LinkedHashMap<>();
+        private long totalWeight;
+        private double downBelow;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a dependency taking the service down while it is unavailable.
+         */
+        public Builder critical(DefaultCircuitBreaker breaker) {
+            return add(breaker, CRITICAL_UNIT);
+        }
+
+        /**
+         * Adds a dependency degrading the service while it is unavailable.
+         *
+         * @param weight the weight of the dependency in the availability, must be positive
+         */
+        public Builder weighted(DefaultCircuitBreaker breaker, int weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight must be positive");
+            }
+            if (totalWeight + weight > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Total weight must not exceed " + Integer.MAX_VALUE);
+            }
+            add(breaker, weight);
+            totalWeight += weight;
+            return this;
+        }
+
+        private Builder add(DefaultCircuitBreaker breaker, long unit) {
+            if (breaker == null) {
+                throw new IllegalArgumentException("Breaker must not be null");
+            }
+            if (units.putIfAbsent(breaker, unit) != null) {
+                throw new IllegalArgumentException("Breaker " + breaker.getName() + " is already a member");
+            }
+            return this;
+        }
+
+        /**
+         * Takes the service down while the available share of the weights is below the given threshold, 0 by default
+         * so that only the critical dependencies take it down.
+         *
+         * @param availability the threshold, between 0 and 1
+         */
+        public Builder downBelow(double availability) {
+            if (!(availability >= 0 && availability <= 1)) {
+                throw new IllegalArgumentException("Availability must be between 0 and 1");
+            }
+            this.downBelow = availability;
+            return this;
+        }
+
+        /**
+         * @return an aggregator observing the breakers until closed
+         */
+        public HealthAggregator build() {
+            return new HealthAggregator(this);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package example.circuitbreaker.health;
+
+/**
+ * The aggregated health of the dependencies covered by a {@link HealthAggregator}.
+ */
+public enum HealthStatus {
+    /**
+     * Every dependency is available.
+     */
+    UP,
+    /**
+     * Some non-critical dependencies are unavailable, but not enough of them to take the service down.
+     */
+    DEGRADED,
+    /**
+     * A critical dependency is unavailable, or too few of the weighted ones are available.
+     */
+    DOWN
+}
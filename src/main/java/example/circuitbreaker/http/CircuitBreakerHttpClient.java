@@ -0,0 +1,178 @@
+package example.circuitbreaker.http;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.FailureClassifier;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+/**
+ * Sends the requests of an {@link HttpClient} through a breaker per host, taken from a {@link CircuitBreakerRegistry}
+ * and created on first use:
+ *
+ * <pre>{@code
+ * CircuitBreakerHttpClient client = new CircuitBreakerHttpClient(HttpClient.newHttpClient(), registry, scheduler,
+ *         config);
+ * client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+ *         .thenAccept(response -> ...);
+ * }</pre>
+ * <p>
+ * A breaker is named after the host and port of the requests, e.g. {@code api.example.com:8443}. A response with a
+ * 5xx or 429 status is a failure of the breaker, but is still returned to the caller rather than thrown. When such a
+ * response carries a {@code Retry-After}, the circuit opened by it stays open at least that long, up to a maximum of
+ * 5 minutes by default, so that a dependency cannot keep the circuit open for days. An exchange still
+ * in flight when the breaker times out is cancelled, which the {@link HttpClient} of JDK 16 and later turns into
+ * aborting the exchange. A rejection of an open circuit fails the returned future.
+ * <p>
+ * A breaker created elsewhere under the same name is used as is, and only counts statuses as failures if it was
+ * created with the {@link #statusClassifier()}.
+ */
+public final class CircuitBreakerHttpClient {
+
+    private static final FailureClassifier STATUS_CLASSIFIER = FailureClassifier.builder()
+            .recordResult(result -> result instanceof HttpResponse
+                    && isFailureStatus(((HttpResponse<?>) result).statusCode()))
+            .build();
+
+    private static final Duration DEFAULT_MAX_RETRY_AFTER = Duration.ofMinutes(5);
+
+    private final HttpClient client;
+    private final CircuitBreakerRegistry registry;
+    private final Function<String, DefaultCircuitBreaker> factory;
+    private final Duration maxRetryAfter;
+
+    /**
+     * @param client    the client sending the requests
+     * @param registry  the registry keeping the breaker of each host
+     * @param scheduler the ScheduledExecutorService of the breakers created for new hosts
+     * @param config    the config of the breakers created for new hosts
+     */
+    public CircuitBreakerHttpClient(HttpClient client, CircuitBreakerRegistry registry,
+                                    ScheduledExecutorService scheduler, CircuitBreakerConfig config) {
+        this(client, registry, scheduler, config, DEFAULT_MAX_RETRY_AFTER);
+    }
+
+    /**
+     * @param client        the client sending the requests
+     * @param registry      the registry keeping the breaker of each host
+     * @param scheduler     the ScheduledExecutorService of the breakers created for new hosts
+     * @param config        the config of the breakers created for new hosts
+     * @param maxRetryAfter the longest a {@code Retry-After} keeps a circuit open, longer ones being capped to it
+     */
+    public CircuitBreakerHttpClient(HttpClient client, CircuitBreakerRegistry registry,
+                                    ScheduledExecutorService scheduler, CircuitBreakerConfig config,
+                                    Duration maxRetryAfter) {
+        if (client == null || registry == null || scheduler == null || config == null) {
+            throw new IllegalArgumentException("Client, registry, scheduler and config must not be null");
+        }
+        if (maxRetryAfter == null || maxRetryAfter.isNegative()) {
+            throw new IllegalArgumentException("Max retry after must not be negative");
+        }
+        this.client = client;
+        this.registry = registry;
+        this.factory = name -> new DefaultCircuitBreaker(name, scheduler, config, STATUS_CLASSIFIER);
+        this.maxRetryAfter = maxRetryAfter;
+    }
+
+    /**
+     * @return a classifier counting the exceptions, and the responses with a 5xx or 429 status, as failures
+     */
+    public static FailureClassifier statusClassifier() {
+        return STATUS_CLASSIFIER;
+    }
+
+    /**
+     * Sends the request through the breaker of its host, like {@link HttpClient#sendAsync}.
+     *
+     * @return a future of the response, failing on an exception of the exchange or of the breaker
+     */
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(responseBodyHandler);
+        DefaultCircuitBreaker breaker = breakerFor(request.uri());
+        try {
+            return breaker.executeAsync(() -> exchange(breaker, request, responseBodyHandler));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> exchange(DefaultCircuitBreaker breaker, HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> responseBodyHandler) {
+        CompletableFuture<HttpResponse<T>> exchange = client.sendAsync(request, responseBodyHandler);
+        // the hint is recorded before the breaker records the response, so that the opening it causes applies it
+        CompletableFuture<HttpResponse<T>> response = exchange.thenApply(received -> {
+            if (isFailureStatus(received.statusCode())) {
+                retryAfter(received)
+                        .map(retryAfter -> retryAfter.compareTo(maxRetryAfter) > 0 ? maxRetryAfter : retryAfter)
+                        .ifPresent(breaker::deferReset);
+            }
+            return received;
+        });
+        // the breaker cancels the future it is given on the timeout, which is not the exchange's own
+        response.whenComplete((received, failure) -> {
+            if (failure instanceof CancellationException) {
+                exchange.cancel(true);
+            }
+        });
+        return response;
+    }
+
+    /**
+     * @return the breaker of the host of the given URI, created if needed
+     */
+    public DefaultCircuitBreaker breakerFor(URI uri) {
+        String host = Objects.requireNonNull(uri).getHost();
+        if (host == null) {
+            throw new IllegalArgumentException("No host in " + uri);
+        }
+        String name = host.toLowerCase(Locale.ROOT) + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+        return registry.computeIfAbsent(name, factory);
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+
+    private static boolean isFailureStatus(int status) {
+        return status >= 500 || status == 429;
+    }
+
+    // delay-seconds or HTTP-date, see RFC 9110
+    static Optional<Duration> retryAfter(HttpResponse<?> response) {
+        Optional<String> header = response.headers().firstValue("Retry-After");
+        if (header.isEmpty()) {
+            return Optional.empty();
+        }
+        String value = header.get().trim();
+        try {
+            return Optional.of(Duration.ofSeconds(Math.max(0, Long.parseLong(value))));
+        } catch (NumberFormatException e) {
+            // not delay-seconds
+        }
+        try {
+            Instant date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            Duration delay = Duration.between(Instant.now(), date);
+            return Optional.of(delay.isNegative() ? Duration.ZERO : delay);
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
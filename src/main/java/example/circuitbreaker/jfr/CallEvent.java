@@ -0,0 +1,30 @@
+package example.circuitbreaker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Records the duration of a call through a circuit breaker. Only the calls lasting longer than the threshold are
+ * committed, 20 ms unless configured otherwise in the recording settings.
+ */
+@Name("example.circuitbreaker.Call")
+@Label("Circuit Breaker Call")
+@Category("Circuit Breaker")
+@Description("A call executed through a circuit breaker")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("20 ms")
+public class CallEvent extends Event {
+
+    @Label("Breaker")
+    String breaker;
+
+    @Label("Succeeded")
+    boolean succeeded;
+}
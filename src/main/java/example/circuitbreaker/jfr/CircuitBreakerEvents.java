@@ -0,0 +1,79 @@
+package example.circuitbreaker.jfr;
+
+import example.circuitbreaker.CircuitState;
+
+import java.time.Duration;
+
+/**
+ * Emits the Java Flight Recorder events of circuit breakers.
+ * <p>
+ * Every event is disabled by default, and each helper checks {@code isEnabled()} or {@code shouldCommit()} before
+ * touching any field, so that an application running without a recording, or with these events disabled, pays no
+ * more than a branch the JIT folds away. Enable them in a recording, e.g.
+ * {@code -XX:StartFlightRecording:settings=profile,+example.circuitbreaker.Call#enabled=true}, or through
+ * {@code jdk.jfr.Recording#enable(String)}.
+ */
+public final class CircuitBreakerEvents {
+
+    private CircuitBreakerEvents() {
+    }
+
+    public static void transition(String breaker, CircuitState from, CircuitState to) {
+        TransitionEvent event = new TransitionEvent();
+        if (event.shouldCommit()) {
+            event.breaker = breaker;
+            event.from = from.name();
+            event.to = to.name();
+            event.commit();
+        }
+    }
+
+    public static void rejection(String breaker, CircuitState state) {
+        RejectionEvent event = new RejectionEvent();
+        if (event.shouldCommit()) {
+            event.breaker = breaker;
+            event.state = state.name();
+            event.commit();
+        }
+    }
+
+    public static void timeout(String breaker, Duration timeout) {
+        TimeoutEvent event = new TimeoutEvent();
+        if (event.shouldCommit()) {
+            event.breaker = breaker;
+            event.timeout = timeout.toMillis();
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a call.
+     *
+     * @return the started event, or {@code null} when call events are disabled so that callers capture nothing
+     */
+    public static CallEvent beginCall() {
+        CallEvent event = new CallEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends timing a call started by {@link #beginCall()}, the event is committed if the call exceeded the threshold.
+     *
+     * @param event the event returned by {@link #beginCall()}, may be null
+     */
+    public static void endCall(CallEvent event, String breaker, boolean succeeded) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.breaker = breaker;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+}
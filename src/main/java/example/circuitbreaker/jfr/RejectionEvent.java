@@ -0,0 +1,27 @@
+package example.circuitbreaker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a circuit breaker rejects a call because its circuit is open, or its trial request is in progress.
+ */
+@Name("example.circuitbreaker.Rejection")
+@Label("Circuit Breaker Rejection")
+@Category("Circuit Breaker")
+@Description("A call was rejected by an open circuit breaker")
+@Enabled(false)
+@StackTrace(false)
+public class RejectionEvent extends Event {
+
+    @Label("Breaker")
+    String breaker;
+
+    @Label("State")
+    String state;
+}
@@ -0,0 +1,29 @@
+package example.circuitbreaker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorded when a call through a circuit breaker times out.
+ */
+@Name("example.circuitbreaker.Timeout")
+@Label("Circuit Breaker Timeout")
+@Category("Circuit Breaker")
+@Description("A call through a circuit breaker timed out")
+@Enabled(false)
+@StackTrace(false)
+public class TimeoutEvent extends Event {
+
+    @Label("Breaker")
+    String breaker;
+
+    @Label("Timeout")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeout;
+}
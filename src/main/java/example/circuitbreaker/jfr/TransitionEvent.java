@@ -0,0 +1,30 @@
+package example.circuitbreaker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded when a circuit breaker transitions between states.
+ */
+@Name("example.circuitbreaker.Transition")
+@Label("Circuit Breaker Transition")
+@Category("Circuit Breaker")
+@Description("A circuit breaker transitioned between states")
+@Enabled(false)
+@StackTrace(false)
+public class TransitionEvent extends Event {
+
+    @Label("Breaker")
+    String breaker;
+
+    @Label("From")
+    String from;
+
+    @Label("To")
+    String to;
+}
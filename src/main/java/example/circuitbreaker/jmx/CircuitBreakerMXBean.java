@@ -0,0 +1,59 @@
+package example.circuitbreaker.jmx;
+
+/**
+ * Management interface of a circuit breaker: its live state and call statistics, and manual control over the circuit.
+ * Every attribute is read without locking, so polling does not disturb the calls going through the breaker.
+ */
+public interface CircuitBreakerMXBean {
+
+    String getName();
+
+    /**
+     * @return the name of the current {@link example.circuitbreaker.CircuitState}
+     */
+    String getState();
+
+    /**
+     * @return the number of consecutive failures counted while the circuit is closed
+     */
+    int getFailures();
+
+    long getSuccessfulCalls();
+
+    long getFailedCalls();
+
+    long getRejectedCalls();
+
+    long getTimeouts();
+
+    /**
+     * @return the number of calls abandoned on a timeout or an interrupt before they completed
+     */
+    long getAbandonedCalls();
+
+    /**
+     * @return the number of abandoned calls still running, having ignored their cancellation
+     */
+    long getRunningAbandonedCalls();
+
+    double getLatencyP50Millis();
+
+    double getLatencyP95Millis();
+
+    double getLatencyP99Millis();
+
+    /**
+     * Opens the circuit until it is forced closed.
+     */
+    void forceOpen();
+
+    /**
+     * Closes the circuit, resuming normal operation.
+     */
+    void forceClose();
+
+    /**
+     * Lets every call through without recording its outcome, until the circuit is forced closed.
+     */
+    void disable();
+}
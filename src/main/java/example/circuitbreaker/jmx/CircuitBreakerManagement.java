@@ -0,0 +1,144 @@
+package example.circuitbreaker.jmx;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.Hashtable;
+import java.util.Objects;
+
+/**
+ * Exposes a {@link DefaultCircuitBreaker} as a {@link CircuitBreakerMXBean}, registered under
+ * {@code example.circuitbreaker:type=CircuitBreaker,name="<breaker name>"}.
+ */
+public class CircuitBreakerManagement implements CircuitBreakerMXBean {
+
+    private static final String DOMAIN = "example.circuitbreaker";
+
+    private final DefaultCircuitBreaker breaker;
+
+    public CircuitBreakerManagement(DefaultCircuitBreaker breaker) {
+        this.breaker = Objects.requireNonNull(breaker);
+    }
+
+    /**
+     * Registers an MBean for the given breaker.
+     *
+     * @return the name under which the MBean is registered
+     * @throws JMException if an MBean is already registered for a breaker of the same name
+     */
+    public static ObjectName register(MBeanServer server, DefaultCircuitBreaker breaker) throws JMException {
+        ObjectName objectName = objectName(breaker.getName());
+        server.registerMBean(new CircuitBreakerManagement(breaker), objectName);
+        return objectName;
+    }
+
+    /**
+     * Registers an MBean for each breaker of the registry, breakers registered later are not covered.
+     */
+    public static void registerAll(MBeanServer server, CircuitBreakerRegistry registry) throws JMException {
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            register(server, breaker);
+        }
+    }
+
+    /**
+     * Unregisters the MBean of the breaker of the given name, if any.
+     */
+    public static void unregister(MBeanServer server, String breakerName) throws JMException {
+        ObjectName objectName = objectName(breakerName);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public static ObjectName objectName(String breakerName) throws JMException {
+        Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", "CircuitBreaker");
+        properties.put("name", ObjectName.quote(breakerName));
+        return new ObjectName(DOMAIN, properties);
+    }
+
+    @Override
+    public String getName() {
+        return breaker.getName();
+    }
+
+    @Override
+    public String getState() {
+        return breaker.getState().name();
+    }
+
+    @Override
+    public int getFailures() {
+        return breaker.getFailures();
+    }
+
+    @Override
+    public long getSuccessfulCalls() {
+        return breaker.getMetrics().getSuccessfulCalls();
+    }
+
+    @Override
+    public long getFailedCalls() {
+        return breaker.getMetrics().getFailedCalls();
+    }
+
+    @Override
+    public long getRejectedCalls() {
+        return breaker.getMetrics().getRejectedCalls();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return breaker.getMetrics().getTimeouts();
+    }
+
+    @Override
+    public long getAbandonedCalls() {
+        return breaker.getMetrics().getAbandonedCalls();
+    }
+
+    @Override
+    public long getRunningAbandonedCalls() {
+        return breaker.getMetrics().getRunningAbandonedCalls();
+    }
+
+    @Override
+    public double getLatencyP50Millis() {
+        return latencyMillis(50);
+    }
+
+    @Override
+    public double getLatencyP95Millis() {
+        return latencyMillis(95);
+    }
+
+    @Override
+    public double getLatencyP99Millis() {
+        return latencyMillis(99);
+    }
+
+    @Override
+    public void forceOpen() {
+        breaker.forceOpen();
+    }
+
+    @Override
+    public void forceClose() {
+        breaker.forceClose();
+    }
+
+    @Override
+    public void disable() {
+        breaker.disable();
+    }
+
+    private double latencyMillis(double percentile) {
+        Duration latency = breaker.getMetrics().getLatencyPercentile(percentile);
+        return latency.toNanos() / 1_000_000.0;
+    }
+}
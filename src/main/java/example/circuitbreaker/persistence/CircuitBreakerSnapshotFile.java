@@ -0,0 +1,200 @@
+package example.circuitbreaker.persistence;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.CircuitBreakerSnapshot;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the snapshots of the breakers of a {@link CircuitBreakerRegistry} in a compact binary file, so that
+ * breakers resume their state after a restart instead of hammering dependencies already known to be down.
+ * <p>
+ * The file is written and read through memory-mapped I/O. It is first written to a temporary file that then
+ * atomically replaces the previous one, so a crash while saving never leaves a truncated snapshot behind.
+ * <p>
+ * Layout, in big-endian order:
+ * <pre>
+ * header: int magic | short version | int count
+ * entry:  short nameLength | byte[nameLength] name (UTF-8) | byte state | int failures
+ *         | int consecutiveOpenings | long openUntilMillis
+ * </pre>
+ */
+public class CircuitBreakerSnapshotFile {
+
+    private static final int MAGIC = 0x43344A53; // "C4JS"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Short.BYTES + Integer.BYTES;
+    private static final int ENTRY_BYTES = Short.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final CircuitState[] STATES = CircuitState.values();
+
+    private final Path path;
+    private volatile IOException lastSaveFailure;
+
+    public CircuitBreakerSnapshotFile(Path path) {
+        this.path = Objects.requireNonNull(path);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the failure of the last periodic or shutdown save, or {@code null} if it succeeded
+     */
+    public IOException getLastSaveFailure() {
+        return lastSaveFailure;
+    }
+
+    /**
+     * Writes the snapshots of every breaker of the registry.
+     */
+    public void save(CircuitBreakerRegistry registry) throws IOException {
+        Map<String, CircuitBreakerSnapshot> snapshots = new HashMap<>();
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            snapshots.put(breaker.getName(), breaker.snapshot());
+        }
+        write(snapshots);
+    }
+
+    /**
+     * Reads the snapshots of the file and restores the registry from them.
+     *
+     * @see CircuitBreakerRegistry#restore(Map)
+     */
+    public void restore(CircuitBreakerRegistry registry) throws IOException {
+        registry.restore(read());
+    }
+
+    /**
+     * Writes the given snapshots, keyed by breaker name, replacing the previous content of the file.
+     */
+    public void write(Map<String, CircuitBreakerSnapshot> snapshots) throws IOException {
+        byte[][] names = new byte[snapshots.size()][];
+        CircuitBreakerSnapshot[] entries = new CircuitBreakerSnapshot[snapshots.size()];
+        long size = HEADER_BYTES;
+        int i = 0;
+        for (Map.Entry<String, CircuitBreakerSnapshot> entry : snapshots.entrySet()) {
+            names[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            if (names[i].length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("Circuit breaker name is too long: " + entry.getKey());
+            }
+            entries[i] = entry.getValue();
+            size += ENTRY_BYTES + names[i].length;
+            i++;
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putShort(VERSION).putInt(entries.length);
+            for (int j = 0; j < entries.length; j++) {
+                CircuitBreakerSnapshot snapshot = entries[j];
+                buffer.putShort((short) names[j].length).put(names[j])
+                        .put((byte) snapshot.getState().ordinal())
+                        .putInt(snapshot.getFailures())
+                        .putInt(snapshot.getConsecutiveOpenings())
+                        .putLong(snapshot.getOpenUntilMillis());
+            }
+            buffer.force();
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the snapshots of the file, keyed by breaker name.
+     *
+     * @return the snapshots, or an empty map if the file does not exist
+     * @throws IOException if the file cannot be read or is not a snapshot file
+     */
+    public Map<String, CircuitBreakerSnapshot> read() throws IOException {
+        if (!Files.exists(path)) {
+            return new HashMap<>();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a circuit breaker snapshot file: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Not a circuit breaker snapshot file: " + path);
+            }
+            int count = buffer.getInt();
+            if (count < 0 || (long) count * ENTRY_BYTES > size - HEADER_BYTES) {
+                throw new IOException("Corrupted circuit breaker snapshot file: " + path);
+            }
+
+            Map<String, CircuitBreakerSnapshot> snapshots = new HashMap<>((int) (count / 0.75f) + 1);
+            byte[] name = new byte[64];
+            try {
+                for (int i = 0; i < count; i++) {
+                    int nameLength = buffer.getShort();
+                    if (nameLength > name.length) {
+                        name = new byte[nameLength];
+                    }
+                    buffer.get(name, 0, nameLength);
+                    int state = buffer.get();
+                    if (state < 0 || state >= STATES.length) {
+                        throw new IOException("Corrupted circuit breaker snapshot file: " + path);
+                    }
+                    snapshots.put(new String(name, 0, nameLength, StandardCharsets.UTF_8),
+                            new CircuitBreakerSnapshot(STATES[state], buffer.getInt(), buffer.getInt(), buffer.getLong()));
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupted circuit breaker snapshot file: " + path, e);
+            }
+            return snapshots;
+        }
+    }
+
+    /**
+     * Saves the registry periodically. A failed save does not cancel the following ones,
+     * it is reported by {@link #getLastSaveFailure()}.
+     *
+     * @return the handle to cancel the periodic save
+     */
+    public ScheduledFuture<?> saveEvery(CircuitBreakerRegistry registry, ScheduledExecutorService scheduler,
+                                        Duration interval) {
+        Objects.requireNonNull(registry);
+        return scheduler.scheduleWithFixedDelay(() -> saveQuietly(registry), interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Saves the registry when the JVM shuts down.
+     *
+     * @return the registered shutdown hook, so that it can be removed
+     */
+    public Thread saveOnShutdown(CircuitBreakerRegistry registry) {
+        Objects.requireNonNull(registry);
+        Thread hook = new Thread(() -> saveQuietly(registry), "circuit-breaker-snapshot");
+        Runtime.getRuntime().addShutdownHook(hook);
+        return hook;
+    }
+
+    private void saveQuietly(CircuitBreakerRegistry registry) {
+        try {
+            save(registry);
+            lastSaveFailure = null;
+        } catch (IOException e) {
+            lastSaveFailure = e;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package example.circuitbreaker.pipeline;
+
+import example.circuitbreaker.Bulkhead;
+import example.circuitbreaker.Deadline;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Loads values through a cache, a circuit breaker, a bulkhead and retries, assembled once into a single object rather
+ * than nested around each call:
+ *
+ * <pre>{@code
+ * breaker.setBulkhead(bulkhead);
+ * ResiliencePipeline<String, Quote> quotes = ResiliencePipeline.builder(breaker)
+ *         .bulkhead(bulkhead)
+ *         .retry(3, Duration.ofMillis(50))
+ *         .cache(Duration.ofSeconds(10), 10_000)
+ *         .build(quoteService::quote);
+ * Quote quote = quotes.get("ACME");
+ * }</pre>
+ * <p>
+ * A call is a flat sequence: a fresh cached value is returned at once; otherwise the breaker admits the call, which
+ * runs on the bulkhead when there is one, and the attempts of the loader run within that single invocation and its
+ * timeout. The breaker thus records one outcome per call, whatever the number of attempts, and the exceptions it
+ * throws are those of {@link DefaultCircuitBreaker#execute(java.util.function.Supplier)}. A call allocates a single
+ * lambda on top of the breaker's own invocation.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public final class ResiliencePipeline<K, V> {
+
+    private final DefaultCircuitBreaker breaker;
+    private final Function<? super K, ? extends V> loader;
+    private final int maxAttempts;
+    private final long backoffNanos;
+    private final Predicate<? super RuntimeException> retryOn;
+    // null without a cache
+    private final Cache<K, V> cache;
+
+    private ResiliencePipeline(Builder builder, Function<? super K, ? extends V> loader) {
+        this.breaker = builder.breaker;
+        this.loader = loader;
+        this.maxAttempts = builder.maxAttempts;
+        this.backoffNanos = builder.backoffNanos;
+        this.retryOn = builder.retryOn;
+        this.cache = builder.cacheTtlNanos > 0 ? new Cache<>(builder.cacheTtlNanos, builder.cacheMaxEntries) : null;
+    }
+
+    /**
+     * @param breaker the breaker admitting the calls and recording their outcomes
+     */
+    public static Builder builder(DefaultCircuitBreaker breaker) {
+        if (breaker == null) {
+            throw new IllegalArgumentException("Breaker must not be null");
+        }
+        return new Builder(breaker);
+    }
+
+    /**
+     * @param key the key of the value, must not be null when the pipeline has a cache
+     * @return the cached value of the key, or the value loaded through the breaker
+     */
+    public V get(K key) {
+        if (cache != null) {
+            V cached = cache.get(Objects.requireNonNull(key));
+            if (cached != null) {
+                return cached;
+            }
+        }
+        V value = breaker.execute(() -> load(key));
+        if (cache != null && value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    // the attempts, within the invocation admitted by the breaker
+    private V load(K key) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return loader.apply(key);
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryOn.test(e) || !backOff()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // whether the next attempt may start, i.e. the invocation was neither timed out nor cancelled meanwhile
+    private boolean backOff() {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.remainingNanos() <= backoffNanos) {
+            return false;
+        }
+        if (backoffNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(backoffNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Drops the cached value of the key, if any.
+     */
+    public void invalidate(K key) {
+        if (cache != null) {
+            cache.entries.remove(key);
+        }
+    }
+
+    public static final class Builder {
+        private final DefaultCircuitBreaker breaker;
+        private Bulkhead bulkhead;
+        private int maxAttempts = 1;
+        private long backoffNanos;
+        private Predicate<? super RuntimeException> retryOn = e -> true;
+        private long cacheTtlNanos;
+        private int cacheMaxEntries;
+
+        private Builder(DefaultCircuitBreaker breaker) {
+            this.breaker = breaker;
+        }
+
+        /**
+         * Runs the calls on the given bulkhead. The bulkhead isolates every synchronous call of the breaker, which
+         * may be shared, so the pipeline does not set it: it must already be the bulkhead of the breaker, see
+         * {@link DefaultCircuitBreaker#setBulkhead(Bulkhead)}, or the build fails.
+         */
+        public Builder bulkhead(Bulkhead bulkhead) {
+            this.bulkhead = Objects.requireNonNull(bulkhead);
+            return this;
+        }
+
+        /**
+         * Makes up to the given number of attempts per call, pausing for the given backoff between two attempts. No
+         * attempt starts once the invocation timed out, or once too little remains of its deadline for the backoff.
+         */
+        public Builder retry(int maxAttempts, Duration backoff) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("Max attempts must be positive");
+            }
+            if (Objects.requireNonNull(backoff).isNegative()) {
+                throw new IllegalArgumentException("Backoff must not be negative");
+            }
+            this.maxAttempts = maxAttempts;
+            this.backoffNanos = backoff.toNanos();
+            return this;
+        }
+
+        /**
+         * Retries only the exceptions matching the predicate, all of them by default.
+         */
+        public Builder retryOn(Predicate<? super RuntimeException> retryOn) {
+            this.retryOn = Objects.requireNonNull(retryOn);
+            return this;
+        }
+
+        /**
+         * Keeps the loaded values for the given time, up to the given number of them, a full cache dropping the
+         * value expiring first. A null value is not cached.
+         */
+        public Builder cache(Duration ttl, int maxEntries) {
+            if (Objects.requireNonNull(ttl).isNegative() || ttl.isZero()) {
+                throw new IllegalArgumentException("Cache TTL must be positive");
+            }
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("Max entries must be positive");
+            }
+            this.cacheTtlNanos = ttl.toNanos();
+            this.cacheMaxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param loader loads the value of a key
+         */
+        public <K, V> ResiliencePipeline<K, V> build(Function<? super K, ? extends V> loader) {
+            Objects.requireNonNull(loader);
+            if (bulkhead != null && breaker.getBulkhead() != bulkhead) {
+                throw new IllegalArgumentException("Breaker " + breaker.getName() + " does not run its calls on bulkhead "
+                        + bulkhead.getName());
+            }
+            return new ResiliencePipeline<>(this, loader);
+        }
+    }
+
+    /**
+     * A map of the values, and a queue of its entries in the order they were put. With a single TTL, that is also the
+     * order they expire in, so a full cache drops the entry at the head of the queue: the one expiring first, live
+     * or not. An entry replaced or removed in the map stays queued until it reaches the head, where dropping it
+     * removes nothing, so the map never holds more entries than the queue bounds.
+     */
+    private static final class Cache<K, V> {
+        private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+        private final Queue<Entry<K, V>> order = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final long ttlNanos;
+        private final int maxEntries;
+
+        private Cache(long ttlNanos, int maxEntries) {
+            this.ttlNanos = ttlNanos;
+            this.maxEntries = maxEntries;
+        }
+
+        V get(K key) {
+            Entry<K, V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAt >= 0) {
+                entries.remove(key, entry);
+                return null;
+            }
+            return entry.value;
+        }
+
+        void put(K key, V value) {
+            Entry<K, V> entry = new Entry<>(key, value, System.nanoTime() + ttlNanos);
+            entries.put(key, entry);
+            order.add(entry);
+            if (queued.incrementAndGet() > maxEntries) {
+                Entry<K, V> oldest = order.poll();
+                if (oldest != null) {
+                    queued.decrementAndGet();
+                    entries.remove(oldest.key, oldest);
+                }
+            }
+        }
+    }
+
+    private static final class Entry<K, V> {
+        final K key;
+        final V value;
+        final long expiresAt;
+
+        Entry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package example.circuitbreaker.processor;
+
+import example.circuitbreaker.proxy.Guarded;
+import example.circuitbreaker.proxy.Unguarded;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Generates, for each interface annotated with {@link Guarded} or having a {@code @Guarded} method, a class
+ * implementing it by delegating to another implementation through circuit breakers, following the same rules as the
+ * {@link example.circuitbreaker.proxy.CircuitBreakerProxy} but without reflection. For {@code com.acme.Inventory}:
+ *
+ * <pre>{@code
+ * Inventory client = new com.acme.GuardedInventory(httpInventoryClient, registry::get);
+ * }</pre>
+ * <p>
+ * The generated class is named after the interface prefixed with {@code Guarded}, the names of its enclosing types
+ * joined with {@code _} for a nested interface. Its constructor resolves the breakers by name once, and each method
+ * calls its breaker with a lambda calling the delegate, through {@code executeAsInt} and its siblings for the
+ * primitive results they cover, and through {@code executeAsync} for the methods returning a
+ * {@code CompletableFuture} or a {@code CompletionStage}.
+ * <p>
+ * The processor is not part of the library jar: it is packaged with its service registration in the artifact of the
+ * {@code processor} classifier, which a build opts into by putting it on its processor path.
+ */
+@SupportedAnnotationTypes("example.circuitbreaker.proxy.Guarded")
+public class GuardedProcessor extends AbstractProcessor {
+
+    private static final String PREFIX = "Guarded";
+    private static final String CIRCUIT_BREAKER = "example.circuitbreaker.CircuitBreaker";
+    private static final String EXECUTION_EXCEPTION = "example.circuitbreaker.exceptions.CircuitBreakerExecutionException";
+    private static final String COMPLETABLE_FUTURE = "java.util.concurrent.CompletableFuture";
+    private static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+    private static final String COMPLETION_EXCEPTION = "java.util.concurrent.CompletionException";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Set<TypeElement> interfaces = new LinkedHashSet<>();
+        for (Element element : round.getElementsAnnotatedWith(Guarded.class)) {
+            Element type = element.getKind() == ElementKind.METHOD ? element.getEnclosingElement() : element;
+            if (type.getKind() != ElementKind.INTERFACE) {
+                error(element, "@Guarded is only supported on interfaces and their methods");
+            } else if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "A @Guarded interface must not be private");
+            } else {
+                interfaces.add((TypeElement) type);
+            }
+        }
+        for (TypeElement type : interfaces) {
+            try {
+                generate(type);
+            } catch (IOException e) {
+                error(type, "Cannot generate the guarded class: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String simpleName = PREFIX + flatName(type);
+        String qualifiedName = pkg.isUnnamed() ? simpleName : pkg.getQualifiedName() + "." + simpleName;
+        List<ExecutableElement> methods = methods(type);
+        // one field per breaker, in the order of first use
+        Map<String, String> breakerFields = new LinkedHashMap<>();
+        for (ExecutableElement method : methods) {
+            String name = breakerName(type, method);
+            if (name != null && !breakerFields.containsKey(name)) {
+                breakerFields.put(name, "breaker" + breakerFields.size());
+            }
+        }
+
+        Source out = new Source();
+        if (!pkg.isUnnamed()) {
+            out.line("package " + pkg.getQualifiedName() + ";").line("");
+        }
+        String interfaceType = type.asType().toString();
+        String typeParameters = typeParameters(type.getTypeParameters());
+        out.line("@javax.annotation.processing.Generated(\"" + GuardedProcessor.class.getName() + "\")")
+                .line((isPublic(type) ? "public " : "") + "final class " + simpleName + typeParameters
+                        + " implements " + interfaceType + " {")
+                .line("")
+                .line("    private final " + interfaceType + " delegate;");
+        breakerFields.forEach((name, field) ->
+                out.line("    private final " + CIRCUIT_BREAKER + " " + field + "; // " + name));
+        out.line("")
+                .line("    public " + simpleName + "(" + interfaceType + " delegate, java.util.function.Function<String, ? extends "
+                        + CIRCUIT_BREAKER + "> breakers) {")
+                .line("        if (delegate == null || breakers == null) {")
+                .line("            throw new IllegalArgumentException(\"Delegate and breakers must not be null\");")
+                .line("        }")
+                .line("        this.delegate = delegate;");
+        breakerFields.forEach((name, field) ->
+                out.line("        this." + field + " = breaker(breakers, " + literal(name) + ");"));
+        out.line("    }");
+
+        DeclaredType declared = (DeclaredType) type.asType();
+        for (ExecutableElement method : methods) {
+            String name = breakerName(type, method);
+            generateMethod(out, method, (ExecutableType) processingEnv.getTypeUtils().asMemberOf(declared, method),
+                    name == null ? null : breakerFields.get(name));
+        }
+
+        out.line("")
+                .line("    private static " + CIRCUIT_BREAKER + " breaker(java.util.function.Function<String, ? extends "
+                        + CIRCUIT_BREAKER + "> breakers, String name) {")
+                .line("        " + CIRCUIT_BREAKER + " breaker = breakers.apply(name);")
+                .line("        if (breaker == null) {")
+                .line("            throw new IllegalArgumentException(\"No circuit breaker named \" + name);")
+                .line("        }")
+                .line("        return breaker;")
+                .line("    }")
+                .line("")
+                .line("    // the exception thrown by the delegate, its checked exceptions being wrapped in a CompletionException")
+                .line("    private static Throwable cause(" + EXECUTION_EXCEPTION + " failure) {")
+                .line("        Throwable cause = failure.getCause();")
+                .line("        if (cause instanceof " + COMPLETION_EXCEPTION + " && cause.getCause() != null) {")
+                .line("            cause = cause.getCause();")
+                .line("        }")
+                .line("        return cause == null ? failure : cause;")
+                .line("    }")
+                .line("")
+                .line("    private static RuntimeException unchecked(" + EXECUTION_EXCEPTION + " failure, Throwable cause) {")
+                .line("        if (cause instanceof Error) {")
+                .line("            throw (Error) cause;")
+                .line("        }")
+                .line("        return cause instanceof RuntimeException ? (RuntimeException) cause : failure;")
+                .line("    }")
+                .line("}");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void generateMethod(Source out, ExecutableElement method, ExecutableType type, String breaker) {
+        List<String> parameterNames = new ArrayList<>();
+        StringJoiner parameters = new StringJoiner(", ");
+        List<? extends VariableElement> declaredParameters = method.getParameters();
+        for (int i = 0; i < declaredParameters.size(); i++) {
+            String name = declaredParameters.get(i).getSimpleName().toString();
+            parameterNames.add(name);
+            TypeMirror parameterType = type.getParameterTypes().get(i);
+            boolean varArgs = method.isVarArgs() && i == declaredParameters.size() - 1;
+            parameters.add((varArgs ? parameterType.toString().replaceFirst("\\[]$", "...") : parameterType.toString())
+                    + " " + name);
+        }
+        StringJoiner thrown = new StringJoiner(", ", " throws ", "").setEmptyValue("");
+        type.getThrownTypes().forEach(thrownType -> thrown.add(thrownType.toString()));
+        String typeParameters = typeParameters(method.getTypeParameters());
+        TypeMirror returnType = type.getReturnType();
+        // named after no parameter, so that a parameter is never shadowed
+        String failure = unusedName("failure", parameterNames);
+        String cause = unusedName("cause", parameterNames);
+        String call = "this.delegate." + method.getSimpleName() + "(" + String.join(", ", parameterNames) + ")";
+
+        out.line("")
+                .line("    @Override")
+                .line("    public " + (typeParameters.isEmpty() ? "" : typeParameters + " ") + returnType + " "
+                        + method.getSimpleName() + "(" + parameters + ")" + thrown + " {");
+        if (breaker == null) {
+            out.line("        " + (returnType.getKind() == TypeKind.VOID ? "" : "return ") + call + ";");
+        } else if (isFuture(returnType)) {
+            out.line("        try {")
+                    .line("            return this." + breaker + ".executeAsync(() -> {")
+                    .line("                try {")
+                    .line("                    return " + call + ".toCompletableFuture();")
+                    .line("                } catch (Throwable " + failure + ") {")
+                    .line("                    return " + COMPLETABLE_FUTURE + ".failedFuture(" + failure + ");")
+                    .line("                }")
+                    .line("            });")
+                    .line("        } catch (RuntimeException " + failure + ") {")
+                    .line("            return " + COMPLETABLE_FUTURE + ".failedFuture(" + failure + ");")
+                    .line("        }");
+        } else {
+            boolean checked = !type.getThrownTypes().isEmpty();
+            out.line("        try {");
+            if (returnType.getKind() == TypeKind.VOID) {
+                out.line("            this." + breaker + ".execute(() -> {");
+                wrapChecked(out, call + ";", checked, failure);
+                out.line("            });");
+            } else {
+                out.line("            return this." + breaker + "." + execute(returnType) + "(() -> {");
+                wrapChecked(out, "return " + call + ";", checked, failure);
+                out.line("            });");
+            }
+            out.line("        } catch (" + EXECUTION_EXCEPTION + " " + failure + ") {")
+                    .line("            Throwable " + cause + " = cause(" + failure + ");");
+            for (TypeMirror thrownType : type.getThrownTypes()) {
+                if (thrownType.getKind() == TypeKind.DECLARED) {
+                    String erased = processingEnv.getTypeUtils().erasure(thrownType).toString();
+                    out.line("            if (" + cause + " instanceof " + erased + ") {")
+                            .line("                throw (" + erased + ") " + cause + ";")
+                            .line("            }");
+                }
+            }
+            out.line("            throw unchecked(" + failure + ", " + cause + ");")
+                    .line("        }");
+        }
+        out.line("    }");
+    }
+
+    private static void wrapChecked(Source out, String statement, boolean checked, String failure) {
+        if (!checked) {
+            out.line("                " + statement);
+            return;
+        }
+        out.line("                try {")
+                .line("                    " + statement)
+                .line("                } catch (RuntimeException | Error " + failure + ") {")
+                .line("                    throw " + failure + ";")
+                .line("                } catch (Throwable " + failure + ") {")
+                .line("                    throw new " + COMPLETION_EXCEPTION + "(" + failure + ");")
+                .line("                }");
+    }
+
+    // the primitive results covered by the breaker are not boxed
+    private static String execute(TypeMirror returnType) {
+        switch (returnType.getKind()) {
+            case INT:
+                return "executeAsInt";
+            case LONG:
+                return "executeAsLong";
+            case DOUBLE:
+                return "executeAsDouble";
+            case BOOLEAN:
+                return "executeAsBoolean";
+            default:
+                return "execute";
+        }
+    }
+
+    private boolean isFuture(TypeMirror returnType) {
+        if (returnType.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        String erased = processingEnv.getTypeUtils().erasure(returnType).toString();
+        return erased.equals(COMPLETABLE_FUTURE) || erased.equals(COMPLETION_STAGE);
+    }
+
+    // the abstract and default methods of the interface and of its superinterfaces, once per signature
+    private List<ExecutableElement> methods(TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        Set<String> signatures = new HashSet<>();
+        for (Element member : processingEnv.getElementUtils().getAllMembers(type)) {
+            if (member.getKind() != ElementKind.METHOD || member.getModifiers().contains(Modifier.STATIC)
+                    || member.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            ExecutableElement method = (ExecutableElement) member;
+            if (((TypeElement) method.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object")
+                    || isObjectMethod(method)) {
+                continue;
+            }
+            StringJoiner signature = new StringJoiner(",", method.getSimpleName() + "(", ")");
+            method.getParameters().forEach(parameter ->
+                    signature.add(processingEnv.getTypeUtils().erasure(parameter.asType()).toString()));
+            if (signatures.add(signature.toString())) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    // an interface may redeclare the methods of Object, which the generated class inherits
+    private static boolean isObjectMethod(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        int parameters = method.getParameters().size();
+        return (name.equals("equals") && parameters == 1) || (name.equals("hashCode") && parameters == 0)
+                || (name.equals("toString") && parameters == 0);
+    }
+
+    // the same rules as the CircuitBreakerProxy: null if the method calls the delegate directly
+    private static String breakerName(TypeElement type, ExecutableElement method) {
+        if (method.getAnnotation(Unguarded.class) != null) {
+            return null;
+        }
+        TypeElement declaring = (TypeElement) method.getEnclosingElement();
+        Guarded guarded = method.getAnnotation(Guarded.class);
+        if (guarded != null) {
+            return guarded.value().isEmpty()
+                    ? declaring.getSimpleName() + "." + method.getSimpleName() : guarded.value();
+        }
+        TypeElement owner = declaring.getAnnotation(Guarded.class) != null ? declaring : type;
+        guarded = owner.getAnnotation(Guarded.class);
+        if (guarded == null) {
+            return null;
+        }
+        return guarded.value().isEmpty() ? owner.getSimpleName().toString() : guarded.value();
+    }
+
+    private static String typeParameters(List<? extends TypeParameterElement> typeParameters) {
+        if (typeParameters.isEmpty()) {
+            return "";
+        }
+        StringJoiner joiner = new StringJoiner(", ", "<", ">");
+        for (TypeParameterElement typeParameter : typeParameters) {
+            StringJoiner bounds = new StringJoiner(" & ", " extends ", "").setEmptyValue("");
+            typeParameter.getBounds().stream()
+                    .map(TypeMirror::toString)
+                    .filter(bound -> !bound.equals("java.lang.Object"))
+                    .forEach(bounds::add);
+            joiner.add(typeParameter.getSimpleName() + bounds.toString());
+        }
+        return joiner.toString();
+    }
+
+    // Outer_Inner for a nested interface
+    private static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return name.toString();
+    }
+
+    private static boolean isPublic(TypeElement type) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (!element.getModifiers().contains(Modifier.PUBLIC)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String unusedName(String name, List<String> taken) {
+        String unused = name;
+        while (taken.contains(unused)) {
+            unused = unused + "_";
+        }
+        return unused;
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Source {
+        private final StringBuilder text = new StringBuilder();
+
+        Source line(String line) {
+            text.append(line).append('\n');
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package example.circuitbreaker.prometheus;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import example.circuitbreaker.CircuitBreakerMetrics;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves the breakers of a registry in the Prometheus text exposition format, on {@code /metrics} of the JDK built-in
+ * HTTP server.
+ * <p>
+ * A scrape reads the breakers' lock-free metrics and encodes them straight into a byte buffer reused across scrapes,
+ * so it allocates little and never holds a lock the calls through the breakers need. Scrapes are serialized on the
+ * buffer, they only wait for each other.
+ * <p>
+ * The latency histogram is exported with power of four boundaries from 1.024 ms to 16.8 s, each of which is the exact
+ * boundary of a bucket of {@link CircuitBreakerMetrics}.
+ */
+public class PrometheusExporter implements AutoCloseable {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final CircuitState[] STATES = CircuitState.values();
+    private static final byte[][] STATE_LABELS = new byte[STATES.length][];
+    // exported latency boundaries, in microseconds, and the last bucket of the metrics counted below each of them
+    private static final long[] LE_MICROS = {1L << 10, 1L << 12, 1L << 14, 1L << 16, 1L << 18, 1L << 20, 1L << 22, 1L << 24};
+    private static final byte[][] LE_LABELS = new byte[LE_MICROS.length][];
+    private static final int[] LE_BUCKETS = new int[LE_MICROS.length];
+
+    private static final byte[] STATE_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_state Current state of the circuit breaker.\n"
+                    + "# TYPE circuit_breaker_state gauge\n");
+    private static final byte[] FAILURES_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_failures Consecutive failures counted while the circuit is closed.\n"
+                    + "# TYPE circuit_breaker_failures gauge\n");
+    private static final byte[] CALLS_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_calls_total Calls through the circuit breaker by outcome.\n"
+                    + "# TYPE circuit_breaker_calls_total counter\n");
+    private static final byte[] TIMEOUTS_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_timeouts_total Calls that timed out, also counted as failed calls.\n"
+                    + "# TYPE circuit_breaker_timeouts_total counter\n");
+    private static final byte[] ABANDONED_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_abandoned_calls_total Calls abandoned on a timeout or an interrupt before completing.\n"
+                    + "# TYPE circuit_breaker_abandoned_calls_total counter\n");
+    private static final byte[] ABANDONED_RUNNING_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_abandoned_calls_running Abandoned calls still running, having ignored their cancellation.\n"
+                    + "# TYPE circuit_breaker_abandoned_calls_running gauge\n");
+    private static final byte[] DURATION_HEADER = TextBuffer.ascii(
+            "# HELP circuit_breaker_call_duration_seconds Duration of the calls through the circuit breaker.\n"
+                    + "# TYPE circuit_breaker_call_duration_seconds histogram\n");
+
+    private static final byte[] STATE = TextBuffer.ascii("circuit_breaker_state{name=\"");
+    private static final byte[] FAILURES = TextBuffer.ascii("circuit_breaker_failures{name=\"");
+    private static final byte[] CALLS = TextBuffer.ascii("circuit_breaker_calls_total{name=\"");
+    private static final byte[] TIMEOUTS = TextBuffer.ascii("circuit_breaker_timeouts_total{name=\"");
+    private static final byte[] ABANDONED = TextBuffer.ascii("circuit_breaker_abandoned_calls_total{name=\"");
+    private static final byte[] ABANDONED_RUNNING = TextBuffer.ascii("circuit_breaker_abandoned_calls_running{name=\"");
+    private static final byte[] DURATION_BUCKET = TextBuffer.ascii("circuit_breaker_call_duration_seconds_bucket{name=\"");
+    private static final byte[] DURATION_SUM = TextBuffer.ascii("circuit_breaker_call_duration_seconds_sum{name=\"");
+    private static final byte[] DURATION_COUNT = TextBuffer.ascii("circuit_breaker_call_duration_seconds_count{name=\"");
+    private static final byte[] STATE_LABEL = TextBuffer.ascii("\",state=\"");
+    private static final byte[] OUTCOME_SUCCESSFUL = TextBuffer.ascii("\",outcome=\"successful\"} ");
+    private static final byte[] OUTCOME_FAILED = TextBuffer.ascii("\",outcome=\"failed\"} ");
+    private static final byte[] OUTCOME_REJECTED = TextBuffer.ascii("\",outcome=\"rejected\"} ");
+    private static final byte[] LE_LABEL = TextBuffer.ascii("\",le=\"");
+    private static final byte[] LE_INF = TextBuffer.ascii("\",le=\"+Inf\"} ");
+    private static final byte[] END_LABEL = TextBuffer.ascii("\"} ");
+    private static final byte[] ONE = TextBuffer.ascii(" 1\n");
+    private static final byte[] ZERO = TextBuffer.ascii(" 0\n");
+
+    static {
+        for (CircuitState state : STATES) {
+            STATE_LABELS[state.ordinal()] = TextBuffer.ascii(state.name().toLowerCase(Locale.ROOT) + "\"}");
+        }
+        int bucket = 0;
+        for (int i = 0; i < LE_MICROS.length; i++) {
+            LE_LABELS[i] = TextBuffer.ascii(BigDecimal.valueOf(LE_MICROS[i], 6).toPlainString() + "\"} ");
+            while (CircuitBreakerMetrics.latencyUpperBoundMicros(bucket) + 1 < LE_MICROS[i]) {
+                bucket++;
+            }
+            LE_BUCKETS[i] = bucket;
+        }
+    }
+
+    private final CircuitBreakerRegistry registry;
+    private final ReentrantLock scrapeLock = new ReentrantLock();
+    private final TextBuffer buffer = new TextBuffer(64 * 1024);
+    private HttpServer server;
+
+    public PrometheusExporter(CircuitBreakerRegistry registry) {
+        this.registry = Objects.requireNonNull(registry);
+    }
+
+    /**
+     * Starts serving the breakers on {@code /metrics} of the given address.
+     *
+     * @throws IllegalStateException if the exporter is already started
+     */
+    public synchronized void start(InetSocketAddress address) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Exporter already started");
+        }
+        server = HttpServer.create(address, 0);
+        server.createContext("/metrics", this::handle);
+        server.start();
+    }
+
+    /**
+     * @return the address the exporter listens on, or {@code null} if it is not started
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server == null ? null : server.getAddress();
+    }
+
+    /**
+     * Writes the breakers to the given stream in the Prometheus text exposition format.
+     */
+    public void scrape(OutputStream out) throws IOException {
+        scrapeLock.lock();
+        try {
+            render();
+            buffer.writeTo(out);
+        } finally {
+            scrapeLock.unlock();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            scrapeLock.lock();
+            try {
+                render();
+                exchange.sendResponseHeaders(200, buffer.length());
+                buffer.writeTo(exchange.getResponseBody());
+            } finally {
+                scrapeLock.unlock();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // every sample of a metric family must be grouped, hence one pass over the breakers per family
+    private void render() {
+        buffer.reset();
+
+        buffer.append(STATE_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            CircuitState current = breaker.getState();
+            for (CircuitState state : STATES) {
+                buffer.append(STATE).appendLabelValue(breaker.getName()).append(STATE_LABEL)
+                        .append(STATE_LABELS[state.ordinal()]).append(state == current ? ONE : ZERO);
+            }
+        }
+
+        buffer.append(FAILURES_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            buffer.append(FAILURES).appendLabelValue(breaker.getName()).append(END_LABEL)
+                    .append(breaker.getFailures()).append('\n');
+        }
+
+        buffer.append(CALLS_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            CircuitBreakerMetrics metrics = breaker.getMetrics();
+            buffer.append(CALLS).appendLabelValue(breaker.getName()).append(OUTCOME_SUCCESSFUL)
+                    .append(metrics.getSuccessfulCalls()).append('\n');
+            buffer.append(CALLS).appendLabelValue(breaker.getName()).append(OUTCOME_FAILED)
+                    .append(metrics.getFailedCalls()).append('\n');
+            buffer.append(CALLS).appendLabelValue(breaker.getName()).append(OUTCOME_REJECTED)
+                    .append(metrics.getRejectedCalls()).append('\n');
+        }
+
+        buffer.append(TIMEOUTS_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            buffer.append(TIMEOUTS).appendLabelValue(breaker.getName()).append(END_LABEL)
+                    .append(breaker.getMetrics().getTimeouts()).append('\n');
+        }
+
+        buffer.append(ABANDONED_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            buffer.append(ABANDONED).appendLabelValue(breaker.getName()).append(END_LABEL)
+                    .append(breaker.getMetrics().getAbandonedCalls()).append('\n');
+        }
+
+        buffer.append(ABANDONED_RUNNING_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            buffer.append(ABANDONED_RUNNING).appendLabelValue(breaker.getName()).append(END_LABEL)
+                    .append(breaker.getMetrics().getRunningAbandonedCalls()).append('\n');
+        }
+
+        buffer.append(DURATION_HEADER);
+        for (DefaultCircuitBreaker breaker : registry.getAll()) {
+            renderHistogram(breaker.getName(), breaker.getMetrics());
+        }
+    }
+
+    private void renderHistogram(String name, CircuitBreakerMetrics metrics) {
+        long count = 0;
+        int le = 0;
+        for (int bucket = 0; bucket < CircuitBreakerMetrics.latencyBuckets(); bucket++) {
+            count += metrics.getLatencyCount(bucket);
+            if (le < LE_BUCKETS.length && bucket == LE_BUCKETS[le]) {
+                buffer.append(DURATION_BUCKET).appendLabelValue(name).append(LE_LABEL).append(LE_LABELS[le])
+                        .append(count).append('\n');
+                le++;
+            }
+        }
+        buffer.append(DURATION_BUCKET).appendLabelValue(name).append(LE_INF).append(count).append('\n');
+        buffer.append(DURATION_SUM).appendLabelValue(name).append(END_LABEL)
+                .appendSeconds(metrics.getLatencySumNanos()).append('\n');
+        buffer.append(DURATION_COUNT).appendLabelValue(name).append(END_LABEL).append(count).append('\n');
+    }
+}
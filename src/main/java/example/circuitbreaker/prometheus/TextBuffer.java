@@ -0,0 +1,137 @@
+package example.circuitbreaker.prometheus;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer that text is encoded into directly, reused from one scrape to the next.
+ * Numbers are written digit by digit, so appending allocates nothing once the buffer has grown to the size of a
+ * scrape.
+ */
+final class TextBuffer {
+
+    private byte[] bytes;
+    private int length;
+
+    TextBuffer(int initialCapacity) {
+        bytes = new byte[initialCapacity];
+    }
+
+    void reset() {
+        length = 0;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    TextBuffer append(byte[] ascii) {
+        ensureCapacity(ascii.length);
+        System.arraycopy(ascii, 0, bytes, length, ascii.length);
+        length += ascii.length;
+        return this;
+    }
+
+    TextBuffer append(char ascii) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) ascii;
+        return this;
+    }
+
+    TextBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(ascii(Long.toString(value)));
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            bytes[length++] = '-';
+            value = -value;
+        }
+        int end = length + digits(value);
+        int position = end;
+        do {
+            bytes[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        length = end;
+        return this;
+    }
+
+    /**
+     * Appends the given nanoseconds as a decimal number of seconds.
+     */
+    TextBuffer appendSeconds(long nanos) {
+        append(nanos / 1_000_000_000L).append('.');
+        long fraction = nanos % 1_000_000_000L;
+        ensureCapacity(9);
+        for (int divisor = 100_000_000; divisor > 0; divisor /= 10) {
+            bytes[length++] = (byte) ('0' + fraction / divisor % 10);
+        }
+        return this;
+    }
+
+    /**
+     * Appends a label value in UTF-8, escaping the backslash, double-quote and line feed characters.
+     */
+    TextBuffer appendLabelValue(String value) {
+        // at most three bytes per char: an escape takes two, a surrogate pair four
+        ensureCapacity(value.length() * 3);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                bytes[length++] = '\\';
+                bytes[length++] = (byte) c;
+            } else if (c == '\n') {
+                bytes[length++] = '\\';
+                bytes[length++] = 'n';
+            } else if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[length++] = (byte) (0xF0 | codePoint >> 18);
+                bytes[length++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return this;
+    }
+
+    static byte[] ascii(String text) {
+        byte[] ascii = new byte[text.length()];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) text.charAt(i);
+        }
+        return ascii;
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
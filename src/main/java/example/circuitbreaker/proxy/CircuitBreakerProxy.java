@@ -0,0 +1,227 @@
+package example.circuitbreaker.proxy;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Wraps an implementation of an interface in a {@link Proxy} calling its {@link Guarded} methods through circuit
+ * breakers:
+ *
+ * <pre>{@code
+ * @Guarded("inventory")
+ * interface InventoryClient {
+ *     int stock(String sku) throws IOException;
+ *
+ *     CompletableFuture<Void> reserve(String sku, int quantity);
+ * }
+ *
+ * InventoryClient client = CircuitBreakerProxy.create(InventoryClient.class, httpInventoryClient,
+ *         name -> registry.computeIfAbsent(name, n -> new DefaultCircuitBreaker(n, scheduler, config)));
+ * }</pre>
+ * <p>
+ * A method returning a {@link CompletableFuture} or a {@link CompletionStage} goes through
+ * {@link CircuitBreaker#executeAsync(Supplier)}, and its failures, including the rejections of an open circuit, fail
+ * the returned future. Any other method goes through {@link CircuitBreaker#execute(Supplier)}, and throws the
+ * exception thrown by the implementation as is, so that the checked exceptions of the interface are kept.
+ * <p>
+ * The breakers, and a {@link MethodHandle} calling each method of the implementation, are resolved once when the
+ * proxy is created, so that a call costs a lookup of the method on top of the breaker itself.
+ */
+public final class CircuitBreakerProxy {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private CircuitBreakerProxy() {
+    }
+
+    /**
+     * @param type           the interface to proxy
+     * @param implementation the implementation the proxy calls
+     * @param breakers       returns the breaker of a given name, called once for each name when the proxy is created
+     * @param <T>            the type of the interface
+     * @return a proxy implementing the interface
+     * @throws IllegalArgumentException if the type is not an interface, or a breaker is missing
+     */
+    public static <T> T create(Class<T> type, T implementation, Function<String, ? extends CircuitBreaker> breakers) {
+        if (type == null || implementation == null || breakers == null) {
+            throw new IllegalArgumentException("Type, implementation and breakers must not be null");
+        }
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException(type.getName() + " is not an interface");
+        }
+        Map<String, CircuitBreaker> resolved = new HashMap<>();
+        Map<Method, Dispatch> dispatches = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            MethodHandle handle = handle(method, implementation);
+            String name = breakerName(type, method);
+            if (name == null) {
+                dispatches.put(method, new Dispatch(handle));
+                continue;
+            }
+            CircuitBreaker breaker = resolved.computeIfAbsent(name, breakers);
+            if (breaker == null) {
+                throw new IllegalArgumentException("No circuit breaker named " + name);
+            }
+            dispatches.put(method, isAsync(method) ? new AsyncDispatch(handle, breaker)
+                    : new GuardedDispatch(handle, breaker));
+        }
+        Handler handler = new Handler(implementation, Map.copyOf(dispatches));
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    // the name of the breaker guarding the method, or null if the method is called directly
+    private static String breakerName(Class<?> type, Method method) {
+        if (method.isAnnotationPresent(Unguarded.class)) {
+            return null;
+        }
+        Guarded guarded = method.getAnnotation(Guarded.class);
+        if (guarded != null) {
+            return guarded.value().isEmpty()
+                    ? method.getDeclaringClass().getSimpleName() + "." + method.getName() : guarded.value();
+        }
+        Class<?> owner = method.getDeclaringClass().isAnnotationPresent(Guarded.class)
+                ? method.getDeclaringClass() : type;
+        guarded = owner.getAnnotation(Guarded.class);
+        if (guarded == null) {
+            return null;
+        }
+        return guarded.value().isEmpty() ? owner.getSimpleName() : guarded.value();
+    }
+
+    private static boolean isAsync(Method method) {
+        return method.getReturnType() == CompletableFuture.class || method.getReturnType() == CompletionStage.class;
+    }
+
+    // (Object[]) -> Object, calling the method on the implementation; a void method returns null
+    private static MethodHandle handle(Method method, Object implementation) {
+        // the interface may not be public, e.g. package-private to its clients
+        method.trySetAccessible();
+        try {
+            return LOOKUP.unreflect(method)
+                    .bindTo(implementation)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(DISPATCH_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot access " + method, e);
+        }
+    }
+
+    private static final class Handler implements InvocationHandler {
+        private final Object implementation;
+        private final Map<Method, Dispatch> dispatches;
+
+        private Handler(Object implementation, Map<Method, Dispatch> dispatches) {
+            this.implementation = implementation;
+            this.dispatches = dispatches;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Dispatch dispatch = dispatches.get(method);
+            if (dispatch != null) {
+                return dispatch.invoke(args);
+            }
+            // the methods of Object: a proxy only equals itself
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CircuitBreakerProxy[" + implementation + "]";
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+
+    // calls the implementation directly
+    private static class Dispatch {
+        final MethodHandle handle;
+
+        Dispatch(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        Object invoke(Object[] args) throws Throwable {
+            return (Object) handle.invokeExact(args);
+        }
+
+        // a checked exception is wrapped in a CompletionException, which the FailureClassifier looks through
+        final Object call(Object[] args) {
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    private static final class GuardedDispatch extends Dispatch {
+        private final CircuitBreaker breaker;
+
+        GuardedDispatch(MethodHandle handle, CircuitBreaker breaker) {
+            super(handle);
+            this.breaker = breaker;
+        }
+
+        @Override
+        Object invoke(Object[] args) throws Throwable {
+            try {
+                return breaker.execute(() -> call(args));
+            } catch (CircuitBreakerExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof CompletionException && cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                throw cause == null ? e : cause;
+            }
+        }
+    }
+
+    private static final class AsyncDispatch extends Dispatch {
+        private final CircuitBreaker breaker;
+
+        AsyncDispatch(MethodHandle handle, CircuitBreaker breaker) {
+            super(handle);
+            this.breaker = breaker;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object invoke(Object[] args) {
+            try {
+                return breaker.executeAsync(() -> {
+                    try {
+                        return ((CompletionStage<Object>) (Object) handle.invokeExact(args)).toCompletableFuture();
+                    } catch (Throwable e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                });
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package example.circuitbreaker.proxy;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Guards the methods of an interface proxied by {@link CircuitBreakerProxy} with a circuit breaker. On the interface,
+ * every method goes through one breaker; on a method, the method goes through its own breaker, overriding the one of
+ * the interface.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Guarded {
+
+    /**
+     * @return the name of the breaker, by default the simple name of the interface, followed by the name of the method
+     * when on a method, e.g. {@code InventoryClient.reserve}
+     */
+    String value() default "";
+}
@@ -0,0 +1,17 @@
+package example.circuitbreaker.proxy;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Calls a method of an interface proxied by {@link CircuitBreakerProxy} directly, although the interface is
+ * {@link Guarded}, e.g. a method reading local state.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Unguarded {
+}
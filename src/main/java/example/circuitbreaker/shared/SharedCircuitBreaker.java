@@ -0,0 +1,58 @@
+package example.circuitbreaker.shared;
+
+import example.circuitbreaker.DefaultCircuitBreakerInvoker;
+import example.circuitbreaker.word.WordCircuitBreaker;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A circuit breaker whose state word lives in a {@link SharedStateFile}: every process of the host using the same
+ * name shares the same Closed/Open/Half-Open state and failure counter, so a dependency that failed
+ * {@code maxFailures} times is seen open by all of them at once.
+ */
+public class SharedCircuitBreaker extends WordCircuitBreaker {
+
+    private final SharedStateFile file;
+    private final String name;
+    private final int wordOffset;
+
+    /**
+     * Constructs a SharedCircuitBreaker with the specified parameters.
+     *
+     * @param file                     the SharedStateFile holding the state word
+     * @param name                     the name of the breaker, identifying it across processes
+     * @param scheduledExecutorService the ScheduledExecutorService for executing the calls
+     * @param maxFailures              the maximum number of failures before opening the circuit
+     * @param invocationTimeout        the timeout duration for each invocation
+     * @param circuitResetTimeout      time interval after which the circuit attempts to close circuit
+     */
+    public SharedCircuitBreaker(SharedStateFile file, String name, ScheduledExecutorService scheduledExecutorService,
+                                int maxFailures, Duration invocationTimeout, Duration circuitResetTimeout) {
+        super(new DefaultCircuitBreakerInvoker(scheduledExecutorService), maxFailures, invocationTimeout,
+                circuitResetTimeout);
+        this.file = Objects.requireNonNull(file);
+        this.name = Objects.requireNonNull(name);
+        this.wordOffset = file.slotOf(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    protected long load() {
+        return file.load(wordOffset);
+    }
+
+    @Override
+    protected boolean compareAndSet(long expected, long update) {
+        return file.compareAndSet(wordOffset, expected, update);
+    }
+
+    @Override
+    protected long now() {
+        return file.now();
+    }
+}
@@ -0,0 +1,136 @@
+package example.circuitbreaker.shared;
+
+import example.circuitbreaker.NameHash;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * A memory-mapped file holding the state words of circuit breakers, shared by every process of a host that maps it.
+ * <p>
+ * Each breaker owns a slot found by hashing its name: a 64-bit key followed by its {@link example.circuitbreaker.word.StateWord}.
+ * Keys and words are read and updated with {@link VarHandle} volatile reads and compare-and-sets on the mapped
+ * buffer, which the processes see immediately through the shared page cache. The file is only locked while its
+ * header is initialized.
+ * <pre>
+ * header (64 bytes): int magic | int version | int slotCount | int unused | long baseMillis
+ * slot   (16 bytes): long nameHash | long stateWord
+ * </pre>
+ * The deadlines of the state words count milliseconds after {@code baseMillis}, the creation time of the file.
+ */
+public class SharedStateFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x43344A57; // "C4JW"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 16;
+    private static final int SLOT_COUNT_OFFSET = 8;
+    private static final int BASE_MILLIS_OFFSET = 16;
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private final long baseMillis;
+
+    private SharedStateFile(FileChannel channel, MappedByteBuffer buffer, int slotCount, long baseMillis) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.slotCount = slotCount;
+        this.baseMillis = baseMillis;
+    }
+
+    /**
+     * Maps the given file, creating it with room for {@code slotCount} breakers if it does not exist yet.
+     * A file that already exists keeps the slot count it was created with.
+     *
+     * @param path      the path of the file shared by the processes
+     * @param slotCount the number of slots of a new file, rounded up to a power of two
+     */
+    public static SharedStateFile open(Path path, int slotCount) throws IOException {
+        Objects.requireNonNull(path);
+        if (slotCount < 1 || slotCount > 1 << 24) {
+            throw new IllegalArgumentException("Slot count must be within [1, 2^24]");
+        }
+        int slots = Integer.bitCount(slotCount) == 1 ? slotCount : Integer.highestOneBit(slotCount) << 1;
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            int existingSlots;
+            long baseMillis;
+            try (FileLock ignored = channel.lock(0, HEADER_BYTES, false)) {
+                if (channel.size() == 0) {
+                    MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * SLOT_BYTES);
+                    header.putInt(4, VERSION).putInt(SLOT_COUNT_OFFSET, slots)
+                            .putLong(BASE_MILLIS_OFFSET, System.currentTimeMillis());
+                    header.putInt(0, MAGIC); // written last, the header is complete once the magic is there
+                    header.force();
+                }
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not a circuit breaker state file: " + path);
+                }
+                existingSlots = header.getInt(SLOT_COUNT_OFFSET);
+                baseMillis = header.getLong(BASE_MILLIS_OFFSET);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_BYTES + (long) existingSlots * SLOT_BYTES);
+            return new SharedStateFile(channel, buffer, existingSlots, baseMillis);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * @return the current time, in milliseconds after the creation of the file
+     */
+    long now() {
+        return System.currentTimeMillis() - baseMillis;
+    }
+
+    /**
+     * Finds the slot of the given breaker name, claiming a free slot on first use.
+     *
+     * @return the byte offset of the state word of the breaker
+     * @throws IllegalStateException if every slot is taken by other breakers
+     */
+    int slotOf(String name) {
+        long key = NameHash.of(name); // never 0, which marks a free slot
+        int mask = slotCount - 1;
+        for (int i = 0; i < slotCount; i++) {
+            int offset = HEADER_BYTES + ((int) (key + i) & mask) * SLOT_BYTES;
+            long current = (long) LONGS.getVolatile(buffer, offset);
+            if (current == key || (current == 0 && (LONGS.compareAndSet(buffer, offset, 0L, key)
+                    || (long) LONGS.getVolatile(buffer, offset) == key))) {
+                return offset + Long.BYTES;
+            }
+        }
+        throw new IllegalStateException("No free slot left in the circuit breaker state file");
+    }
+
+    long load(int wordOffset) {
+        return (long) LONGS.getVolatile(buffer, wordOffset);
+    }
+
+    boolean compareAndSet(int wordOffset, long expected, long update) {
+        return LONGS.compareAndSet(buffer, wordOffset, expected, update);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,175 @@
+package example.circuitbreaker.states;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.Outcome;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@code AbstractClosedCircuitBreakerState} is the base of the Closed states: it lets the requests flow through and
+ * opens the circuit when the failure threshold is reached, leaving to subclasses how the failures are counted.
+ */
+public abstract class AbstractClosedCircuitBreakerState implements CircuitBreakerState {
+
+    private final CircuitBreakerSwitch switcher;
+    private final CircuitBreakerInvoker invoker;
+
+    // the threshold before opening the circuit and the max time for each invocation, read on every call
+    private final Supplier<CircuitBreakerConfig> config;
+
+    /**
+     * @return the number of consecutive failures counted so far
+     */
+    public abstract int getFailureCount();
+
+    /**
+     * Sets the number of consecutive failures, e.g. when restoring a snapshot.
+     */
+    public abstract void setFailureCount(int count);
+
+    /**
+     * @param config supplies the current config of the breaker, e.g. its volatile config field
+     */
+    protected AbstractClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Supplier<CircuitBreakerConfig> config) {
+        this.switcher = switcher;
+        this.invoker = invoker;
+        this.config = config;
+    }
+
+    private Duration invocationTimeout() {
+        return config.get().getInvocationTimeout();
+    }
+
+    static Supplier<CircuitBreakerConfig> fixedConfig(int maxFailures, Duration invocationTimeout) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .maxFailures(maxFailures)
+                .invocationTimeout(invocationTimeout)
+                .build();
+        return () -> config;
+    }
+
+    /**
+     * Called when entering the CLOSED state.
+     * Resets the failure counter to 0.
+     */
+    @Override
+    public void enter() {
+        resetFailures();
+    }
+
+    /**
+     * Opens the circuit regardless of the failure count, the dependency being too slow to keep up.
+     */
+    @Override
+    public void saturated() {
+        switcher.openCircuit(this);
+    }
+
+    /**
+     * This method is called when an invocation fails.
+     * Atomically increments the failure count and opens the circuit if reach {@code maxFailures}.
+     */
+    @Override
+    public void invocationFails() {
+        if (addFailures(1) >= config.get().getMaxFailures()) {
+            switcher.openCircuit(this);
+        }
+    }
+
+    /**
+     * Called when an invocation succeeds.
+     * Resets the failure counter to 0.
+     */
+    @Override
+    public void invocationSucceeds() {
+        resetFailures();
+    }
+
+    /**
+     * Called once when a batch of invocations completes.
+     * As for single invocations, a success in the batch resets the failure counter, then the failures the batch
+     * ends with are added to it.
+     */
+    @Override
+    public void invocationsComplete(int successCount, int failureCount) {
+        if (successCount > 0) {
+            resetFailures();
+        }
+        if (failureCount > 0 && addFailures(failureCount) >= config.get().getMaxFailures()) {
+            switcher.openCircuit(this);
+        }
+    }
+
+    @Override
+    public void invoke(Runnable action) {
+        invoker.invokeThrough(this, action, invocationTimeout());
+    }
+
+    @Override
+    public <T> T invoke(Supplier<T> func) {
+        return invoker.invokeThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
+        return invoker.invokeThroughAsync(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        return invoker.invokeThroughAsync(this, func, invocationTimeout(), executor);
+    }
+
+    @Override
+    public int invokeAsInt(IntSupplier func) {
+        return invoker.invokeAsIntThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public long invokeAsLong(LongSupplier func) {
+        return invoker.invokeAsLongThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public double invokeAsDouble(DoubleSupplier func) {
+        return invoker.invokeAsDoubleThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public boolean invokeAsBoolean(BooleanSupplier func) {
+        return invoker.invokeAsBooleanThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        return invoker.invokeBatchThrough(this, funcs, parallelism, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism) {
+        return invoker.invokeAllThroughAsync(this, funcs, parallelism, invocationTimeout());
+    }
+
+    /**
+     * Adds failures to the failure count.
+     *
+     * @return the number of consecutive failures, including the added ones
+     */
+    protected abstract int addFailures(int count);
+
+    /**
+     * Resets the failure count to 0.
+     */
+    protected abstract void resetFailures();
+}
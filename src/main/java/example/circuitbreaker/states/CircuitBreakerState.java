@@ -1,6 +1,14 @@
 package example.circuitbreaker.states;
 
+import example.circuitbreaker.Outcome;
+
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 /**
@@ -24,6 +32,29 @@ public interface CircuitBreakerState {
      */
     void invocationSucceeds();
 
+    /**
+     * Method called once when a batch of invocations completes.
+     *
+     * @param successes the number of invocations that succeeded
+     * @param failures  the number of invocations that failed after the last success, in the order of the batch,
+     *                  i.e. the consecutive failures the batch ends with
+     */
+    void invocationsComplete(int successes, int failures);
+
+    /**
+     * Method called when an admitted invocation is not made, e.g. because the deadline of the caller has passed. The
+     * state gives back what the admission took, without counting an outcome.
+     */
+    default void invocationSkipped() {
+    }
+
+    /**
+     * Method called when the invocations back up in their bulkhead beyond its thresholds. The states counting
+     * failures open the circuit.
+     */
+    default void saturated() {
+    }
+
     /**
      * Executes a void action according to the state's behavior.
      *
@@ -48,4 +79,57 @@ public interface CircuitBreakerState {
      * @return a CompletableFuture representing the result of the function
      */
     <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func);
+
+    /**
+     * Executes an asynchronous function like {@link #invokeAsync(Supplier)}, completing the returned future on the
+     * given executor.
+     *
+     * @param func     the asynchronous function to be executed
+     * @param executor the executor completing the returned future and running its async stages by default
+     * @param <T>      the return type of the CompletableFuture
+     * @return a CompletableFuture representing the result of the function
+     */
+    <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor);
+
+    /**
+     * Executes a function returning an {@code int} according to the state's behavior, without boxing its result.
+     */
+    int invokeAsInt(IntSupplier func);
+
+    /**
+     * Executes a function returning a {@code long} according to the state's behavior, without boxing its result.
+     */
+    long invokeAsLong(LongSupplier func);
+
+    /**
+     * Executes a function returning a {@code double} according to the state's behavior, without boxing its result.
+     */
+    double invokeAsDouble(DoubleSupplier func);
+
+    /**
+     * Executes a function returning a {@code boolean} according to the state's behavior, without boxing its result.
+     */
+    boolean invokeAsBoolean(BooleanSupplier func);
+
+    /**
+     * Executes a batch of functions according to the state's behavior, the whole batch is admitted at once.
+     *
+     * @param funcs       the functions to be executed
+     * @param parallelism the maximum number of functions running at the same time
+     * @param <T>         the return type of the functions
+     * @return the outcome of each function, in the order of {@code funcs}
+     */
+    <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism);
+
+    /**
+     * Executes a batch of asynchronous functions according to the state's behavior, the whole batch is
+     * admitted at once.
+     *
+     * @param funcs       the asynchronous functions to be executed
+     * @param parallelism the maximum number of futures in flight at the same time
+     * @param <T>         the return type of the CompletableFutures
+     * @return a CompletableFuture of the outcome of each function, in the order of {@code funcs}
+     */
+    <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                           int parallelism);
 }
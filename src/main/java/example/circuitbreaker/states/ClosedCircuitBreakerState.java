@@ -1,10 +1,10 @@
 package example.circuitbreaker.states;
 
+import example.circuitbreaker.CircuitBreakerConfig;
 import example.circuitbreaker.CircuitBreakerInvoker;
 import example.circuitbreaker.CircuitBreakerSwitch;
 
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
@@ -12,15 +12,7 @@ import java.util.function.Supplier;
  * {@code ClosedCircuitBreakerState} represents the normal state where the circuit is closed and requests flow through.
  * It tracks failures and opens the circuit when the failure threshold is reached.
  */
-public class ClosedCircuitBreakerState implements CircuitBreakerState {
-
-    // threshold before opening the circuit
-    private final int maxFailures;
-    private final CircuitBreakerSwitch switcher;
-    private final CircuitBreakerInvoker invoker;
-
-    // max time for each invocation
-    private final Duration invocationTimeout;
+public class ClosedCircuitBreakerState extends AbstractClosedCircuitBreakerState {
 
     // thread-safe failure counter
     private final AtomicInteger failures = new AtomicInteger(0);
@@ -30,57 +22,40 @@ public class ClosedCircuitBreakerState implements CircuitBreakerState {
     }
 
     public ClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, int maxFailures, Duration invocationTimeout) {
-        this.maxFailures = maxFailures;
-        this.switcher = switcher;
-        this.invoker = invoker;
-        this.invocationTimeout = invocationTimeout;
-    }
-
-    /**
-     * Called when entering the CLOSED state.
-     * Resets the failure counter to 0.
-     */
-    @Override
-    public void enter() {
-        resetFailures();
+        this(switcher, invoker, fixedConfig(maxFailures, invocationTimeout));
     }
 
     /**
-     * This method is called when an invocation fails.
-     * Atomically increments the failure count and opens the circuit if reach {@code maxFailures}.
+     * @param config supplies the current config of the breaker, e.g. its volatile config field
      */
-    @Override
-    public void invocationFails() {
-        if (failures.incrementAndGet() >= maxFailures) {
-            switcher.openCircuit(this);
-        }
+    public ClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Supplier<CircuitBreakerConfig> config) {
+        super(switcher, invoker, config);
     }
 
-    /**
-     * Called when an invocation succeeds.
-     * Resets the failure counter to 0.
-     */
     @Override
-    public void invocationSucceeds() {
-        resetFailures();
+    public int getFailureCount() {
+        return failures.get();
     }
 
     @Override
-    public void invoke(Runnable action) {
-        invoker.invokeThrough(this, action, invocationTimeout);
+    public void setFailureCount(int count) {
+        failures.set(count);
     }
 
     @Override
-    public <T> T invoke(Supplier<T> func) {
-        return invoker.invokeThrough(this, func, invocationTimeout);
+    protected int addFailures(int count) {
+        return failures.addAndGet(count);
     }
 
+    /**
+     * Resets the failure counter to 0. The counter is only written when it is not 0 already: every successful call
+     * resets it, and a read leaves its cache line shared between the cores while a write would invalidate it in all
+     * of them.
+     */
     @Override
-    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
-        return invoker.invokeThroughAsync(this, func, invocationTimeout);
-    }
-
-    private void resetFailures() {
-        failures.set(0);
+    protected void resetFailures() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
     }
 }
@@ -0,0 +1,110 @@
+package example.circuitbreaker.states;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.Outcome;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@code DisabledCircuitBreakerState} represents a breaker disabled manually by an operator.
+ * Requests flow through with the invocation timeout, but their outcomes are ignored so the circuit never opens.
+ */
+public class DisabledCircuitBreakerState implements CircuitBreakerState {
+
+    private final CircuitBreakerInvoker invoker;
+
+    // max time for each invocation, read on every call
+    private final Supplier<CircuitBreakerConfig> config;
+
+    public DisabledCircuitBreakerState(CircuitBreakerInvoker invoker, Duration invocationTimeout) {
+        this(invoker, ClosedCircuitBreakerState.fixedConfig(1, invocationTimeout));
+    }
+
+    /**
+     * @param config supplies the current config of the breaker, e.g. its volatile config field
+     */
+    public DisabledCircuitBreakerState(CircuitBreakerInvoker invoker, Supplier<CircuitBreakerConfig> config) {
+        this.invoker = invoker;
+        this.config = config;
+    }
+
+    private Duration invocationTimeout() {
+        return config.get().getInvocationTimeout();
+    }
+
+    @Override
+    public void enter() {
+    }
+
+    @Override
+    public void invocationFails() {
+    }
+
+    @Override
+    public void invocationSucceeds() {
+    }
+
+    @Override
+    public void invocationsComplete(int successes, int failures) {
+    }
+
+    @Override
+    public void invoke(Runnable action) {
+        invoker.invokeThrough(this, action, invocationTimeout());
+    }
+
+    @Override
+    public <T> T invoke(Supplier<T> func) {
+        return invoker.invokeThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
+        return invoker.invokeThroughAsync(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        return invoker.invokeThroughAsync(this, func, invocationTimeout(), executor);
+    }
+
+    @Override
+    public int invokeAsInt(IntSupplier func) {
+        return invoker.invokeAsIntThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public long invokeAsLong(LongSupplier func) {
+        return invoker.invokeAsLongThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public double invokeAsDouble(DoubleSupplier func) {
+        return invoker.invokeAsDoubleThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public boolean invokeAsBoolean(BooleanSupplier func) {
+        return invoker.invokeAsBooleanThrough(this, func, invocationTimeout());
+    }
+
+    @Override
+    public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        return invoker.invokeBatchThrough(this, funcs, parallelism, invocationTimeout());
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism) {
+        return invoker.invokeAllThroughAsync(this, funcs, parallelism, invocationTimeout());
+    }
+}
@@ -0,0 +1,88 @@
+package example.circuitbreaker.states;
+
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@code ForcedOpenCircuitBreakerState} represents a circuit opened manually by an operator.
+ * Like the Open state it rejects every request, but it never attempts to close on its own:
+ * the circuit stays open until it is forced closed.
+ */
+public class ForcedOpenCircuitBreakerState implements CircuitBreakerState {
+
+    @Override
+    public void enter() {
+    }
+
+    @Override
+    public void invocationFails() {
+    }
+
+    @Override
+    public void invocationSucceeds() {
+    }
+
+    @Override
+    public void invocationsComplete(int successes, int failures) {
+    }
+
+    @Override
+    public void invoke(Runnable action) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> T invoke(Supplier<T> func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public int invokeAsInt(IntSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public long invokeAsLong(LongSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public double invokeAsDouble(DoubleSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public boolean invokeAsBoolean(BooleanSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism) {
+        throw new CircuitBreakerOpenException();
+    }
+}
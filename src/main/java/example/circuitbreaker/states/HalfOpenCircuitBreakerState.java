@@ -1,12 +1,21 @@
 package example.circuitbreaker.states;
 
+import example.circuitbreaker.CircuitBreakerConfig;
 import example.circuitbreaker.CircuitBreakerInvoker;
 import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.Outcome;
 import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 //todo
@@ -14,8 +23,10 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
     private final int notInvoking = 0;
     private final int invoking = 1;
     private final CircuitBreakerInvoker invoker;
-    private final Duration timeout;
-    private AtomicInteger isBeingInvoked = new AtomicInteger(notInvoking);
+    // the timeout of the trial request, read on every call
+    private final Supplier<CircuitBreakerConfig> config;
+    // reset in place on enter, so that a caller still holding this state after a transition cannot win a stale flag
+    private final AtomicInteger isBeingInvoked = new AtomicInteger(notInvoking);
     private final CircuitBreakerSwitch switcher;
 
     public int getNotInvoking() {
@@ -31,7 +42,7 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
     }
 
     public Duration getTimeout() {
-        return timeout;
+        return config.get().getInvocationTimeout();
     }
 
     public AtomicInteger isBeingInvoked() {
@@ -53,14 +64,23 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
      * @param timeout  the timeout duration for requests while in the half-open state
      */
     public HalfOpenCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Duration timeout) {
+        this(switcher, invoker, ClosedCircuitBreakerState.fixedConfig(1, timeout));
+    }
+
+    /**
+     * @param switcher the CircuitBreakerSwitch to handle transitions between states
+     * @param invoker  the CircuitBreakerInvoker to execute actions with specific timing and constraints
+     * @param config   supplies the current config of the breaker, whose invocation timeout applies to the trial request
+     */
+    public HalfOpenCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Supplier<CircuitBreakerConfig> config) {
         this.switcher = switcher;
         this.invoker = invoker;
-        this.timeout = timeout;
+        this.config = config;
     }
 
     @Override
     public void enter() {
-        isBeingInvoked = new AtomicInteger(notInvoking);
+        isBeingInvoked.set(notInvoking);
     }
 
     @Override
@@ -73,11 +93,31 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
         switcher.closeCircuit(this);
     }
 
+    @Override
+    public void invocationsComplete(int successes, int failures) {
+        if (failures > 0) {
+            switcher.openCircuit(this);
+        } else if (successes > 0) {
+            switcher.closeCircuit(this);
+        }
+    }
+
+    @Override
+    public void saturated() {
+        switcher.openCircuit(this);
+    }
+
+    // another caller may take the trial request
+    @Override
+    public void invocationSkipped() {
+        isBeingInvoked.compareAndSet(invoking, notInvoking);
+    }
+
     @Override
     public void invoke(Runnable action) {
         // if already being invoked e.g., by another thread, do not allow further invocations
         if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
-            invoker.invokeThrough(this, action, timeout);
+            invoker.invokeThrough(this, action, getTimeout());
         } else {
             throw new CircuitBreakerOpenException();
         }
@@ -86,7 +126,7 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
     @Override
     public <T> T invoke(Supplier<T> func) {
         if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
-            return invoker.invokeThrough(this, func, timeout);
+            return invoker.invokeThrough(this, func, getTimeout());
         } else {
             throw new CircuitBreakerOpenException();
         }
@@ -95,9 +135,95 @@ public class HalfOpenCircuitBreakerState implements CircuitBreakerState {
     @Override
     public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
         if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
-            return invoker.invokeThroughAsync(this, func, timeout);
+            return invoker.invokeThroughAsync(this, func, getTimeout());
         } else {
             throw new CircuitBreakerOpenException();
         }
     }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeThroughAsync(this, func, getTimeout(), executor);
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    @Override
+    public int invokeAsInt(IntSupplier func) {
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeAsIntThrough(this, func, getTimeout());
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    @Override
+    public long invokeAsLong(LongSupplier func) {
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeAsLongThrough(this, func, getTimeout());
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    @Override
+    public double invokeAsDouble(DoubleSupplier func) {
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeAsDoubleThrough(this, func, getTimeout());
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    @Override
+    public boolean invokeAsBoolean(BooleanSupplier func) {
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeAsBooleanThrough(this, func, getTimeout());
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    /**
+     * Only the first function of the batch is invoked as the trial request,
+     * the remaining ones are rejected as if the circuit were open. An empty batch
+     * does not take the trial.
+     */
+    @Override
+    public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        if (funcs.isEmpty()) {
+            return List.of();
+        }
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            List<Outcome<T>> trial = invoker.invokeBatchThrough(this, funcs.subList(0, 1), 1, getTimeout());
+            return rejectRemainder(trial, funcs.size());
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism) {
+        if (funcs.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        if (isBeingInvoked.compareAndSet(notInvoking, invoking)) {
+            return invoker.invokeAllThroughAsync(this, funcs.subList(0, 1), 1, getTimeout())
+                    .thenApply(trial -> rejectRemainder(trial, funcs.size()));
+        } else {
+            throw new CircuitBreakerOpenException();
+        }
+    }
+
+    private static <T> List<Outcome<T>> rejectRemainder(List<Outcome<T>> trial, int batchSize) {
+        List<Outcome<T>> outcomes = new ArrayList<>(batchSize);
+        outcomes.addAll(trial);
+        for (int i = trial.size(); i < batchSize; i++) {
+            outcomes.add(Outcome.failure(new CircuitBreakerOpenException()));
+        }
+        return outcomes;
+    }
 }
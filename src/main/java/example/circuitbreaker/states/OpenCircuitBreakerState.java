@@ -1,11 +1,22 @@
 package example.circuitbreaker.states;
 
+import example.circuitbreaker.CircuitBreakerConfig;
 import example.circuitbreaker.CircuitBreakerInvoker;
 import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.ResetTimeoutPolicy;
 import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
 //todo
@@ -13,17 +24,105 @@ public class OpenCircuitBreakerState implements CircuitBreakerState {
 
     private final CircuitBreakerInvoker invoker;
     private final CircuitBreakerSwitch switcher;
-    private final Duration resetTimeSpan;
+    // the reset timeout policy, read on every opening
+    private final Supplier<CircuitBreakerConfig> config;
+
+    // number of openings since the circuit was last closed
+    private final AtomicInteger consecutiveOpenings = new AtomicInteger(0);
+
+    // wall-clock time at which the attempt to close the circuit is scheduled
+    private volatile long openUntilMillis;
+
+    // wall-clock time before which an opening does not attempt to close the circuit, e.g. told by the dependency
+    private final AtomicLong deferredUntilMillis = new AtomicLong();
 
     public OpenCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Duration resetTimeSpan) {
+        this(switcher, invoker, ResetTimeoutPolicy.fixed(resetTimeSpan));
+    }
+
+    /**
+     * Constructs a new instance of OpenCircuitBreakerState.
+     *
+     * @param switcher           the CircuitBreakerSwitch to handle transitions between states
+     * @param invoker            the CircuitBreakerInvoker to schedule the attempt to close the circuit
+     * @param resetTimeoutPolicy the policy deciding how long the circuit stays open on each consecutive opening
+     */
+    public OpenCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker,
+                                   ResetTimeoutPolicy resetTimeoutPolicy) {
+        this(switcher, invoker, fixedConfig(resetTimeoutPolicy));
+    }
+
+    /**
+     * @param switcher the CircuitBreakerSwitch to handle transitions between states
+     * @param invoker  the CircuitBreakerInvoker to schedule the attempt to close the circuit
+     * @param config   supplies the current config of the breaker, whose reset timeout policy applies to each opening
+     */
+    public OpenCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker,
+                                   Supplier<CircuitBreakerConfig> config) {
         this.invoker = invoker;
         this.switcher = switcher;
-        this.resetTimeSpan = resetTimeSpan;
+        this.config = config;
+    }
+
+    private static Supplier<CircuitBreakerConfig> fixedConfig(ResetTimeoutPolicy resetTimeoutPolicy) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder().resetTimeoutPolicy(resetTimeoutPolicy).build();
+        return () -> config;
+    }
+
+    public int getConsecutiveOpenings() {
+        return consecutiveOpenings.get();
+    }
+
+    public long getOpenUntilMillis() {
+        return openUntilMillis;
     }
 
+    /**
+     * Called when entering the OPEN state.
+     * Schedules the attempt to close the circuit after the reset timeout of this opening, or later if deferred. A
+     * deferral only applies to the next opening.
+     */
     @Override
     public void enter() {
-        invoker.invokeScheduled(() -> switcher.attemptToCloseCircuit(this), resetTimeSpan);
+        Duration resetTimeout = config.get().getResetTimeoutPolicy().resetTimeout(consecutiveOpenings.incrementAndGet());
+        long now = System.currentTimeMillis();
+        long deferredMillis = deferredUntilMillis.getAndSet(0) - now;
+        if (deferredMillis > resetTimeout.toMillis()) {
+            resetTimeout = Duration.ofMillis(deferredMillis);
+        }
+        openUntilMillis = now + resetTimeout.toMillis();
+        invoker.invokeScheduled(() -> switcher.attemptToCloseCircuit(this), resetTimeout);
+    }
+
+    /**
+     * Enters the OPEN state restored from a snapshot: the attempt to close the circuit is scheduled at the
+     * restored deadline, or immediately if that deadline has already passed.
+     *
+     * @param openUntilMillis     the wall-clock time, in epoch milliseconds, at which to attempt to close the circuit
+     * @param consecutiveOpenings the number of openings since the circuit was last closed
+     */
+    public void resume(long openUntilMillis, int consecutiveOpenings) {
+        this.consecutiveOpenings.set(consecutiveOpenings);
+        this.openUntilMillis = openUntilMillis;
+        long remainingMillis = Math.max(0, openUntilMillis - System.currentTimeMillis());
+        invoker.invokeScheduled(() -> switcher.attemptToCloseCircuit(this), Duration.ofMillis(remainingMillis));
+    }
+
+    /**
+     * Keeps the circuit open at least until the given time if it opens before then, however short the reset timeout
+     * of the policy. The latest of the times given applies, to the next opening only.
+     *
+     * @param untilMillis the wall-clock time, in epoch milliseconds, before which not to attempt to close the circuit
+     */
+    public void deferReset(long untilMillis) {
+        deferredUntilMillis.accumulateAndGet(untilMillis, Math::max);
+    }
+
+    /**
+     * Called once the circuit is closed again, so that the next opening starts over from the initial reset timeout.
+     */
+    public void resetConsecutiveOpenings() {
+        consecutiveOpenings.set(0);
     }
 
     @Override
@@ -34,6 +133,10 @@ public class OpenCircuitBreakerState implements CircuitBreakerState {
     public void invocationSucceeds() {
     }
 
+    @Override
+    public void invocationsComplete(int successes, int failures) {
+    }
+
     @Override
     public void invoke(Runnable action) {
         throw new CircuitBreakerOpenException();
@@ -48,4 +151,40 @@ public class OpenCircuitBreakerState implements CircuitBreakerState {
     public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
         throw new CircuitBreakerOpenException();
     }
+
+    @Override
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public int invokeAsInt(IntSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public long invokeAsLong(LongSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public double invokeAsDouble(DoubleSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public boolean invokeAsBoolean(BooleanSupplier func) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        throw new CircuitBreakerOpenException();
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                  int parallelism) {
+        throw new CircuitBreakerOpenException();
+    }
 }
@@ -0,0 +1,122 @@
+package example.circuitbreaker.states;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.CircuitBreakerSwitch;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * {@code StripedClosedCircuitBreakerState} is a Closed state for breakers called from many cores at once.
+ * Failures are counted in one of several stripes picked by the calling thread, each on its own cache lines, so that
+ * failing calls on different cores do not contend on a single counter. A flag, also on its own cache lines, tells
+ * whether any stripe holds failures: while nothing fails, a successful call reads the flag and writes nothing.
+ * <p>
+ * The failure count is the sum of the stripes, so unlike {@link ClosedCircuitBreakerState} this state has no single
+ * counter to hand out. As with a single counter, a failure racing a successful call may be either kept or reset.
+ */
+public class StripedClosedCircuitBreakerState extends AbstractClosedCircuitBreakerState {
+
+    private static final int MAX_STRIPES = 64;
+
+    // ints in two cache lines, so that neither adjacent lines nor the line prefetcher pair two stripes
+    private static final int STRIDE = 32;
+    private static final int FLAG = STRIDE;
+
+    // a power of 2
+    private final int stripes;
+
+    // the flag at FLAG, stripe i at (i + 2) * STRIDE, with a stride of padding at both ends
+    private final AtomicIntegerArray cells;
+
+    public StripedClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, int maxFailures, Duration invocationTimeout) {
+        this(switcher, invoker, maxFailures, invocationTimeout, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param stripes the number of stripes, rounded up to a power of 2 and capped at 64
+     */
+    public StripedClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, int maxFailures, Duration invocationTimeout, int stripes) {
+        this(switcher, invoker, fixedConfig(maxFailures, invocationTimeout), stripes);
+    }
+
+    /**
+     * @param config  supplies the current config of the breaker, e.g. its volatile config field
+     * @param stripes the number of stripes, rounded up to a power of 2 and capped at 64
+     */
+    public StripedClosedCircuitBreakerState(CircuitBreakerSwitch switcher, CircuitBreakerInvoker invoker, Supplier<CircuitBreakerConfig> config, int stripes) {
+        super(switcher, invoker, config);
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Stripes must be positive");
+        }
+        this.stripes = 1 << (32 - Integer.numberOfLeadingZeros(Math.min(stripes, MAX_STRIPES) - 1));
+        this.cells = new AtomicIntegerArray((this.stripes + 3) * STRIDE);
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Called when entering the CLOSED state.
+     * Clears every stripe, including failures left over by a call racing a reset.
+     */
+    @Override
+    public void enter() {
+        cells.set(FLAG, 0);
+        clearStripes();
+    }
+
+    @Override
+    public int getFailureCount() {
+        int count = 0;
+        for (int i = 0; i < stripes; i++) {
+            count += cells.get(cellOf(i));
+        }
+        return count;
+    }
+
+    @Override
+    public void setFailureCount(int count) {
+        clearStripes();
+        cells.set(cellOf(0), count);
+        cells.set(FLAG, count != 0 ? 1 : 0);
+    }
+
+    @Override
+    protected int addFailures(int count) {
+        cells.getAndAdd(cellOf(stripeOf(Thread.currentThread())), count);
+        if (cells.get(FLAG) == 0) {
+            cells.set(FLAG, 1);
+        }
+        return getFailureCount();
+    }
+
+    @Override
+    protected void resetFailures() {
+        if (cells.get(FLAG) != 0) {
+            cells.set(FLAG, 0);
+            clearStripes();
+        }
+    }
+
+    private void clearStripes() {
+        for (int i = 0; i < stripes; i++) {
+            int cell = cellOf(i);
+            if (cells.get(cell) != 0) {
+                cells.set(cell, 0);
+            }
+        }
+    }
+
+    // spreads the sequential thread ids over the stripes with a Fibonacci hash
+    private int stripeOf(Thread thread) {
+        return (int) ((thread.getId() * 0x9E3779B97F4A7C15L) >>> 32) & (stripes - 1);
+    }
+
+    private static int cellOf(int stripe) {
+        return (stripe + 2) * STRIDE;
+    }
+}
@@ -0,0 +1,76 @@
+package example.circuitbreaker.word;
+
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.DefaultCircuitBreakerInvoker;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A lock-free circuit breaker of a single process, whose whole state is one {@link StateWord} held in a
+ * {@code volatile long}. Unlike {@link example.circuitbreaker.DefaultCircuitBreaker}, whose state is split between the
+ * current state reference, the failure counter of the Closed state and the trial flag of the Half-Open state, each
+ * admission, outcome and transition is a single compare-and-set of the word, and an outcome recorded after a
+ * transition is discarded by comparing the epoch of the word.
+ */
+public class AtomicCircuitBreaker extends WordCircuitBreaker {
+
+    private static final VarHandle WORD;
+
+    static {
+        try {
+            WORD = MethodHandles.lookup().findVarHandle(AtomicCircuitBreaker.class, "word", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long baseNanos = System.nanoTime();
+
+    @SuppressWarnings("unused") // accessed through WORD
+    private volatile long word;
+
+    /**
+     * Constructs an AtomicCircuitBreaker with the specified parameters.
+     *
+     * @param scheduledExecutorService the ScheduledExecutorService for executing the calls
+     * @param maxFailures              the maximum number of failures before opening the circuit, at most
+     *                                 {@link StateWord#MAX_FAILURES}
+     * @param invocationTimeout        the timeout duration for each invocation
+     * @param circuitResetTimeout      time interval after which the circuit attempts to close circuit
+     */
+    public AtomicCircuitBreaker(ScheduledExecutorService scheduledExecutorService, int maxFailures,
+                                Duration invocationTimeout, Duration circuitResetTimeout) {
+        this(new DefaultCircuitBreakerInvoker(scheduledExecutorService), maxFailures, invocationTimeout,
+                circuitResetTimeout);
+    }
+
+    /**
+     * @param invoker             the CircuitBreakerInvoker executing the calls
+     * @param maxFailures         the maximum number of failures before opening the circuit, at most
+     *                            {@link StateWord#MAX_FAILURES}
+     * @param invocationTimeout   the timeout duration for each invocation
+     * @param circuitResetTimeout time interval after which the circuit attempts to close circuit
+     */
+    public AtomicCircuitBreaker(CircuitBreakerInvoker invoker, int maxFailures, Duration invocationTimeout,
+                                Duration circuitResetTimeout) {
+        super(invoker, maxFailures, invocationTimeout, circuitResetTimeout);
+    }
+
+    @Override
+    protected long load() {
+        return (long) WORD.getVolatile(this);
+    }
+
+    @Override
+    protected boolean compareAndSet(long expected, long update) {
+        return WORD.compareAndSet(this, expected, update);
+    }
+
+    @Override
+    protected long now() {
+        return (System.nanoTime() - baseNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,95 @@
+package example.circuitbreaker.word;
+
+import example.circuitbreaker.CircuitState;
+
+/**
+ * Packs the whole state of a circuit breaker into a single {@code long}, so that admission, outcome recording and
+ * transitions are each a single compare-and-set.
+ * <pre>
+ * bits  0..1   state: 0 CLOSED, 1 OPEN, 2 HALF_OPEN
+ * bits  2..13  epoch, incremented on each transition, wraps around
+ * bits 14..23  failures counted in the Closed state
+ * bits 24..63  deadline, in milliseconds after a base time: end of the Open state, or of the Half-Open trial
+ * </pre>
+ * The zero word is a Closed circuit without failures, so zero-filled memory is a valid initial state.
+ */
+public final class StateWord {
+
+    public static final int MAX_FAILURES = (1 << 10) - 1;
+    public static final long MAX_DEADLINE = (1L << 40) - 1;
+
+    private static final int STATE_BITS = 2;
+    private static final int EPOCH_BITS = 12;
+    private static final int FAILURES_BITS = 10;
+    private static final int EPOCH_SHIFT = STATE_BITS;
+    private static final int FAILURES_SHIFT = EPOCH_SHIFT + EPOCH_BITS;
+    private static final int DEADLINE_SHIFT = FAILURES_SHIFT + FAILURES_BITS;
+    private static final long STATE_MASK = (1L << STATE_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+    private static final long FAILURES_MASK = (1L << FAILURES_BITS) - 1;
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    private StateWord() {
+    }
+
+    public static long closed(int epoch, int failures) {
+        return pack(CLOSED, epoch, failures, 0L);
+    }
+
+    public static long open(int epoch, long deadline) {
+        return pack(OPEN, epoch, 0, deadline);
+    }
+
+    public static long halfOpen(int epoch, long deadline) {
+        return pack(HALF_OPEN, epoch, 0, deadline);
+    }
+
+    public static CircuitState state(long word) {
+        switch ((int) (word & STATE_MASK)) {
+            case CLOSED:
+                return CircuitState.CLOSED;
+            case OPEN:
+                return CircuitState.OPEN;
+            default:
+                return CircuitState.HALF_OPEN;
+        }
+    }
+
+    public static boolean isClosed(long word) {
+        return (word & STATE_MASK) == CLOSED;
+    }
+
+    public static int epoch(long word) {
+        return (int) ((word >>> EPOCH_SHIFT) & EPOCH_MASK);
+    }
+
+    public static int nextEpoch(long word) {
+        return (int) ((epoch(word) + 1) & EPOCH_MASK);
+    }
+
+    public static int failures(long word) {
+        return (int) ((word >>> FAILURES_SHIFT) & FAILURES_MASK);
+    }
+
+    public static long deadline(long word) {
+        return word >>> DEADLINE_SHIFT;
+    }
+
+    /**
+     * @return whether both words belong to the same state and epoch, i.e. no transition happened in between
+     */
+    public static boolean sameEpoch(long word, long other) {
+        long mask = STATE_MASK | (EPOCH_MASK << EPOCH_SHIFT);
+        return (word & mask) == (other & mask);
+    }
+
+    private static long pack(int state, int epoch, int failures, long deadline) {
+        return state
+                | (epoch & EPOCH_MASK) << EPOCH_SHIFT
+                | (Math.min(failures, FAILURES_MASK)) << FAILURES_SHIFT
+                | Math.max(0L, Math.min(deadline, MAX_DEADLINE)) << DEADLINE_SHIFT;
+    }
+}
@@ -0,0 +1,393 @@
+package example.circuitbreaker.word;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.CircuitBreakerListener;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import example.circuitbreaker.states.CircuitBreakerState;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A circuit breaker whose whole state lives in a single {@link StateWord}, leaving the storage of the word to
+ * subclasses. Admission, outcome recording and transitions each take one compare-and-set on the word, and no lock.
+ * <p>
+ * An admitted call records its outcome against the state and epoch it was admitted in, an outcome arriving after a
+ * transition is discarded. The Open state has no timer: the first call after its deadline takes the trial request
+ * by moving the word to Half-Open, and a trial request that is not resolved by the end of the invocation timeout,
+ * e.g. because its process died, is taken over by the next call.
+ */
+public abstract class WordCircuitBreaker implements CircuitBreaker {
+
+    private final CircuitBreakerInvoker invoker;
+    private final int maxFailures;
+    private final Duration invocationTimeout;
+    private final long resetTimeoutMillis;
+    private final long trialTimeoutMillis;
+
+    // the state of the last admitted epoch, reused by every call of that epoch
+    private volatile EpochState admitted = new EpochState(StateWord.closed(0, 0));
+
+    private CircuitBreakerListener eventListener;
+
+    /**
+     * @param invoker           the CircuitBreakerInvoker executing the calls
+     * @param maxFailures       the maximum number of failures before opening the circuit, at most
+     *                          {@link StateWord#MAX_FAILURES}
+     * @param invocationTimeout the timeout duration for each invocation
+     * @param resetTimeout      time interval after which the circuit attempts to close circuit
+     */
+    protected WordCircuitBreaker(CircuitBreakerInvoker invoker, int maxFailures, Duration invocationTimeout,
+                                 Duration resetTimeout) {
+        if (maxFailures < 1 || maxFailures > StateWord.MAX_FAILURES) {
+            throw new IllegalArgumentException("Max failures must be within [1, " + StateWord.MAX_FAILURES + "]");
+        }
+        this.invoker = Objects.requireNonNull(invoker);
+        this.maxFailures = maxFailures;
+        this.invocationTimeout = Objects.requireNonNull(invocationTimeout);
+        this.resetTimeoutMillis = resetTimeout.toMillis();
+        this.trialTimeoutMillis = Math.max(1, invocationTimeout.toMillis());
+    }
+
+    /**
+     * @return the current state word
+     */
+    protected abstract long load();
+
+    /**
+     * Atomically replaces the state word if it is still the expected one.
+     */
+    protected abstract boolean compareAndSet(long expected, long update);
+
+    /**
+     * @return the current time, in milliseconds after the base time of the deadlines of the state word
+     */
+    protected abstract long now();
+
+    public CircuitBreakerListener getEventListener() {
+        return eventListener;
+    }
+
+    public void setEventListener(CircuitBreakerListener eventListener) {
+        this.eventListener = eventListener;
+    }
+
+    /**
+     * @return the current state. An Open state whose deadline has passed is reported open until a call takes the
+     * trial request.
+     */
+    public CircuitState getState() {
+        return StateWord.state(load());
+    }
+
+    public int getFailures() {
+        return StateWord.failures(load());
+    }
+
+    @Override
+    public void execute(Runnable action) {
+        if (action == null) {
+            throw new IllegalArgumentException("Action must not be null");
+        }
+        admit().invoke(action);
+    }
+
+    @Override
+    public <T> T execute(Supplier<T> func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invoke(func);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invokeAsync(func);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+        if (func == null || executor == null) {
+            throw new IllegalArgumentException("Func and executor must not be null");
+        }
+        return admit().invokeAsync(func, executor);
+    }
+
+    @Override
+    public int executeAsInt(IntSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invokeAsInt(func);
+    }
+
+    @Override
+    public long executeAsLong(LongSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invokeAsLong(func);
+    }
+
+    @Override
+    public double executeAsDouble(DoubleSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invokeAsDouble(func);
+    }
+
+    @Override
+    public boolean executeAsBoolean(BooleanSupplier func) {
+        if (func == null) {
+            throw new IllegalArgumentException("Func must not be null");
+        }
+        return admit().invokeAsBoolean(func);
+    }
+
+    @Override
+    public <T> List<Outcome<T>> executeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+        if (funcs == null || parallelism < 1) {
+            throw new IllegalArgumentException("Funcs must not be null and parallelism must be positive");
+        }
+        return funcs.isEmpty() ? List.of() : admit().invokeBatch(funcs, parallelism);
+    }
+
+    @Override
+    public <T> CompletableFuture<List<Outcome<T>>> executeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                   int parallelism) {
+        if (funcs == null || parallelism < 1) {
+            throw new IllegalArgumentException("Funcs must not be null and parallelism must be positive");
+        }
+        return funcs.isEmpty() ? CompletableFuture.completedFuture(List.of()) : admit().invokeAllAsync(funcs, parallelism);
+    }
+
+    private EpochState admit() {
+        for (; ; ) {
+            long word = load();
+            if (StateWord.isClosed(word)) {
+                return stateOf(word);
+            }
+            long now = now();
+            if (now < StateWord.deadline(word)) {
+                throw new CircuitBreakerOpenException();
+            }
+            // the Open state expired, or the trial request was lost: take the trial request
+            long trial = StateWord.halfOpen(StateWord.nextEpoch(word), now + trialTimeoutMillis);
+            if (compareAndSet(word, trial)) {
+                notifyTransition(trial);
+                return stateOf(trial);
+            }
+        }
+    }
+
+    private EpochState stateOf(long word) {
+        EpochState state = admitted;
+        if (!StateWord.sameEpoch(state.word, word)) {
+            state = new EpochState(word);
+            admitted = state;
+        }
+        return state;
+    }
+
+    private void recordSuccess(long admittedWord) {
+        long word;
+        while (StateWord.sameEpoch(word = load(), admittedWord)) {
+            if (StateWord.isClosed(word)) {
+                // no write at all while nothing is failing
+                if (StateWord.failures(word) == 0 || compareAndSet(word, StateWord.closed(StateWord.epoch(word), 0))) {
+                    return;
+                }
+            } else if (close(word)) {
+                return;
+            }
+        }
+    }
+
+    private void recordFailures(long admittedWord, int count) {
+        long word;
+        while (StateWord.sameEpoch(word = load(), admittedWord)) {
+            if (StateWord.isClosed(word)) {
+                int failures = StateWord.failures(word) + count;
+                if (failures >= maxFailures) {
+                    if (open(word)) {
+                        return;
+                    }
+                } else if (compareAndSet(word, StateWord.closed(StateWord.epoch(word), failures))) {
+                    return;
+                }
+            } else if (open(word)) {
+                return;
+            }
+        }
+    }
+
+    private boolean open(long word) {
+        long opened = StateWord.open(StateWord.nextEpoch(word), now() + resetTimeoutMillis);
+        if (compareAndSet(word, opened)) {
+            notifyTransition(opened);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean close(long word) {
+        long closed = StateWord.closed(StateWord.nextEpoch(word), 0);
+        if (compareAndSet(word, closed)) {
+            notifyTransition(closed);
+            return true;
+        }
+        return false;
+    }
+
+    private void notifyTransition(long word) {
+        CircuitBreakerListener listener = eventListener;
+        if (listener == null) {
+            return;
+        }
+        switch (StateWord.state(word)) {
+            case CLOSED:
+                listener.onCircuitClosed(this);
+                break;
+            case OPEN:
+                listener.onCircuitOpened(this);
+                break;
+            default:
+                listener.onCircuitHalfOpened(this);
+        }
+    }
+
+    /**
+     * The state of one epoch of the word: invokes the calls admitted in that epoch and records their outcomes
+     * against it.
+     */
+    private final class EpochState implements CircuitBreakerState {
+        private final long word;
+
+        EpochState(long word) {
+            this.word = word;
+        }
+
+        @Override
+        public void enter() {
+        }
+
+        @Override
+        public void invocationFails() {
+            recordFailures(word, 1);
+        }
+
+        @Override
+        public void invocationSucceeds() {
+            recordSuccess(word);
+        }
+
+        @Override
+        public void invocationsComplete(int successes, int failures) {
+            // a success resets the failures of a closed word, while a trial is decided by how the batch ends
+            if (successes > 0 && (failures == 0 || StateWord.isClosed(word))) {
+                recordSuccess(word);
+            }
+            if (failures > 0) {
+                recordFailures(word, failures);
+            }
+        }
+
+        @Override
+        public void saturated() {
+            recordFailures(word, maxFailures);
+        }
+
+        // a trial request that is not made expires at once, so that the next call takes it
+        @Override
+        public void invocationSkipped() {
+            if (!StateWord.isClosed(word)) {
+                compareAndSet(word, StateWord.halfOpen(StateWord.epoch(word), now()));
+            }
+        }
+
+        @Override
+        public void invoke(Runnable action) {
+            invoker.invokeThrough(this, action, invocationTimeout);
+        }
+
+        @Override
+        public <T> T invoke(Supplier<T> func) {
+            return invoker.invokeThrough(this, func, invocationTimeout);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func) {
+            return invoker.invokeThroughAsync(this, func, invocationTimeout);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> func, Executor executor) {
+            return invoker.invokeThroughAsync(this, func, invocationTimeout, executor);
+        }
+
+        @Override
+        public int invokeAsInt(IntSupplier func) {
+            return invoker.invokeAsIntThrough(this, func, invocationTimeout);
+        }
+
+        @Override
+        public long invokeAsLong(LongSupplier func) {
+            return invoker.invokeAsLongThrough(this, func, invocationTimeout);
+        }
+
+        @Override
+        public double invokeAsDouble(DoubleSupplier func) {
+            return invoker.invokeAsDoubleThrough(this, func, invocationTimeout);
+        }
+
+        @Override
+        public boolean invokeAsBoolean(BooleanSupplier func) {
+            return invoker.invokeAsBooleanThrough(this, func, invocationTimeout);
+        }
+
+        @Override
+        public <T> List<Outcome<T>> invokeBatch(List<? extends Supplier<T>> funcs, int parallelism) {
+            if (StateWord.isClosed(word)) {
+                return invoker.invokeBatchThrough(this, funcs, parallelism, invocationTimeout);
+            }
+            // only the first function of the batch is the trial request
+            return rejectRemainder(invoker.invokeBatchThrough(this, funcs.subList(0, 1), 1, invocationTimeout),
+                    funcs.size());
+        }
+
+        @Override
+        public <T> CompletableFuture<List<Outcome<T>>> invokeAllAsync(List<? extends Supplier<CompletableFuture<T>>> funcs,
+                                                                      int parallelism) {
+            if (StateWord.isClosed(word)) {
+                return invoker.invokeAllThroughAsync(this, funcs, parallelism, invocationTimeout);
+            }
+            return invoker.invokeAllThroughAsync(this, funcs.subList(0, 1), 1, invocationTimeout)
+                    .thenApply(trial -> rejectRemainder(trial, funcs.size()));
+        }
+    }
+
+    private static <T> List<Outcome<T>> rejectRemainder(List<Outcome<T>> trial, int batchSize) {
+        List<Outcome<T>> outcomes = new ArrayList<>(batchSize);
+        outcomes.addAll(trial);
+        for (int i = trial.size(); i < batchSize; i++) {
+            outcomes.add(Outcome.failure(new CircuitBreakerOpenException()));
+        }
+        return outcomes;
+    }
+}
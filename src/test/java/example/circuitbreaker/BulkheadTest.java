@@ -0,0 +1,132 @@
+package example.circuitbreaker;
+
+import example.circuitbreaker.exceptions.CircuitBreakerBulkheadFullException;
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+    private static final Duration TIMEOUT = Duration.ofMillis(300);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch running = new CountDownLatch(1);
+    // holds its thread until released, even once its caller timed out
+    private final Runnable blocking = () -> {
+        running.countDown();
+        boolean interrupted = false;
+        while (release.getCount() > 0) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    };
+    private ScheduledExecutorService executor;
+    private ExecutorService callers;
+    private DefaultCircuitBreaker sut;
+    private Bulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(1);
+        callers = Executors.newCachedThreadPool();
+        sut = new DefaultCircuitBreaker(executor, 3, TIMEOUT, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        executor.shutdownNow();
+        bulkhead.close();
+    }
+
+    @Test
+    void fullBulkheadRejectsWithoutCountingFailures() throws InterruptedException {
+        bulkhead = Bulkhead.builder("test").threads(1).queueCapacity(1).build();
+        sut.setBulkhead(bulkhead);
+        callers.submit(() -> sut.execute(blocking));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        callers.submit(() -> sut.execute(() -> {}));
+        awaitQueueDepth(1);
+
+        assertThrows(CircuitBreakerBulkheadFullException.class, () -> sut.execute(() -> {}));
+        assertEquals(1, bulkhead.getRejectedCalls());
+        assertEquals(1, sut.getMetrics().getRejectedCalls());
+        assertEquals(0, sut.getFailures());
+    }
+
+    @Test
+    void queueWaitCountsTowardTimeout() throws InterruptedException {
+        bulkhead = Bulkhead.builder("test").threads(1).queueCapacity(5).build();
+        sut.setBulkhead(bulkhead);
+        callers.submit(() -> sut.execute(blocking));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+
+        AtomicBoolean invoked = new AtomicBoolean();
+        long start = System.nanoTime();
+        assertThrows(CircuitBreakerTimeoutException.class, () -> sut.execute(() -> invoked.set(true)));
+        assertTrue(System.nanoTime() - start < TIMEOUT.toNanos() * 2);
+
+        // the abandoned call does not run once a thread is free
+        release.countDown();
+        sut.execute(() -> {});
+        assertFalse(invoked.get());
+    }
+
+    @Test
+    void queueDepthBeyondThresholdOpensTheCircuit() throws InterruptedException {
+        bulkhead = Bulkhead.builder("test").threads(1).queueCapacity(5).openOnQueueDepth(1).build();
+        sut.setBulkhead(bulkhead);
+        callers.submit(() -> sut.execute(blocking));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        callers.submit(() -> sut.execute(() -> {}));
+        awaitQueueDepth(1);
+        assertEquals(CircuitState.CLOSED, sut.getState());
+
+        CompletableFuture.runAsync(() -> sut.execute(() -> {}), callers);
+        awaitQueueDepth(2);
+        assertEquals(CircuitState.OPEN, sut.getState());
+    }
+
+    @Test
+    void queueWaitBeyondThresholdOpensTheCircuit() throws Exception {
+        bulkhead = Bulkhead.builder("test").threads(1).queueCapacity(5).openOnQueueWait(Duration.ofMillis(50))
+                .build();
+        sut.setBulkhead(bulkhead);
+        callers.submit(() -> sut.execute(blocking));
+        assertTrue(running.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> sut.execute(() -> {}), callers);
+        Thread.sleep(100);
+        release.countDown();
+
+        queued.get(1, TimeUnit.SECONDS);
+        assertEquals(CircuitState.OPEN, sut.getState());
+    }
+
+    private void awaitQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (bulkhead.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, bulkhead.getQueueDepth());
+    }
+}
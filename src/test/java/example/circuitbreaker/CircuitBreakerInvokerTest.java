@@ -1,5 +1,6 @@
 package example.circuitbreaker;
 
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
 import example.circuitbreaker.states.CircuitBreakerState;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -11,14 +12,19 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.never;
@@ -151,6 +157,165 @@ class CircuitBreakerInvokerTest {
                 verify(state).invocationSucceeds();
                 verify(state, never()).invocationFails();
             }
+
+            @Test
+            void outcomeIsRecordedBeforeCompletion() {
+                CompletableFuture<String> source = new CompletableFuture<>();
+                CompletableFuture<Void> continuation = sut.invokeThroughAsync(state, () -> source, TIMEOUT)
+                        .thenRun(() -> verify(state).invocationSucceeds());
+                source.complete("done");
+                assertDoesNotThrow(() -> continuation.get(100, TimeUnit.MILLISECONDS));
+            }
+
+            @Test
+            void timeoutCompletesOnGivenExecutor() throws Exception {
+                ExecutorService callbacks = Executors.newSingleThreadExecutor(r -> new Thread(r, "callbacks"));
+                try {
+                    CompletableFuture<Object> future = sut.invokeThroughAsync(state, CompletableFuture::new, TIMEOUT,
+                            callbacks);
+                    String thread = future.handle((result, failure) -> {
+                        assertInstanceOf(CircuitBreakerTimeoutException.class, failure);
+                        return Thread.currentThread().getName();
+                    }).get(1, TimeUnit.SECONDS);
+                    assertEquals("callbacks", thread);
+                    verify(state).invocationFails();
+                } finally {
+                    callbacks.shutdownNow();
+                }
+            }
+
+            @Test
+            void asyncStagesRunOnGivenExecutor() throws Exception {
+                ExecutorService callbacks = Executors.newSingleThreadExecutor(r -> new Thread(r, "callbacks"));
+                try {
+                    CompletableFuture<String> source = new CompletableFuture<>();
+                    CompletableFuture<String> thread = sut.invokeThroughAsync(state, () -> source, TIMEOUT, callbacks)
+                            .thenApply(result -> result)
+                            .thenApplyAsync(result -> Thread.currentThread().getName());
+                    source.complete("done");
+                    assertEquals("callbacks", thread.get(1, TimeUnit.SECONDS));
+                    verify(state).invocationSucceeds();
+                } finally {
+                    callbacks.shutdownNow();
+                }
+            }
+        }
+    }
+
+    @Nested
+    class CancellationTest {
+
+        @Mock
+        private CircuitBreakerState state;
+        private final CircuitBreakerMetrics metrics = new CircuitBreakerMetrics();
+        private final AtomicReference<Future<?>> cancelled = new AtomicReference<>();
+        private DefaultCircuitBreakerInvoker invoker;
+
+        @BeforeEach
+        void setUp() {
+            invoker = new DefaultCircuitBreakerInvoker(executor, "test", metrics);
+            invoker.setCancellationHook(cancelled::set);
+        }
+
+        @Test
+        void timedOutCallIgnoringInterruptIsCountedUntilItFinishes() throws InterruptedException {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch finished = new CountDownLatch(1);
+            assertThrows(CircuitBreakerTimeoutException.class, () -> invoker.invokeThrough(state, () -> {
+                awaitUninterruptibly(release);
+                finished.countDown();
+            }, TIMEOUT));
+
+            assertTrue(cancelled.get().isCancelled());
+            assertEquals(1, metrics.getAbandonedCalls());
+            assertEquals(1, metrics.getRunningAbandonedCalls());
+
+            release.countDown();
+            assertTrue(finished.await(1, TimeUnit.SECONDS));
+            // the executor thread records the end of the call right after the function returns
+            assertDoesNotThrow(() -> executor.submit(() -> null).get(1, TimeUnit.SECONDS));
+            assertEquals(1, metrics.getAbandonedCalls());
+            assertEquals(0, metrics.getRunningAbandonedCalls());
+        }
+
+        @Test
+        void timedOutCallHonouringInterruptIsInterrupted() throws Exception {
+            CountDownLatch interrupted = new CountDownLatch(1);
+            assertThrows(CircuitBreakerTimeoutException.class, () -> invoker.invokeThrough(state, () -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }, TIMEOUT));
+
+            assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+            assertDoesNotThrow(() -> executor.submit(() -> null).get(1, TimeUnit.SECONDS));
+            assertEquals(0, metrics.getRunningAbandonedCalls());
+        }
+
+        @Test
+        void timedOutFutureIsCancelled() throws Exception {
+            CompletableFuture<Object> source = new CompletableFuture<>();
+            CompletableFuture<Object> future = invoker.invokeThroughAsync(state, () -> source, TIMEOUT);
+
+            Exception failure = assertThrows(Exception.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(CircuitBreakerTimeoutException.class, failure.getCause());
+            assertTrue(source.isCancelled());
+            assertSame(source, cancelled.get());
+            assertEquals(1, metrics.getAbandonedCalls());
+            assertEquals(0, metrics.getRunningAbandonedCalls());
+        }
+
+        @Test
+        void futureIgnoringCancellationIsCountedUntilItCompletes() {
+            CompletableFuture<Object> source = new CompletableFuture<>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return false;
+                }
+            };
+            CompletableFuture<Object> future = invoker.invokeThroughAsync(state, () -> source, TIMEOUT);
+
+            assertThrows(Exception.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertSame(source, cancelled.get());
+            assertEquals(1, metrics.getAbandonedCalls());
+            assertEquals(1, metrics.getRunningAbandonedCalls());
+
+            source.complete("late");
+            assertEquals(0, metrics.getRunningAbandonedCalls());
+        }
+
+        @Test
+        void futureIgnoringCancellationOnNoBudgetIsCountedUntilItCompletes() {
+            CompletableFuture<Object> source = new CompletableFuture<>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return false;
+                }
+            };
+            CompletableFuture<Object> future = invoker.invokeThroughAsync(state, () -> source, Duration.ZERO);
+
+            assertThrows(Exception.class, () -> future.get(1, TimeUnit.SECONDS));
+            assertEquals(1, metrics.getRunningAbandonedCalls());
+
+            source.complete("late");
+            assertEquals(0, metrics.getRunningAbandonedCalls());
+        }
+
+        private void awaitUninterruptibly(CountDownLatch latch) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
     }
-}
\ No newline at end of file
+}
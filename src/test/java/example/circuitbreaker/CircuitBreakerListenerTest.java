@@ -15,6 +15,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import static org.junit.jupiter.api.Assertions.assertThrowsExactly;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @ExtendWith(MockitoExtension.class)
@@ -63,4 +64,31 @@ class CircuitBreakerListenerTest {
         inOrder.verifyNoMoreInteractions();
         verifyNoMoreInteractions(listener);
     }
-}
\ No newline at end of file
+
+    @Test
+    void notifyAddedListeners(@Mock CircuitBreakerListener other) {
+        sut.addEventListener(other);
+        try {
+            sut.execute(throwAction);
+        } catch (Exception ignored) {
+        }
+        verify(listener).onCircuitOpened(eq(sut));
+        verify(other).onCircuitOpened(eq(sut));
+
+        sut.removeEventListener(other);
+        sut.tripOpen();
+        verifyNoMoreInteractions(other);
+    }
+
+    @Test
+    void notifyDisabled() {
+        sut.forceOpen();
+        sut.disable();
+        sut.disable();
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onCircuitOpened(eq(sut));
+        inOrder.verify(listener).onCircuitDisabled(eq(sut));
+        verifyNoMoreInteractions(listener);
+    }
+}
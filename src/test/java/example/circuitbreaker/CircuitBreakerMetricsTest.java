@@ -0,0 +1,59 @@
+package example.circuitbreaker;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerMetricsTest {
+    private final CircuitBreakerMetrics sut = new CircuitBreakerMetrics();
+
+    @Test
+    void countCalls() {
+        sut.recordSuccess(1_000);
+        sut.recordFailure(1_000);
+        sut.recordTimeout();
+        sut.recordRejection();
+        sut.recordOutcomes(3, 2);
+
+        assertEquals(4, sut.getSuccessfulCalls());
+        assertEquals(3, sut.getFailedCalls());
+        assertEquals(1, sut.getTimeouts());
+        assertEquals(1, sut.getRejectedCalls());
+    }
+
+    @Test
+    void latencyPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            sut.recordSuccess(Duration.ofMillis(i).toNanos());
+        }
+
+        assertWithinBucket(Duration.ofMillis(50), sut.getLatencyPercentile(50));
+        assertWithinBucket(Duration.ofMillis(99), sut.getLatencyPercentile(99));
+        assertWithinBucket(Duration.ofMillis(100), sut.getLatencyPercentile(100));
+    }
+
+    @Test
+    void noLatencyRecorded() {
+        assertEquals(Duration.ZERO, sut.getLatencyPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> sut.getLatencyPercentile(101));
+    }
+
+    @Test
+    void bucketsCoverEveryLatency() {
+        for (long micros = 0; micros < 1 << 20; micros += 7) {
+            int bucket = CircuitBreakerMetrics.bucketOf(micros);
+            assertTrue(micros <= CircuitBreakerMetrics.latencyUpperBoundMicros(bucket));
+            assertTrue(bucket == 0 || micros > CircuitBreakerMetrics.latencyUpperBoundMicros(bucket - 1));
+        }
+        assertEquals(CircuitBreakerMetrics.bucketOf(Long.MAX_VALUE), CircuitBreakerMetrics.bucketOf(1L << 40));
+    }
+
+    private static void assertWithinBucket(Duration expected, Duration actual) {
+        assertTrue(actual.compareTo(expected) >= 0, () -> actual + " < " + expected);
+        assertTrue(actual.toNanos() <= expected.toNanos() * 1.25, () -> actual + " > 1.25 * " + expected);
+    }
+}
@@ -1,20 +1,34 @@
 package example.circuitbreaker;
 
+import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
 import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
 import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CircuitBreakerTest {
     private static final int MAX_FAILURES = 3;
@@ -193,4 +207,383 @@ public class CircuitBreakerTest {
             assertDoesNotThrow(() -> sut.executeAsync(anySupplier).join());
         }
     }
+
+    @Nested
+    class ExecuteBatchTest {
+        //@formatter:off
+        private final Supplier<String> anyFunc = () -> "OK";
+        private final Supplier<String> throwFunc = () -> {throw new RuntimeException();};
+        private final Supplier<String> timeoutFunc = () -> {
+            try {
+                Thread.sleep(INVOKE_TIMEOUT.toMillis() * 3);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "late";
+        };
+        //@formatter:on
+
+        @Test
+        void successfulExecution() {
+            List<Outcome<String>> outcomes = sut.executeBatch(List.of(anyFunc, anyFunc, anyFunc), 2);
+            assertEquals(3, outcomes.size());
+            outcomes.forEach(outcome -> assertEquals("OK", outcome.getValue()));
+        }
+
+        @Test
+        void partialFailures() {
+            List<Outcome<String>> outcomes = sut.executeBatch(List.of(anyFunc, throwFunc, anyFunc), 3);
+            assertTrue(outcomes.get(0).isSuccess());
+            assertTrue(outcomes.get(1).isFailure());
+            assertTrue(outcomes.get(2).isSuccess());
+            assertDoesNotThrow(() -> sut.execute(anyFunc));
+        }
+
+        @Test
+        void timeouts() {
+            List<Outcome<String>> outcomes = sut.executeBatch(List.of(timeoutFunc), 1);
+            assertInstanceOf(CircuitBreakerTimeoutException.class, outcomes.get(0).getFailure());
+        }
+
+        @Test
+        void errorFailsItsItemOnly() {
+            Supplier<String> errorFunc = () -> {throw new AssertionError();};
+            List<Outcome<String>> outcomes = sut.executeBatch(List.of(errorFunc, anyFunc, anyFunc), 1);
+            assertInstanceOf(CircuitBreakerExecutionException.class, outcomes.get(0).getFailure());
+            assertInstanceOf(AssertionError.class, outcomes.get(0).getFailure().getCause());
+            assertEquals("OK", outcomes.get(1).getValue());
+            assertEquals("OK", outcomes.get(2).getValue());
+        }
+
+        @Test
+        void onlyConsecutiveFailuresCount() {
+            List<Supplier<String>> funcs = new ArrayList<>();
+            for (int i = 0; i < MAX_FAILURES * 2; i++) {
+                funcs.add(throwFunc);
+                funcs.add(anyFunc);
+            }
+            sut.executeBatch(funcs, 1);
+            assertDoesNotThrow(() -> sut.execute(anyFunc));
+        }
+
+        @Test
+        void failuresRecordedInBulk() {
+            List<Outcome<String>> outcomes = sut.executeBatch(List.of(throwFunc, throwFunc, throwFunc), 1);
+            assertTrue(outcomes.stream().allMatch(Outcome::isFailure));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.execute(anyFunc));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.executeBatch(List.of(anyFunc), 1));
+        }
+
+        @Test
+        void invalidArguments() {
+            assertThrows(IllegalArgumentException.class, () -> sut.executeBatch(null, 1));
+            assertThrows(IllegalArgumentException.class, () -> sut.executeBatch(List.of(anyFunc), 0));
+            assertEquals(List.of(), sut.executeBatch(List.<Supplier<String>>of(), 1));
+        }
+    }
+
+    @Nested
+    class ExecuteAllAsyncTest {
+        //@formatter:off
+        private final Supplier<CompletableFuture<String>> anySupplier = () -> CompletableFuture.supplyAsync(() -> "OK", executor);
+        private final Supplier<CompletableFuture<String>> failedSupplier = () -> CompletableFuture.failedFuture(new RuntimeException());
+        private final Supplier<CompletableFuture<String>> throwSupplier = () -> {throw new RuntimeException();};
+        //@formatter:on
+
+        @Test
+        void successfulExecution() {
+            List<Outcome<String>> outcomes = sut.executeAllAsync(List.of(anySupplier, anySupplier, anySupplier), 2).join();
+            assertEquals(3, outcomes.size());
+            outcomes.forEach(outcome -> assertEquals("OK", outcome.getValue()));
+        }
+
+        @Test
+        void partialFailures() {
+            List<Outcome<String>> outcomes = sut.executeAllAsync(List.of(anySupplier, failedSupplier, throwSupplier), 2)
+                    .join();
+            assertTrue(outcomes.get(0).isSuccess());
+            assertTrue(outcomes.get(1).isFailure());
+            assertTrue(outcomes.get(2).isFailure());
+        }
+
+        @Test
+        void failuresRecordedInBulk() {
+            sut.executeAllAsync(List.of(failedSupplier, failedSupplier, failedSupplier), 3).join();
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.executeAllAsync(List.of(anySupplier), 1));
+        }
+    }
+
+    @Nested
+    class ManualControlTest {
+        //@formatter:off
+        private final Supplier<String> anyFunc = () -> "OK";
+        private final Supplier<String> throwFunc = () -> {throw new RuntimeException();};
+        //@formatter:on
+        private DefaultCircuitBreaker breaker;
+
+        @BeforeEach
+        void setUp() {
+            breaker = (DefaultCircuitBreaker) sut;
+        }
+
+        @Test
+        void forceOpenNeverResets() throws InterruptedException {
+            breaker.forceOpen();
+            assertEquals(CircuitState.FORCED_OPEN, breaker.getState());
+            Thread.sleep(RESET_TIMEOUT.toMillis() + 100);
+            assertThrows(CircuitBreakerOpenException.class, () -> breaker.execute(anyFunc));
+            assertEquals(1, breaker.getMetrics().getRejectedCalls());
+        }
+
+        @Test
+        void forceCloseOpenCircuit() {
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertThrows(Exception.class, () -> breaker.execute(throwFunc));
+            }
+            assertEquals(CircuitState.OPEN, breaker.getState());
+
+            breaker.forceClose();
+            assertEquals(CircuitState.CLOSED, breaker.getState());
+            assertEquals(0, breaker.getFailures());
+            assertEquals("OK", breaker.execute(anyFunc));
+        }
+
+        @Test
+        void disabledIgnoresFailures() {
+            breaker.disable();
+            for (int i = 0; i < MAX_FAILURES * 2; i++) {
+                assertThrows(Exception.class, () -> breaker.execute(throwFunc));
+            }
+            assertEquals(CircuitState.DISABLED, breaker.getState());
+            assertEquals("OK", breaker.execute(anyFunc));
+            assertEquals(MAX_FAILURES * 2, breaker.getMetrics().getFailedCalls());
+        }
+
+        @Test
+        void deferResetSaturates() {
+            breaker.deferReset(Duration.ofSeconds(Long.MAX_VALUE));
+            breaker.tripOpen();
+            assertEquals(Long.MAX_VALUE, breaker.snapshot().getOpenUntilMillis());
+        }
+    }
+
+    @Nested
+    class ClassifierTest {
+        //@formatter:off
+        private final Supplier<String> invalidFunc = () -> {throw new IllegalArgumentException();};
+        private final Supplier<Integer> unavailableFunc = () -> 503;
+        private final Supplier<CompletableFuture<Integer>> unavailableSupplier = () -> CompletableFuture.completedFuture(503);
+        //@formatter:on
+        private DefaultCircuitBreaker breaker;
+
+        @BeforeEach
+        void setUp() {
+            FailureClassifier classifier = FailureClassifier.builder()
+                    .ignoreExceptions(IllegalArgumentException.class)
+                    .recordResult(result -> Integer.valueOf(503).equals(result))
+                    .build();
+            breaker = new DefaultCircuitBreaker("classified", executor, MAX_FAILURES, INVOKE_TIMEOUT,
+                    ResetTimeoutPolicy.fixed(RESET_TIMEOUT), classifier);
+        }
+
+        @Test
+        void ignoredExceptionsDoNotOpen() {
+            for (int i = 0; i < MAX_FAILURES * 2; i++) {
+                CircuitBreakerExecutionException e = assertThrows(CircuitBreakerExecutionException.class,
+                        () -> breaker.execute(invalidFunc));
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+            assertEquals(CircuitState.CLOSED, breaker.getState());
+        }
+
+        @Test
+        void failedResultsOpen() {
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertEquals(503, breaker.execute(unavailableFunc));
+            }
+            assertThrows(CircuitBreakerOpenException.class, () -> breaker.execute(unavailableFunc));
+        }
+
+        @Test
+        void failedAsyncResultsOpen() {
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertEquals(503, breaker.executeAsync(unavailableSupplier).join());
+            }
+            assertThrows(CircuitBreakerOpenException.class, () -> breaker.executeAsync(unavailableSupplier));
+        }
+
+        @Test
+        void timeoutsOpenWhateverTheRecordedExceptions() {
+            DefaultCircuitBreaker restrictive = new DefaultCircuitBreaker("restrictive", executor, MAX_FAILURES,
+                    INVOKE_TIMEOUT, ResetTimeoutPolicy.fixed(RESET_TIMEOUT), FailureClassifier.builder()
+                    .recordExceptions(IOException.class)
+                    .build());
+            Supplier<String> hangingFunc = () -> {
+                try {
+                    Thread.sleep(INVOKE_TIMEOUT.toMillis() + 100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "late";
+            };
+            assertThrows(CircuitBreakerTimeoutException.class, () -> restrictive.execute(hangingFunc));
+            for (int i = 1; i < MAX_FAILURES; i++) {
+                CompletableFuture<String> pending = restrictive.executeAsync(CompletableFuture::new);
+                CompletionException e = assertThrows(CompletionException.class, pending::join);
+                assertInstanceOf(CircuitBreakerTimeoutException.class, e.getCause());
+            }
+            assertEquals(CircuitState.OPEN, restrictive.getState());
+        }
+
+        @Test
+        void classifyBatchOutcomes() {
+            List<Outcome<Integer>> outcomes = breaker.executeBatch(List.of(unavailableFunc, unavailableFunc,
+                    unavailableFunc), 3);
+            assertTrue(outcomes.stream().allMatch(Outcome::isSuccess));
+            assertEquals(CircuitState.OPEN, breaker.getState());
+        }
+    }
+
+    @Nested
+    class ExecutePrimitiveTest {
+        private static final int CALLS = 20_000;
+        //@formatter:off
+        private final IntSupplier throwFunc = () -> {throw new RuntimeException();};
+        //@formatter:on
+
+        @Test
+        void successfulExecution() {
+            assertEquals(1_000_000, sut.executeAsInt(() -> 1_000_000));
+            assertEquals(Long.MIN_VALUE, sut.executeAsLong(() -> Long.MIN_VALUE));
+            assertEquals(-0.5, sut.executeAsDouble(() -> -0.5));
+            assertTrue(sut.executeAsBoolean(() -> true));
+            assertFalse(sut.executeAsBoolean(() -> false));
+        }
+
+        @Test
+        void failures() {
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertThrows(Exception.class, () -> sut.executeAsInt(throwFunc));
+            }
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.executeAsLong(() -> 1L));
+        }
+
+        @Test
+        void timeouts() {
+            assertThrows(CircuitBreakerTimeoutException.class, () -> sut.executeAsDouble(() -> {
+                try {
+                    Thread.sleep(INVOKE_TIMEOUT.toMillis() + 100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1.0;
+            }));
+        }
+
+        @Test
+        void resultsAreNotBoxed() {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            // runs the calls on the calling thread, so that their allocations are measured without the noise of
+            // a worker thread parking in between
+            ScheduledExecutorService inline = new ScheduledThreadPoolExecutor(1) {
+                @Override
+                public <V> Future<V> submit(Callable<V> task) {
+                    FutureTask<V> future = new FutureTask<>(task);
+                    future.run();
+                    return future;
+                }
+            };
+            try {
+                DefaultCircuitBreaker breaker = new DefaultCircuitBreaker(inline, MAX_FAILURES, INVOKE_TIMEOUT,
+                        RESET_TIMEOUT);
+                int[] next = {1_000_000};
+                Supplier<Integer> boxed = () -> next[0]++;
+                IntSupplier primitive = () -> next[0]++;
+                // warm up both paths so that the measured calls run compiled code
+                for (int i = 0; i < CALLS; i++) {
+                    breaker.execute(boxed);
+                    breaker.executeAsInt(primitive);
+                }
+
+                long before = threads.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < CALLS; i++) {
+                    breaker.execute(boxed);
+                }
+                long boxedBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+                before = threads.getCurrentThreadAllocatedBytes();
+                for (int i = 0; i < CALLS; i++) {
+                    breaker.executeAsInt(primitive);
+                }
+                long primitiveBytes = threads.getCurrentThreadAllocatedBytes() - before;
+
+                assertTrue(boxedBytes - primitiveBytes >= 16L * CALLS,
+                        () -> "boxed " + boxedBytes / CALLS + " B/call, primitive " + primitiveBytes / CALLS + " B/call");
+            } finally {
+                inline.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    class ReconfigureTest {
+        //@formatter:off
+        private final Runnable throwAction = () -> {throw new RuntimeException();};
+        //@formatter:on
+        private final CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .maxFailures(MAX_FAILURES)
+                .invocationTimeout(INVOKE_TIMEOUT)
+                .resetTimeout(RESET_TIMEOUT)
+                .build();
+        private DefaultCircuitBreaker breaker;
+
+        @BeforeEach
+        void setUp() {
+            breaker = new DefaultCircuitBreaker("reconfigured", executor, config);
+        }
+
+        @Test
+        void lowerThresholdAppliesToTheCountedFailures() {
+            assertThrows(Exception.class, () -> breaker.execute(throwAction));
+            assertThrows(Exception.class, () -> breaker.execute(throwAction));
+
+            breaker.reconfigure(config.toBuilder().maxFailures(MAX_FAILURES + 10).build());
+            assertThrows(Exception.class, () -> breaker.execute(throwAction));
+            assertEquals(CircuitState.CLOSED, breaker.getState());
+            assertEquals(3, breaker.getFailures());
+
+            breaker.reconfigure(config.toBuilder().maxFailures(2).build());
+            assertThrows(Exception.class, () -> breaker.execute(throwAction));
+            assertEquals(CircuitState.OPEN, breaker.getState());
+        }
+
+        @Test
+        void newTimeoutAppliesToTheNextCall() {
+            Runnable slowAction = () -> {
+                try {
+                    Thread.sleep(INVOKE_TIMEOUT.toMillis() + 50);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            assertThrows(CircuitBreakerTimeoutException.class, () -> breaker.execute(slowAction));
+
+            breaker.reconfigure(config.toBuilder().invocationTimeout(INVOKE_TIMEOUT.multipliedBy(5)).build());
+            assertDoesNotThrow(() -> breaker.execute(slowAction));
+            assertEquals(INVOKE_TIMEOUT.multipliedBy(5), breaker.getConfig().getInvocationTimeout());
+        }
+
+        @Test
+        void stripedFailureCounter() {
+            DefaultCircuitBreaker striped = new DefaultCircuitBreaker("striped", executor,
+                    config.toBuilder().failureCounterStripes(4).build());
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertThrows(Exception.class, () -> striped.execute(throwAction));
+            }
+            assertEquals(CircuitState.OPEN, striped.getState());
+
+            assertThrows(IllegalArgumentException.class, () -> striped.reconfigure(config));
+            assertThrows(IllegalArgumentException.class, () -> CircuitBreakerConfig.builder().maxFailures(0));
+        }
+    }
 }
@@ -0,0 +1,112 @@
+package example.circuitbreaker;
+
+import example.circuitbreaker.exceptions.CircuitBreakerDeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    @AfterEach
+    void noDeadlineLeaks() {
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    void nestedDeadlineOnlyNarrows() {
+        try (Deadline.Scope ignored = Deadline.within(Duration.ofMillis(500))) {
+            Deadline outer = Deadline.current();
+            try (Deadline.Scope ignored2 = Deadline.within(Duration.ofSeconds(10))) {
+                assertSame(outer, Deadline.current());
+            }
+            try (Deadline.Scope ignored2 = Deadline.within(Duration.ofMillis(100))) {
+                assertTrue(Deadline.current().remainingNanos() <= TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            assertSame(outer, Deadline.current());
+        }
+    }
+
+    @Test
+    void expiredDeadline() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+        assertTrue(deadline.isExpired());
+        assertFalse(Deadline.after(Duration.ofSeconds(1)).isExpired());
+        assertFalse(Deadline.after(Duration.ofSeconds(Long.MAX_VALUE)).isExpired());
+    }
+
+    @Nested
+    class NestedBreakersTest {
+        private static final Duration TIMEOUT = Duration.ofSeconds(1);
+        private ScheduledExecutorService executor;
+        private DefaultCircuitBreaker outer;
+        private DefaultCircuitBreaker inner;
+
+        @BeforeEach
+        void setUp() {
+            executor = Executors.newScheduledThreadPool(2);
+            outer = new DefaultCircuitBreaker("outer", executor, 3, TIMEOUT, ResetTimeoutPolicy.fixed(TIMEOUT));
+            inner = new DefaultCircuitBreaker("inner", executor, 3, TIMEOUT, ResetTimeoutPolicy.fixed(TIMEOUT));
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        void deadlineSurvivesTheExecutorHop() {
+            Deadline seen = outer.execute(() -> inner.execute(Deadline::current));
+            assertNotNull(seen);
+            assertTrue(seen.remainingNanos() <= TIMEOUT.toNanos());
+        }
+
+        @Test
+        void invocationIsNarrowedToTheCallerBudget() {
+            Duration remaining;
+            try (Deadline.Scope ignored = Deadline.within(Duration.ofMillis(200))) {
+                remaining = outer.execute(() -> Deadline.current().remaining());
+            }
+            assertTrue(remaining.compareTo(Duration.ofMillis(200)) <= 0);
+        }
+
+        @Test
+        void failsFastBelowTheFloor() {
+            inner.setDeadlineFloor(Duration.ofMillis(100));
+            AtomicBoolean invoked = new AtomicBoolean();
+            try (Deadline.Scope ignored = Deadline.within(Duration.ofMillis(50))) {
+                assertThrows(CircuitBreakerDeadlineExceededException.class,
+                        () -> inner.execute(() -> invoked.set(true)));
+                assertThrows(CircuitBreakerDeadlineExceededException.class,
+                        () -> inner.executeAsync(() -> CompletableFuture.completedFuture(1)));
+            }
+            assertFalse(invoked.get());
+            assertEquals(0, inner.getFailures());
+            assertEquals(0, inner.getMetrics().getFailedCalls());
+        }
+
+        @Test
+        void failsFastOnceTheDeadlinePassed() throws InterruptedException {
+            try (Deadline.Scope ignored = Deadline.within(Duration.ofMillis(10))) {
+                Thread.sleep(20);
+                assertThrows(CircuitBreakerDeadlineExceededException.class, () -> inner.executeAsInt(() -> 1));
+            }
+            assertEquals(1, inner.executeAsInt(() -> 1));
+        }
+    }
+}
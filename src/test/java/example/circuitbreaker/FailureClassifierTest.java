@@ -0,0 +1,78 @@
+package example.circuitbreaker;
+
+import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FailureClassifierTest {
+
+    @Test
+    void recordAllByDefault() {
+        FailureClassifier sut = FailureClassifier.recordAll();
+        assertTrue(sut.isFailure(new RuntimeException()));
+        assertTrue(sut.isFailure(new CircuitBreakerTimeoutException("Invocation time out")));
+        assertFalse(sut.isFailureResult(null));
+        assertFalse(sut.isFailureResult(503));
+    }
+
+    @Test
+    void ignoreExceptionsAndSubtypes() {
+        FailureClassifier sut = FailureClassifier.builder()
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build();
+        assertFalse(sut.isFailure(new IllegalArgumentException()));
+        assertFalse(sut.isFailure(new NumberFormatException()));
+        assertTrue(sut.isFailure(new IllegalStateException()));
+    }
+
+    @Test
+    void recordOnlyGivenExceptions() {
+        FailureClassifier sut = FailureClassifier.builder()
+                .recordExceptions(IOException.class, UncheckedIOException.class)
+                .ignoreExceptions(FileNotFoundException.class)
+                .build();
+        assertTrue(sut.isFailure(new IOException()));
+        assertTrue(sut.isFailure(new UncheckedIOException(new IOException())));
+        assertFalse(sut.isFailure(new FileNotFoundException()));
+        assertFalse(sut.isFailure(new RuntimeException()));
+    }
+
+    @Test
+    void timeoutsAreAlwaysFailures() {
+        FailureClassifier sut = FailureClassifier.builder()
+                .recordExceptions(IOException.class)
+                .ignoreExceptions(RuntimeException.class)
+                .build();
+        assertTrue(sut.isFailure(new CircuitBreakerTimeoutException("Invocation time out")));
+        assertTrue(sut.isFailure(new CompletionException(new CircuitBreakerTimeoutException("Invocation time out"))));
+    }
+
+    @Test
+    void classifyWrappedCause() {
+        FailureClassifier sut = FailureClassifier.builder()
+                .ignoreExceptions(IllegalArgumentException.class)
+                .build();
+        assertFalse(sut.isFailure(new CircuitBreakerExecutionException("Invocation execution failed",
+                new IllegalArgumentException())));
+        assertFalse(sut.isFailure(new CompletionException(new IllegalArgumentException())));
+        assertTrue(sut.isFailure(new CompletionException(new IllegalStateException())));
+    }
+
+    @Test
+    void recordResults() {
+        FailureClassifier sut = FailureClassifier.builder()
+                .recordResult(result -> Integer.valueOf(503).equals(result))
+                .build();
+        assertTrue(sut.isFailureResult(503));
+        assertFalse(sut.isFailureResult(200));
+        assertFalse(sut.isFailureResult(null));
+    }
+}
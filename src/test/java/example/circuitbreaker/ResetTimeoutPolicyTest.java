@@ -0,0 +1,54 @@
+package example.circuitbreaker;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResetTimeoutPolicyTest {
+    private static final Duration INITIAL = Duration.ofSeconds(1);
+    private static final Duration MAX = Duration.ofSeconds(60);
+
+    @Test
+    void fixedPolicy() {
+        ResetTimeoutPolicy sut = ResetTimeoutPolicy.fixed(INITIAL);
+        assertEquals(INITIAL, sut.resetTimeout(1));
+        assertEquals(INITIAL, sut.resetTimeout(100));
+    }
+
+    @Nested
+    class ExponentialPolicy {
+
+        @Test
+        void growsAndCaps() {
+            ResetTimeoutPolicy sut = ResetTimeoutPolicy.exponential(INITIAL, 2.0, MAX, 0.0);
+            assertEquals(Duration.ofSeconds(1), sut.resetTimeout(1));
+            assertEquals(Duration.ofSeconds(2), sut.resetTimeout(2));
+            assertEquals(Duration.ofSeconds(32), sut.resetTimeout(6));
+            assertEquals(MAX, sut.resetTimeout(7));
+            assertEquals(MAX, sut.resetTimeout(Integer.MAX_VALUE));
+        }
+
+        @Test
+        void jitterShortensWithinBounds() {
+            ResetTimeoutPolicy sut = ResetTimeoutPolicy.exponential(INITIAL, 2.0, MAX, 0.5);
+            for (int i = 0; i < 1000; i++) {
+                Duration timeout = sut.resetTimeout(3);
+                assertTrue(timeout.compareTo(Duration.ofSeconds(2)) >= 0, "timeout too short: " + timeout);
+                assertTrue(timeout.compareTo(Duration.ofSeconds(4)) <= 0, "timeout too long: " + timeout);
+            }
+        }
+
+        @Test
+        void invalidArguments() {
+            assertThrows(IllegalArgumentException.class, () -> ResetTimeoutPolicy.exponential(Duration.ZERO, 2.0, MAX, 0));
+            assertThrows(IllegalArgumentException.class, () -> ResetTimeoutPolicy.exponential(INITIAL, 0.5, MAX, 0));
+            assertThrows(IllegalArgumentException.class, () -> ResetTimeoutPolicy.exponential(MAX, 2.0, INITIAL, 0));
+            assertThrows(IllegalArgumentException.class, () -> ResetTimeoutPolicy.exponential(INITIAL, 2.0, MAX, 1.5));
+        }
+    }
+}
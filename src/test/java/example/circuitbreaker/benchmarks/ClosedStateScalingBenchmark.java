@@ -0,0 +1,128 @@
+package example.circuitbreaker.benchmarks;
+
+import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.states.CircuitBreakerState;
+import example.circuitbreaker.states.ClosedCircuitBreakerState;
+import example.circuitbreaker.states.StripedClosedCircuitBreakerState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the outcome recording of the Closed state as the number of calling threads grows: the former counter
+ * writing 0 on every success, the counter skipping the redundant writes, and the striped counter. The calls succeed,
+ * except one in {@code failureEvery} when it is not 0, and the threshold is never reached.
+ * <p>
+ * Run it from the test classpath after {@code mvn test-compile}, through {@link #main(String[])} to print the
+ * throughput from 1 to 64 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClosedStateScalingBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    @Param({"unconditional", "skipping", "striped"})
+    public String counter;
+
+    @Param({"0", "1000"})
+    public int failureEvery;
+
+    private CircuitBreakerState state;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CircuitBreakerSwitch switcher = new NoopSwitch();
+        switch (counter) {
+            case "unconditional":
+                state = new UnconditionalClosedState(switcher);
+                break;
+            case "skipping":
+                state = new ClosedCircuitBreakerState(switcher, null, Integer.MAX_VALUE, Duration.ofSeconds(1));
+                break;
+            default:
+                state = new StripedClosedCircuitBreakerState(switcher, null, Integer.MAX_VALUE, Duration.ofSeconds(1));
+        }
+    }
+
+    @Benchmark
+    public void recordOutcome() {
+        if (failureEvery != 0 && ThreadLocalRandom.current().nextInt(failureEvery) == 0) {
+            state.invocationFails();
+        } else {
+            state.invocationSucceeds();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        StringBuilder curve = new StringBuilder(String.format("%-14s %-13s", "counter", "failureEvery"));
+        for (int threads : THREADS) {
+            curve.append(String.format(" %10s", threads + " thr"));
+        }
+        for (String counter : new String[]{"unconditional", "skipping", "striped"}) {
+            for (String failureEvery : new String[]{"0", "1000"}) {
+                curve.append(String.format("%n%-14s %-13s", counter, failureEvery));
+                for (int threads : THREADS) {
+                    Collection<RunResult> results = new Runner(new OptionsBuilder()
+                            .include(ClosedStateScalingBenchmark.class.getSimpleName())
+                            .param("counter", counter)
+                            .param("failureEvery", failureEvery)
+                            .threads(threads)
+                            .build()).run();
+                    double opsPerMicro = results.iterator().next().getPrimaryResult().getScore();
+                    curve.append(String.format(" %10.1f", opsPerMicro));
+                }
+            }
+        }
+        System.out.println("ops/us");
+        System.out.println(curve);
+    }
+
+    // the Closed state as it was, writing 0 on every successful call
+    private static final class UnconditionalClosedState extends ClosedCircuitBreakerState {
+        UnconditionalClosedState(CircuitBreakerSwitch switcher) {
+            super(switcher, null, Integer.MAX_VALUE, Duration.ofSeconds(1));
+        }
+
+        @Override
+        protected void resetFailures() {
+            getFailures().set(0);
+        }
+    }
+
+    private static final class NoopSwitch implements CircuitBreakerSwitch {
+        @Override
+        public void openCircuit(CircuitBreakerState from) {
+        }
+
+        @Override
+        public void attemptToCloseCircuit(CircuitBreakerState from) {
+        }
+
+        @Override
+        public void closeCircuit(CircuitBreakerState from) {
+        }
+    }
+}
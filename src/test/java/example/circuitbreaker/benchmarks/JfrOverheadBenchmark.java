@@ -0,0 +1,83 @@
+package example.circuitbreaker.benchmarks;
+
+import example.circuitbreaker.DefaultCircuitBreaker;
+import jdk.jfr.Recording;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the JFR events on the call path, with no recording, with a recording in which the
+ * circuit breaker events are disabled, and with a recording in which they are enabled.
+ * <p>
+ * Run it from the test classpath after {@code mvn test-compile}, e.g. through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JfrOverheadBenchmark {
+
+    @Param({"none", "disabled", "enabled"})
+    public String recording;
+
+    private ScheduledExecutorService executor;
+    private DefaultCircuitBreaker circuitBreaker;
+    private Recording jfr;
+
+    private final CompletableFuture<String> completed = CompletableFuture.completedFuture("ok");
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        circuitBreaker = new DefaultCircuitBreaker(executor, 5, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        if (!"none".equals(recording)) {
+            jfr = new Recording();
+            if ("enabled".equals(recording)) {
+                jfr.enable("example.circuitbreaker.Call").withThreshold(Duration.ZERO);
+                jfr.enable("example.circuitbreaker.Transition");
+                jfr.enable("example.circuitbreaker.Rejection");
+                jfr.enable("example.circuitbreaker.Timeout");
+            }
+            jfr.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (jfr != null) {
+            jfr.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public CompletableFuture<String> executeAsync() {
+        return circuitBreaker.executeAsync(() -> completed);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JfrOverheadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package example.circuitbreaker.benchmarks;
+
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.pipeline.ResiliencePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compares a {@link ResiliencePipeline} of a cache, retries and a breaker with the same policies nested as lambdas
+ * around {@link DefaultCircuitBreaker#execute(Supplier)} on each call, on cache hits and, without a cache, on calls
+ * going through the breaker.
+ * <p>
+ * Run it from the test classpath after {@code mvn test-compile}, e.g. through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long TTL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    @Param({"hit", "miss"})
+    public String cache;
+
+    public String key = "ACME";
+
+    private final Function<String, Integer> loader = String::length;
+    // value and expiry time, as the pipeline's cache
+    private final Map<String, Object[]> naiveCache = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+    private DefaultCircuitBreaker circuitBreaker;
+    private ResiliencePipeline<String, Integer> pipeline;
+    private boolean cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        circuitBreaker = new DefaultCircuitBreaker(executor, 5, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        cached = "hit".equals(cache);
+        ResiliencePipeline.Builder builder = ResiliencePipeline.builder(circuitBreaker)
+                .retry(MAX_ATTEMPTS, Duration.ZERO);
+        if (cached) {
+            builder.cache(Duration.ofNanos(TTL_NANOS), 1_000);
+        }
+        pipeline = builder.build(loader);
+        pipeline.get(key);
+        naive();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Integer pipeline() {
+        return pipeline.get(key);
+    }
+
+    @Benchmark
+    public Integer naive() {
+        String k = key;
+        Supplier<Integer> guarded = () -> retry(() -> circuitBreaker.execute(() -> loader.apply(k)));
+        return cached ? cached(k, guarded) : guarded.get();
+    }
+
+    private Integer cached(String k, Supplier<Integer> call) {
+        Object[] entry = naiveCache.get(k);
+        if (entry != null && System.nanoTime() - (long) entry[1] < 0) {
+            return (Integer) entry[0];
+        }
+        Integer value = call.get();
+        naiveCache.put(k, new Object[]{value, System.nanoTime() + TTL_NANOS});
+        return value;
+    }
+
+    private static <T> T retry(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PipelineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
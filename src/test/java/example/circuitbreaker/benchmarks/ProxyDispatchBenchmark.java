@@ -0,0 +1,78 @@
+package example.circuitbreaker.benchmarks;
+
+import example.circuitbreaker.proxy.CircuitBreakerProxy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the dispatch of the {@link CircuitBreakerProxy} without a breaker, against a direct call and against a
+ * proxy calling the implementation through {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * Run it from the test classpath after {@code mvn test-compile}, e.g. through {@link #main(String[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyDispatchBenchmark {
+
+    public interface Pricing {
+        long price(String sku, int quantity);
+    }
+
+    private Pricing direct;
+    private Pricing proxied;
+    private Pricing reflective;
+
+    public String sku = "sku-1";
+    public int quantity = 3;
+
+    @Setup
+    public void setUp() {
+        direct = (sku, quantity) -> sku.length() * (long) quantity;
+        proxied = CircuitBreakerProxy.create(Pricing.class, direct, name -> {
+            throw new IllegalStateException("Unguarded interface");
+        });
+        Pricing target = direct;
+        InvocationHandler handler = (proxy, method, args) -> method.invoke(target, args);
+        reflective = (Pricing) Proxy.newProxyInstance(Pricing.class.getClassLoader(), new Class<?>[]{Pricing.class},
+                handler);
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.price(sku, quantity);
+    }
+
+    @Benchmark
+    public long methodHandleProxy() {
+        return proxied.price(sku, quantity);
+    }
+
+    @Benchmark
+    public long reflectiveProxy() {
+        return reflective.price(sku, quantity);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProxyDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
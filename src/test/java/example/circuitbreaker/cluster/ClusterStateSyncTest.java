@@ -0,0 +1,116 @@
+package example.circuitbreaker.cluster;
+
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs several nodes gossiping over the loopback interface.
+ */
+class ClusterStateSyncTest {
+    private static final int NODES = 3;
+    private static final int QUORUM = 2;
+    private static final int MAX_FAILURES = 2;
+    private static final Duration TICK = Duration.ofMillis(20);
+    private static final Duration TIMEOUT = Duration.ofMillis(200);
+    private static final ResetTimeoutPolicy RESET_TIMEOUT = ResetTimeoutPolicy.fixed(Duration.ofMinutes(1));
+    //@formatter:off
+    private final Runnable throwAction = () -> {throw new RuntimeException();};
+    //@formatter:on
+    private final List<ClusterStateSync> syncs = new ArrayList<>();
+    private final List<DefaultCircuitBreaker> breakers = new ArrayList<>();
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newScheduledThreadPool(2);
+        List<UdpGossipTransport> transports = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            transports.add(new UdpGossipTransport(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), TICK));
+        }
+        for (UdpGossipTransport transport : transports) {
+            for (UdpGossipTransport peer : transports) {
+                if (peer != transport) {
+                    transport.addPeer(peer.getLocalAddress());
+                }
+            }
+            ClusterStateSync sync = new ClusterStateSync(transport, QUORUM, Duration.ofSeconds(1));
+            DefaultCircuitBreaker breaker = new DefaultCircuitBreaker("database", executor, MAX_FAILURES, TIMEOUT,
+                    RESET_TIMEOUT);
+            sync.bind(breaker);
+            syncs.add(sync);
+            breakers.add(breaker);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        syncs.forEach(ClusterStateSync::close);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void openOnceQuorumOfNodesReportOpen() throws InterruptedException {
+        trip(breakers.get(0));
+        Thread.sleep(TICK.toMillis() * 5);
+        assertEquals(CircuitState.CLOSED, breakers.get(2).getState(), "a single node is below the quorum");
+
+        trip(breakers.get(1));
+        assertTrue(await(() -> breakers.get(2).getState() == CircuitState.OPEN));
+    }
+
+    @Test
+    void disabledBreakerWithdrawsItsReport() throws InterruptedException {
+        trip(breakers.get(0));
+        breakers.get(0).disable();
+        Thread.sleep(TICK.toMillis() * 5);
+
+        trip(breakers.get(1));
+        Thread.sleep(TICK.toMillis() * 5);
+        assertEquals(CircuitState.CLOSED, breakers.get(2).getState(), "a disabled breaker is not counted as open");
+    }
+
+    @Test
+    void unboundBreakerIsNotAffected() throws InterruptedException {
+        syncs.get(2).unbind(breakers.get(2));
+        trip(breakers.get(0));
+        trip(breakers.get(1));
+        Thread.sleep(TICK.toMillis() * 5);
+        assertEquals(CircuitState.CLOSED, breakers.get(2).getState());
+    }
+
+    private void trip(DefaultCircuitBreaker breaker) {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> breaker.execute(throwAction));
+        }
+        assertEquals(CircuitState.OPEN, breaker.getState());
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+}
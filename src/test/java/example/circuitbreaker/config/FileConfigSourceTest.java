@@ -0,0 +1,135 @@
+package example.circuitbreaker.config;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileConfigSourceTest {
+    private final CircuitBreakerConfig base = CircuitBreakerConfig.builder()
+            .maxFailures(5)
+            .invocationTimeout(Duration.ofSeconds(1))
+            .build();
+    @TempDir
+    Path dir;
+    private Path file;
+    private ScheduledExecutorService executor;
+    private CircuitBreakerRegistry registry;
+    private DefaultCircuitBreaker inventory;
+    private DefaultCircuitBreaker payments;
+
+    @BeforeEach
+    void setUp() {
+        file = dir.resolve("breakers.properties");
+        executor = Executors.newScheduledThreadPool(1);
+        registry = new CircuitBreakerRegistry();
+        inventory = registry.register(new DefaultCircuitBreaker("inventory", executor, base));
+        payments = registry.register(new DefaultCircuitBreaker("payments", executor, base));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void breakerSettingsOverrideTheDefaults() throws IOException {
+        write("maxFailures=8\ninvocationTimeout=PT2S\ninventory.maxFailures=3\ninventory.resetTimeout=500\n");
+        new FileConfigSource(file, registry).reload();
+
+        assertEquals(3, inventory.getConfig().getMaxFailures());
+        assertEquals(Duration.ofMillis(500), inventory.getConfig().getResetTimeoutPolicy().resetTimeout(1));
+        assertEquals(8, payments.getConfig().getMaxFailures());
+        assertEquals(Duration.ofSeconds(2), payments.getConfig().getInvocationTimeout());
+    }
+
+    @Test
+    void resetTimeoutBackoffIsSetFromFile() throws IOException {
+        write("resetTimeout=PT1S\nresetTimeoutMultiplier=2\nmaxResetTimeout=PT3S\npayments.resetTimeout=500\n");
+        new FileConfigSource(file, registry).reload();
+
+        ResetTimeoutPolicy policy = inventory.getConfig().getResetTimeoutPolicy();
+        assertEquals(Duration.ofSeconds(1), policy.resetTimeout(1));
+        assertEquals(Duration.ofSeconds(2), policy.resetTimeout(2));
+        assertEquals(Duration.ofSeconds(3), policy.resetTimeout(3));
+        assertEquals(Duration.ofMillis(1000), payments.getConfig().getResetTimeoutPolicy().resetTimeout(2));
+    }
+
+    @Test
+    void fileWithoutResetTimeoutKeepsBackoff() throws IOException {
+        ResetTimeoutPolicy backoff = ResetTimeoutPolicy.exponential(Duration.ofSeconds(1), 2.0, Duration.ofMinutes(1),
+                0.0);
+        inventory.reconfigure(base.toBuilder().resetTimeoutPolicy(backoff).build());
+        write("maxFailures=8\n");
+        new FileConfigSource(file, registry).reload();
+
+        assertEquals(8, inventory.getConfig().getMaxFailures());
+        assertSame(backoff, inventory.getConfig().getResetTimeoutPolicy());
+    }
+
+    @Test
+    void incompleteBackoffIsNotApplied() throws IOException {
+        write("resetTimeout=PT1S\nresetTimeoutMultiplier=2\n");
+        FileConfigSource source = new FileConfigSource(file, registry);
+
+        assertThrows(IllegalArgumentException.class, source::reload);
+    }
+
+    @Test
+    void invalidFileIsNotApplied() throws IOException {
+        write("maxFailures=8\npayments.invocationTimeout=soon\n");
+        FileConfigSource source = new FileConfigSource(file, registry);
+
+        assertThrows(IllegalArgumentException.class, source::reload);
+        assertEquals(5, inventory.getConfig().getMaxFailures());
+        assertEquals(5, payments.getConfig().getMaxFailures());
+    }
+
+    @Test
+    void configForBreakerCreatedLater() throws IOException {
+        write("maxFailures=8\n");
+        FileConfigSource source = new FileConfigSource(file, registry);
+        source.reload();
+
+        assertEquals(8, source.configFor("orders", base).getMaxFailures());
+    }
+
+    @Test
+    void changedFileIsReloaded() throws Exception {
+        write("maxFailures=8\n");
+        try (FileConfigSource source = new FileConfigSource(file, registry)) {
+            source.start();
+            assertEquals(8, inventory.getConfig().getMaxFailures());
+
+            write("maxFailures=13\n");
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (inventory.getConfig().getMaxFailures() != 13 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(13, inventory.getConfig().getMaxFailures());
+            assertEquals(13, payments.getConfig().getMaxFailures());
+        }
+    }
+
+    // replaces the file atomically, as a deployment would
+    private void write(String content) throws IOException {
+        Path temp = Files.writeString(dir.resolve("breakers.tmp"), content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,172 @@
+package example.circuitbreaker.dashboard;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardStreamTest {
+    private static final int MAX_FAILURES = 2;
+    //@formatter:off
+    private final Supplier<String> anyFunc = () -> "OK";
+    private final Supplier<String> throwFunc = () -> {throw new RuntimeException();};
+    //@formatter:on
+    private ScheduledExecutorService executor;
+    private CircuitBreakerRegistry registry;
+    private DashboardStream sut;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(1);
+        registry = new CircuitBreakerRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (sut != null) {
+            sut.close();
+        }
+        executor.shutdownNow();
+    }
+
+    @Test
+    void renderRollingStats() {
+        sut = new DashboardStream(registry, Duration.ofSeconds(1), 5, 4);
+        DefaultCircuitBreaker payments = registry.register(newBreaker("payments \"eu\""));
+        DefaultCircuitBreaker inventory = registry.register(newBreaker("inventory"));
+
+        sut.render(0);
+        payments.execute(anyFunc);
+        payments.execute(anyFunc);
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> inventory.execute(throwFunc));
+        }
+        String event = new String(sut.render(Duration.ofSeconds(1).toNanos()), StandardCharsets.UTF_8);
+
+        assertTrue(event.startsWith("data: {"));
+        assertTrue(event.endsWith("}\n\n"));
+        assertTrue(event.contains("{\"name\":\"payments \\\"eu\\\"\",\"state\":\"CLOSED\",\"failures\":0,"
+                + "\"successRate\":2.00,\"failureRate\":0.00"), event);
+        assertTrue(event.contains("{\"name\":\"inventory\",\"state\":\"OPEN\",\"failures\":2,"
+                + "\"successRate\":0.00,\"failureRate\":2.00"), event);
+    }
+
+    @Test
+    void latenciesLeaveWithWindow() {
+        sut = new DashboardStream(registry, Duration.ofSeconds(1), 2, 4);
+        DefaultCircuitBreaker payments = registry.register(newBreaker("payments"));
+        payments.execute(anyFunc);
+
+        sut.render(0);
+        payments.execute(anyFunc);
+        String withCall = new String(sut.render(Duration.ofSeconds(1).toNanos()), StandardCharsets.UTF_8);
+        sut.render(Duration.ofSeconds(2).toNanos());
+        String withoutCall = new String(sut.render(Duration.ofSeconds(3).toNanos()), StandardCharsets.UTF_8);
+
+        assertFalse(withCall.contains("\"latencyP50Millis\":0,"), withCall);
+        assertTrue(withoutCall.contains("\"latencyP50Millis\":0,\"latencyP90Millis\":0,\"latencyP99Millis\":0"),
+                withoutCall);
+    }
+
+    @Test
+    void streamToClients() throws Exception {
+        sut = new DashboardStream(registry, Duration.ofMillis(50), 10, 4);
+        registry.register(newBreaker("payments"));
+        sut.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + sut.getAddress().getPort() + "/stream"))
+                .build();
+        HttpResponse<Stream<String>> first = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        HttpResponse<Stream<String>> second = client.send(request, HttpResponse.BodyHandlers.ofLines());
+
+        assertEquals("text/event-stream; charset=utf-8", first.headers().firstValue("Content-Type").orElse(null));
+        for (HttpResponse<Stream<String>> response : List.of(first, second)) {
+            try (Stream<String> lines = response.body()) {
+                String event = lines.filter(line -> line.startsWith("data: ")).findFirst().orElseThrow();
+                assertTrue(event.contains("\"name\":\"payments\",\"state\":\"CLOSED\""), event);
+            }
+        }
+    }
+
+    @Test
+    void dropSlowClients() throws Exception {
+        sut = new DashboardStream(registry, Duration.ofHours(1), 1, 2);
+        for (int i = 0; i < 500; i++) {
+            registry.register(newBreaker("breaker-" + i));
+        }
+        sut.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        try (Socket slow = new Socket()) {
+            slow.setReceiveBufferSize(4096);
+            slow.connect(sut.getAddress());
+            OutputStream out = slow.getOutputStream();
+            out.write("GET /stream HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (sut.getClientCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, sut.getClientCount());
+
+            // the client never reads, so its pending events pile up until it is dropped
+            for (int i = 0; i < 200 && sut.getClientCount() > 0; i++) {
+                sut.tick();
+            }
+            assertEquals(0, sut.getClientCount());
+
+            // the thread blocked writing to it is released, and closes the connection
+            slow.setSoTimeout(5_000);
+            InputStream in = slow.getInputStream();
+            byte[] buffer = new byte[65_536];
+            while (in.read(buffer) != -1) {
+                // drain what was sent before the drop
+            }
+        }
+    }
+
+    @Test
+    void turnAwayClientsBeyondMax() throws Exception {
+        sut = new DashboardStream(registry, Duration.ofMillis(50), 10, 4, 1);
+        sut.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + sut.getAddress().getPort() + "/stream"))
+                .build();
+        HttpResponse<Stream<String>> first = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        HttpResponse<Void> second = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(200, first.statusCode());
+        assertEquals(503, second.statusCode());
+        first.body().close();
+    }
+
+    private DefaultCircuitBreaker newBreaker(String name) {
+        return new DefaultCircuitBreaker(name, executor, MAX_FAILURES, Duration.ofSeconds(1),
+                ResetTimeoutPolicy.fixed(Duration.ofMinutes(1)));
+    }
+}
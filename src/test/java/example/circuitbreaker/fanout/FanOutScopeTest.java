@@ -0,0 +1,172 @@
+package example.circuitbreaker.fanout;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.Outcome;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FanOutScopeTest {
+    private static final int MAX_FAILURES = 2;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    //@formatter:off
+    private final Supplier<String> failing = () -> {throw new IllegalStateException();};
+    //@formatter:on
+    private final CountDownLatch never = new CountDownLatch(1);
+    private final Supplier<String> blocking = () -> {
+        try {
+            never.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "late";
+    };
+    private ScheduledExecutorService breakerExecutor;
+    private ExecutorService forkExecutor;
+    private DefaultCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breakerExecutor = Executors.newScheduledThreadPool(4);
+        forkExecutor = Executors.newCachedThreadPool();
+        breaker = new DefaultCircuitBreaker("fan-out", breakerExecutor, MAX_FAILURES, TIMEOUT,
+                ResetTimeoutPolicy.fixed(TIMEOUT));
+    }
+
+    @AfterEach
+    void tearDown() {
+        never.countDown();
+        forkExecutor.shutdownNow();
+        breakerExecutor.shutdownNow();
+    }
+
+    @Test
+    void allSucceedReturnsEveryOutcomeInForkOrder() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.allSucceed())) {
+            scope.fork(() -> "a");
+            scope.fork(() -> "b");
+            scope.fork(() -> "c");
+            List<Outcome<String>> outcomes = scope.join();
+
+            assertTrue(scope.isSatisfied());
+            assertEquals(List.of("a", "b", "c"), outcomes.stream().map(Outcome::getValue).toList());
+        }
+    }
+
+    @Test
+    void firstFailureCancelsSiblingsWithoutCountingThem() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.allSucceed())) {
+            scope.fork(blocking);
+            scope.fork(failing);
+            List<Outcome<String>> outcomes = scope.join();
+
+            assertFalse(scope.isSatisfied());
+            assertInstanceOf(CancellationException.class, outcomes.get(0).getFailure());
+            assertTrue(outcomes.get(1).isFailure());
+        }
+        assertEquals(1, breaker.getFailures());
+    }
+
+    @Test
+    void errorOfSubtaskSettlesIt() {
+        CircuitBreaker errant = mock(CircuitBreaker.class);
+        when(errant.execute(ArgumentMatchers.<Supplier<String>>any())).thenThrow(new StackOverflowError());
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (FanOutScope<String> scope = FanOutScope.open(errant, forkExecutor, FanOutPolicy.allSucceed())) {
+                scope.fork(() -> "a");
+                List<Outcome<String>> outcomes = scope.join();
+
+                assertFalse(scope.isSatisfied());
+                assertInstanceOf(StackOverflowError.class, outcomes.get(0).getFailure());
+            }
+        });
+    }
+
+    @Test
+    void rejectedSubtaskIsSettled() {
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            try (FanOutScope<String> scope = FanOutScope.open(breaker, stopped, FanOutPolicy.allSucceed())) {
+                assertThrows(RejectedExecutionException.class, () -> scope.fork(() -> "a"));
+                List<Outcome<String>> outcomes = scope.join();
+
+                assertFalse(scope.isSatisfied());
+                assertInstanceOf(RejectedExecutionException.class, outcomes.get(0).getFailure());
+            }
+        });
+    }
+
+    @Test
+    void quorumCancelsTheRemainingSubtasks() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.quorum(2))) {
+            scope.fork(() -> "a");
+            scope.fork(blocking);
+            scope.fork(() -> "c");
+            List<Outcome<String>> outcomes = scope.join();
+
+            assertTrue(scope.isSatisfied());
+            assertInstanceOf(CancellationException.class, outcomes.get(1).getFailure());
+        }
+    }
+
+    @Test
+    void unreachableQuorumShutsDown() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.quorum(3))) {
+            scope.fork(blocking);
+            scope.fork(blocking);
+            scope.fork(failing);
+            List<Outcome<String>> outcomes = scope.join();
+
+            assertFalse(scope.isSatisfied());
+            assertEquals(2, outcomes.stream().filter(o -> o.getFailure() instanceof CancellationException).count());
+        }
+    }
+
+    @Test
+    void openingCircuitCancelsSiblings() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.quorum(1))) {
+            scope.fork(blocking);
+            scope.fork(failing);
+            scope.fork(failing);
+            List<Outcome<String>> outcomes = scope.join();
+
+            assertEquals(CircuitState.OPEN, breaker.getState());
+            assertInstanceOf(CancellationException.class, outcomes.get(0).getFailure());
+        }
+    }
+
+    @Test
+    void forkAfterJoinIsRejected() throws InterruptedException {
+        try (FanOutScope<String> scope = FanOutScope.open(breaker, forkExecutor, FanOutPolicy.allSucceed())) {
+            scope.join();
+            assertThrows(IllegalStateException.class, () -> scope.fork(() -> "a"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> FanOutPolicy.quorum(0));
+    }
+}
@@ -0,0 +1,130 @@
+package example.circuitbreaker.flow;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.Outcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerProcessorTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration RESET_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration RETRY_INTERVAL = Duration.ofMillis(20);
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void processAllElementsWithinMaxConcurrency() throws InterruptedException {
+        int maxConcurrency = 4;
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CircuitBreaker breaker = new DefaultCircuitBreaker(executor, 3, TIMEOUT, RESET_TIMEOUT);
+        Function<Integer, CompletableFuture<Integer>> func = i -> CompletableFuture.supplyAsync(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(5);
+            running.decrementAndGet();
+            return i * 2;
+        }, executor);
+
+        CollectingSubscriber<Integer> subscriber = run(breaker, func, maxConcurrency, 50);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(50, subscriber.outcomes.size());
+        assertTrue(subscriber.outcomes.stream().allMatch(Outcome::isSuccess));
+        assertTrue(maxRunning.get() <= maxConcurrency, "max running: " + maxRunning.get());
+    }
+
+    @Test
+    void openCircuitPausesInsteadOfFailingElements() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        CircuitBreaker breaker = new DefaultCircuitBreaker(executor, 1, TIMEOUT, RESET_TIMEOUT);
+        // the first call fails and opens the circuit, later calls succeed
+        Function<Integer, CompletableFuture<Integer>> func = i -> calls.getAndIncrement() == 0
+                ? CompletableFuture.failedFuture(new IllegalStateException("down"))
+                : CompletableFuture.completedFuture(i);
+
+        CollectingSubscriber<Integer> subscriber = run(breaker, func, 1, 10);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.outcomes.size());
+        assertEquals(1, subscriber.outcomes.stream().filter(Outcome::isFailure).count());
+        assertEquals(10, calls.get());
+    }
+
+    private CollectingSubscriber<Integer> run(CircuitBreaker breaker, Function<Integer, CompletableFuture<Integer>> func,
+                                              int maxConcurrency, int elements) {
+        CircuitBreakerProcessor<Integer, Integer> sut =
+                new CircuitBreakerProcessor<>(breaker, func, maxConcurrency, executor, RETRY_INTERVAL);
+        CollectingSubscriber<Integer> subscriber = new CollectingSubscriber<>();
+        sut.subscribe(subscriber);
+
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>(executor, 16);
+        publisher.subscribe(sut);
+        CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < elements; i++) {
+                publisher.submit(i);
+            }
+            publisher.close();
+        });
+        return subscriber;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class CollectingSubscriber<R> implements Flow.Subscriber<Outcome<R>> {
+        private final List<Outcome<R>> outcomes = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Outcome<R> item) {
+            outcomes.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package example.circuitbreaker.health;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HealthAggregatorTest {
+    private static final Duration RESET_TIMEOUT = Duration.ofMillis(50);
+
+    private ScheduledExecutorService executor;
+    private DefaultCircuitBreaker database;
+    private DefaultCircuitBreaker reviews;
+    private DefaultCircuitBreaker recommendations;
+    private DefaultCircuitBreaker search;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        database = breaker("database");
+        reviews = breaker("reviews");
+        recommendations = breaker("recommendations");
+        search = breaker("search");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private DefaultCircuitBreaker breaker(String name) {
+        return new DefaultCircuitBreaker(name, executor, CircuitBreakerConfig.builder()
+                .resetTimeout(RESET_TIMEOUT)
+                .build());
+    }
+
+    private HealthAggregator aggregator() {
+        return HealthAggregator.builder()
+                .critical(database)
+                .weighted(reviews, 1)
+                .weighted(recommendations, 1)
+                .weighted(search, 2)
+                .downBelow(0.5)
+                .build();
+    }
+
+    @Test
+    void closedCircuitsAreUp() {
+        try (HealthAggregator health = aggregator()) {
+            assertEquals(HealthStatus.UP, health.getStatus());
+            assertEquals(1.0, health.getAvailability());
+        }
+    }
+
+    @Test
+    void unavailableCriticalDependencyIsDown() {
+        try (HealthAggregator health = aggregator()) {
+            database.forceOpen();
+            assertEquals(HealthStatus.DOWN, health.getStatus());
+            assertEquals(1, health.getUnavailableCritical());
+
+            database.forceClose();
+            assertEquals(HealthStatus.UP, health.getStatus());
+        }
+    }
+
+    @Test
+    void unavailableWeightDegradesThenTakesDown() {
+        try (HealthAggregator health = aggregator()) {
+            search.forceOpen();
+            assertEquals(HealthStatus.DEGRADED, health.getStatus());
+            assertEquals(0.5, health.getAvailability());
+
+            reviews.forceOpen();
+            assertEquals(HealthStatus.DOWN, health.getStatus());
+            assertEquals(0.25, health.getAvailability());
+        }
+    }
+
+    @Test
+    void halfOpenCircuitStaysUnavailableUntilClosed() throws InterruptedException {
+        try (HealthAggregator health = aggregator()) {
+            reviews.tripOpen();
+            while (reviews.getState() != CircuitState.HALF_OPEN) {
+                Thread.sleep(10);
+            }
+            assertEquals(HealthStatus.DEGRADED, health.getStatus());
+
+            reviews.execute(() -> "trial");
+            assertEquals(HealthStatus.UP, health.getStatus());
+        }
+    }
+
+    @Test
+    void disabledCircuitIsAvailable() {
+        try (HealthAggregator health = aggregator()) {
+            database.forceOpen();
+            assertEquals(HealthStatus.DOWN, health.getStatus());
+
+            database.disable();
+            assertEquals(HealthStatus.UP, health.getStatus());
+            assertEquals(0, health.getUnavailableCritical());
+        }
+    }
+
+    @Test
+    void openCircuitAtBuildIsCounted() {
+        search.forceOpen();
+        try (HealthAggregator health = aggregator()) {
+            assertEquals(HealthStatus.DEGRADED, health.getStatus());
+        }
+    }
+
+    @Test
+    void closedAggregatorStopsObserving() {
+        HealthAggregator health = aggregator();
+        health.close();
+
+        database.forceOpen();
+
+        assertEquals(HealthStatus.UP, health.getStatus());
+    }
+
+    @Test
+    void rejectsDuplicateMembers() {
+        HealthAggregator.Builder builder = HealthAggregator.builder().critical(database);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.weighted(database, 1));
+        assertThrows(IllegalArgumentException.class, () -> builder.weighted(reviews, 0));
+    }
+}
@@ -0,0 +1,183 @@
+package example.circuitbreaker.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CircuitBreakerHttpClientTest {
+    private static final int MAX_FAILURES = 2;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ScheduledExecutorService scheduler;
+    private CircuitBreakerHttpClient client;
+    private String host;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, "ok"));
+        server.createContext("/unavailable", exchange -> respond(exchange, 503, "down"));
+        server.createContext("/throttled", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", "120");
+            respond(exchange, 429, "slow down");
+        });
+        server.createContext("/gone-for-ages", exchange -> {
+            exchange.getResponseHeaders().add("Retry-After", String.valueOf(Long.MAX_VALUE));
+            respond(exchange, 503, "down");
+        });
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        host = "127.0.0.1:" + server.getAddress().getPort();
+
+        scheduler = Executors.newScheduledThreadPool(2);
+        client = new CircuitBreakerHttpClient(HttpClient.newHttpClient(), registry, scheduler, config());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    private static CircuitBreakerConfig config() {
+        return CircuitBreakerConfig.builder()
+                .maxFailures(MAX_FAILURES)
+                .invocationTimeout(Duration.ofSeconds(5))
+                .resetTimeout(Duration.ofSeconds(1))
+                .build();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        requests.incrementAndGet();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> get(String path) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + host + path)).build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void sendsThroughBreakerOfHost() throws Exception {
+        HttpResponse<String> response = get("/ok").get();
+
+        assertEquals("ok", response.body());
+        assertEquals(1, registry.get(host).getMetrics().getSuccessfulCalls());
+    }
+
+    @Test
+    void failureStatusIsReturnedAndOpensCircuit() throws Exception {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertEquals(503, get("/unavailable").get().statusCode());
+        }
+        DefaultCircuitBreaker breaker = registry.get(host);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> get("/ok").get());
+        assertInstanceOf(CircuitBreakerOpenException.class, thrown.getCause());
+        assertEquals(MAX_FAILURES, requests.get());
+    }
+
+    @Test
+    void retryAfterKeepsCircuitOpen() throws Exception {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertEquals(429, get("/throttled").get().statusCode());
+        }
+
+        DefaultCircuitBreaker breaker = registry.get(host);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        // far beyond the reset timeout of 1 second
+        assertTrue(breaker.snapshot().getOpenUntilMillis() > System.currentTimeMillis() + 100_000);
+    }
+
+    @Test
+    void retryAfterIsCapped() throws Exception {
+        client = new CircuitBreakerHttpClient(HttpClient.newHttpClient(), registry, scheduler, config(),
+                Duration.ofSeconds(10));
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertEquals(503, get("/gone-for-ages").get().statusCode());
+        }
+
+        DefaultCircuitBreaker breaker = registry.get(host);
+        assertEquals(CircuitState.OPEN, breaker.getState());
+        assertTrue(breaker.snapshot().getOpenUntilMillis() <= System.currentTimeMillis() + 10_000);
+    }
+
+    @Test
+    void retryAfterAcceptsHttpDate() {
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(2));
+        @SuppressWarnings("unchecked")
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of("Retry-After", List.of(date)), (name, value) -> true));
+
+        Optional<Duration> retryAfter = CircuitBreakerHttpClient.retryAfter(response);
+
+        assertTrue(retryAfter.isPresent());
+        assertTrue(retryAfter.get().compareTo(Duration.ofSeconds(100)) > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void timeoutCancelsExchangeInFlight() {
+        CompletableFuture<HttpResponse<String>> exchange = new CompletableFuture<>();
+        HttpClient pending = mock(HttpClient.class);
+        when(pending.sendAsync(any(), any(HttpResponse.BodyHandler.class))).thenReturn(exchange);
+        client = new CircuitBreakerHttpClient(pending, registry, scheduler, config().toBuilder()
+                .invocationTimeout(Duration.ofMillis(100))
+                .build());
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> get("/ok").get());
+
+        assertInstanceOf(CircuitBreakerTimeoutException.class, thrown.getCause());
+        assertTrue(exchange.isCancelled());
+    }
+}
@@ -0,0 +1,132 @@
+package example.circuitbreaker.jfr;
+
+import example.circuitbreaker.CircuitBreakerSnapshot;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import example.circuitbreaker.exceptions.CircuitBreakerTimeoutException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerEventsTest {
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+    //@formatter:off
+    private final Supplier<String> slowFunc = () -> {
+        try {Thread.sleep(500);} catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        return "late";
+    };
+    //@formatter:on
+    @TempDir
+    Path dir;
+    private ScheduledExecutorService executor;
+    private DefaultCircuitBreaker sut;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        sut = new DefaultCircuitBreaker("payments", executor, 1, TIMEOUT, ResetTimeoutPolicy.fixed(Duration.ofMinutes(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void recordEnabledEvents() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("example.circuitbreaker.Transition");
+            recording.enable("example.circuitbreaker.Rejection");
+            recording.enable("example.circuitbreaker.Timeout");
+            recording.enable("example.circuitbreaker.Call").withThreshold(Duration.ZERO);
+            recording.start();
+
+            assertThrows(CircuitBreakerTimeoutException.class, () -> sut.execute(slowFunc));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.execute(() -> "ok"));
+
+            recording.stop();
+            Path file = dir.resolve("events.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        RecordedEvent timeout = only(events, "example.circuitbreaker.Timeout");
+        assertEquals("payments", timeout.getString("breaker"));
+        assertEquals(TIMEOUT.toMillis(), timeout.getLong("timeout"));
+
+        RecordedEvent call = only(events, "example.circuitbreaker.Call");
+        assertFalse(call.getBoolean("succeeded"));
+
+        RecordedEvent transition = only(events, "example.circuitbreaker.Transition");
+        assertEquals("CLOSED", transition.getString("from"));
+        assertEquals("OPEN", transition.getString("to"));
+
+        RecordedEvent rejection = only(events, "example.circuitbreaker.Rejection");
+        assertEquals("OPEN", rejection.getString("state"));
+    }
+
+    @Test
+    void recordRestoredTransition() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("example.circuitbreaker.Transition");
+            recording.start();
+
+            sut.restore(new CircuitBreakerSnapshot(CircuitState.OPEN, 1, 1, System.currentTimeMillis() + 60_000));
+
+            recording.stop();
+            Path file = dir.resolve("events.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        RecordedEvent transition = only(events, "example.circuitbreaker.Transition");
+        assertEquals("CLOSED", transition.getString("from"));
+        assertEquals("OPEN", transition.getString("to"));
+        assertEquals(CircuitState.OPEN, sut.getState());
+    }
+
+    @Test
+    void recordNothingByDefault() throws IOException {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.start();
+
+            assertThrows(CircuitBreakerTimeoutException.class, () -> sut.execute(slowFunc));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.execute(() -> "ok"));
+
+            recording.stop();
+            Path file = dir.resolve("events.jfr");
+            recording.dump(file);
+            events = RecordingFile.readAllEvents(file);
+        }
+
+        assertTrue(events.stream().noneMatch(e -> e.getEventType().getName().startsWith("example.circuitbreaker.")));
+    }
+
+    private static RecordedEvent only(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = events.stream().filter(e -> e.getEventType().getName().equals(name)).toList();
+        assertEquals(1, matching.size(), name);
+        return matching.get(0);
+    }
+}
@@ -0,0 +1,101 @@
+package example.circuitbreaker.jmx;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerManagementTest {
+    private static final int MAX_FAILURES = 3;
+    //@formatter:off
+    private final Supplier<String> anyFunc = () -> "OK";
+    private final Supplier<String> throwFunc = () -> {throw new RuntimeException();};
+    //@formatter:on
+    private ScheduledExecutorService executor;
+    private MBeanServer server;
+    private DefaultCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(1);
+        server = MBeanServerFactory.newMBeanServer();
+        breaker = new DefaultCircuitBreaker("payments", executor, MAX_FAILURES, Duration.ofSeconds(1),
+                ResetTimeoutPolicy.fixed(Duration.ofMinutes(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void exposeStateAndMetrics() throws JMException {
+        ObjectName name = CircuitBreakerManagement.register(server, breaker);
+        CircuitBreakerMXBean mxBean = JMX.newMXBeanProxy(server, name, CircuitBreakerMXBean.class);
+
+        breaker.execute(anyFunc);
+        assertThrows(Exception.class, () -> breaker.execute(throwFunc));
+
+        assertEquals("payments", mxBean.getName());
+        assertEquals("CLOSED", mxBean.getState());
+        assertEquals(1, mxBean.getFailures());
+        assertEquals(1, mxBean.getSuccessfulCalls());
+        assertEquals(1, mxBean.getFailedCalls());
+        assertEquals(0, mxBean.getRejectedCalls());
+        assertTrue(mxBean.getLatencyP99Millis() > 0);
+        assertEquals(1, (int) server.getAttribute(name, "Failures"));
+    }
+
+    @Test
+    void controlCircuit() throws JMException {
+        ObjectName name = CircuitBreakerManagement.register(server, breaker);
+
+        server.invoke(name, "forceOpen", null, null);
+        assertThrows(CircuitBreakerOpenException.class, () -> breaker.execute(anyFunc));
+        assertEquals("FORCED_OPEN", server.getAttribute(name, "State"));
+        assertEquals(1L, server.getAttribute(name, "RejectedCalls"));
+
+        server.invoke(name, "disable", null, null);
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> breaker.execute(throwFunc));
+        }
+        assertEquals("DISABLED", server.getAttribute(name, "State"));
+
+        server.invoke(name, "forceClose", null, null);
+        assertEquals("CLOSED", server.getAttribute(name, "State"));
+        assertEquals("OK", breaker.execute(anyFunc));
+    }
+
+    @Test
+    void registerRegistry() throws JMException {
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+        registry.register(breaker);
+        registry.register(new DefaultCircuitBreaker("inventory, \"eu\"", executor, MAX_FAILURES,
+                Duration.ofSeconds(1), ResetTimeoutPolicy.fixed(Duration.ofMinutes(1))));
+
+        CircuitBreakerManagement.registerAll(server, registry);
+        assertTrue(server.isRegistered(CircuitBreakerManagement.objectName("payments")));
+        assertTrue(server.isRegistered(CircuitBreakerManagement.objectName("inventory, \"eu\"")));
+
+        CircuitBreakerManagement.unregister(server, "payments");
+        assertFalse(server.isRegistered(CircuitBreakerManagement.objectName("payments")));
+    }
+}
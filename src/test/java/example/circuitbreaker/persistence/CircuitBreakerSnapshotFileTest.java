@@ -0,0 +1,109 @@
+package example.circuitbreaker.persistence;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.CircuitBreakerSnapshot;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerSnapshotFileTest {
+    private static final int MAX_FAILURES = 3;
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+    private static final ResetTimeoutPolicy RESET_TIMEOUT = ResetTimeoutPolicy.fixed(Duration.ofMinutes(1));
+    //@formatter:off
+    private final Runnable throwAction = () -> {throw new RuntimeException();};
+    //@formatter:on
+    @TempDir
+    Path dir;
+    private ScheduledExecutorService executor;
+    private CircuitBreakerSnapshotFile sut;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(1);
+        sut = new CircuitBreakerSnapshotFile(dir.resolve("breakers.snapshot"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void writeThenRead() throws IOException {
+        Map<String, CircuitBreakerSnapshot> snapshots = new HashMap<>();
+        snapshots.put("payments", new CircuitBreakerSnapshot(CircuitState.OPEN, 3, 2, 1_700_000_000_000L));
+        snapshots.put("inventory", new CircuitBreakerSnapshot(CircuitState.CLOSED, 1, 0, 0L));
+        snapshots.put("édition", new CircuitBreakerSnapshot(CircuitState.HALF_OPEN, 0, 4, 42L));
+
+        sut.write(snapshots);
+        assertEquals(snapshots, sut.read());
+    }
+
+    @Test
+    void readMissingFile() throws IOException {
+        assertTrue(sut.read().isEmpty());
+    }
+
+    @Test
+    void rejectForeignFile() throws IOException {
+        Files.write(sut.getPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(IOException.class, () -> sut.read());
+    }
+
+    @Test
+    void restoreRegistryAfterRestart() throws IOException {
+        CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+        DefaultCircuitBreaker down = registry.register(newBreaker("down"));
+        DefaultCircuitBreaker flaky = registry.register(newBreaker("flaky"));
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> down.execute(throwAction));
+        }
+        assertThrows(Exception.class, () -> flaky.execute(throwAction));
+        sut.save(registry);
+
+        // restart: breakers registered before and after loading the snapshots are both restored
+        CircuitBreakerRegistry restarted = new CircuitBreakerRegistry();
+        DefaultCircuitBreaker restoredFlaky = restarted.register(newBreaker("flaky"));
+        sut.restore(restarted);
+        DefaultCircuitBreaker restoredDown = restarted.computeIfAbsent("down", this::newBreaker);
+
+        assertEquals(CircuitState.OPEN, restoredDown.getState());
+        assertThrows(CircuitBreakerOpenException.class, () -> restoredDown.execute(() -> { }));
+        assertEquals(down.snapshot(), restoredDown.snapshot());
+        assertEquals(CircuitState.CLOSED, restoredFlaky.getState());
+        assertEquals(1, restoredFlaky.snapshot().getFailures());
+    }
+
+    @Test
+    void readManyBreakers() throws IOException {
+        Map<String, CircuitBreakerSnapshot> snapshots = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            snapshots.put("dependency-" + i, new CircuitBreakerSnapshot(CircuitState.CLOSED, i % 3, 0, 0L));
+        }
+        sut.write(snapshots);
+        assertEquals(snapshots, sut.read());
+    }
+
+    private DefaultCircuitBreaker newBreaker(String name) {
+        return new DefaultCircuitBreaker(name, executor, MAX_FAILURES, TIMEOUT, RESET_TIMEOUT);
+    }
+}
@@ -0,0 +1,169 @@
+package example.circuitbreaker.pipeline;
+
+import example.circuitbreaker.Bulkhead;
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.exceptions.CircuitBreakerExecutionException;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResiliencePipelineTest {
+    private static final Duration BACKOFF = Duration.ofMillis(1);
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private ScheduledExecutorService executor;
+    private DefaultCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+        breaker = new DefaultCircuitBreaker("pipeline", executor, CircuitBreakerConfig.builder()
+                .maxFailures(2)
+                .invocationTimeout(Duration.ofSeconds(5))
+                .resetTimeout(Duration.ofMinutes(1))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // fails the given number of attempts, then returns the length of the key
+    private Integer failingFirst(int failures, String key) {
+        if (attempts.incrementAndGet() <= failures) {
+            throw new IllegalStateException("Attempt " + attempts.get());
+        }
+        return key.length();
+    }
+
+    @Test
+    void retriesWithinOneRecordedOutcome() {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .retry(3, BACKOFF)
+                .build(key -> failingFirst(2, key));
+
+        assertEquals(3, pipeline.get("abc"));
+        assertEquals(3, attempts.get());
+        assertEquals(1, breaker.getMetrics().getSuccessfulCalls());
+        assertEquals(0, breaker.getMetrics().getFailedCalls());
+    }
+
+    @Test
+    void exhaustedAttemptsRecordOneFailure() {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .retry(3, BACKOFF)
+                .build(key -> failingFirst(Integer.MAX_VALUE, key));
+
+        CircuitBreakerExecutionException thrown = assertThrows(CircuitBreakerExecutionException.class,
+                () -> pipeline.get("abc"));
+
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertEquals(3, attempts.get());
+        assertEquals(1, breaker.getFailures());
+    }
+
+    @Test
+    void retriesOnlyMatchingExceptions() {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .retry(3, BACKOFF)
+                .retryOn(e -> !(e instanceof IllegalStateException))
+                .build(key -> failingFirst(1, key));
+
+        assertThrows(CircuitBreakerExecutionException.class, () -> pipeline.get("abc"));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void cachedValueSkipsBreaker() throws InterruptedException {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .cache(Duration.ofMillis(200), 10)
+                .build(key -> failingFirst(0, key));
+
+        assertEquals(3, pipeline.get("abc"));
+        breaker.forceOpen();
+        assertEquals(3, pipeline.get("abc"));
+        assertEquals(1, attempts.get());
+        assertEquals(1, breaker.getMetrics().getSuccessfulCalls());
+
+        Thread.sleep(300);
+        assertThrows(CircuitBreakerOpenException.class, () -> pipeline.get("abc"));
+    }
+
+    @Test
+    void fullCacheDropsOldestValue() {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .cache(Duration.ofMinutes(1), 2)
+                .build(key -> failingFirst(0, key));
+
+        pipeline.get("a");
+        pipeline.get("bc");
+        pipeline.get("def");
+        assertEquals(3, attempts.get());
+
+        pipeline.get("bc");
+        pipeline.get("def");
+        assertEquals(3, attempts.get());
+        pipeline.get("a");
+        assertEquals(4, attempts.get());
+    }
+
+    @Test
+    void invalidatedValuesDoNotOverfillCache() {
+        ResiliencePipeline<String, Integer> pipeline = ResiliencePipeline.builder(breaker)
+                .cache(Duration.ofMinutes(1), 2)
+                .build(key -> failingFirst(0, key));
+
+        for (int i = 0; i < 5; i++) {
+            pipeline.get("a");
+            pipeline.invalidate("a");
+        }
+        pipeline.get("bc");
+        pipeline.get("def");
+        pipeline.get("bc");
+        pipeline.get("def");
+
+        assertEquals(7, attempts.get());
+    }
+
+    @Test
+    void runsCallsOnBulkhead() {
+        try (Bulkhead bulkhead = Bulkhead.builder("quotes").threads(1).build()) {
+            breaker.setBulkhead(bulkhead);
+            ResiliencePipeline<String, String> pipeline = ResiliencePipeline.builder(breaker)
+                    .bulkhead(bulkhead)
+                    .build(key -> Thread.currentThread().getName());
+
+            assertTrue(pipeline.get("abc").startsWith("quotes-bulkhead-"));
+        }
+    }
+
+    @Test
+    void rejectsBulkheadNotOfBreaker() {
+        try (Bulkhead quotes = Bulkhead.builder("quotes").threads(1).build();
+             Bulkhead other = Bulkhead.builder("other").threads(1).build()) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> ResiliencePipeline.builder(breaker).bulkhead(quotes).build(String::length));
+            assertNull(breaker.getBulkhead());
+
+            breaker.setBulkhead(quotes);
+            ResiliencePipeline.builder(breaker).bulkhead(quotes).build(String::length);
+            assertThrows(IllegalArgumentException.class,
+                    () -> ResiliencePipeline.builder(breaker).bulkhead(other).build(String::length));
+            assertEquals(quotes, breaker.getBulkhead());
+        }
+    }
+}
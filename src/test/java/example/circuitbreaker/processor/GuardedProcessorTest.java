@@ -0,0 +1,223 @@
+package example.circuitbreaker.processor;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuardedProcessorTest {
+    private static final int MAX_FAILURES = 2;
+    private static final String INVENTORY = String.join("\n",
+            "package com.acme;",
+            "",
+            "import example.circuitbreaker.proxy.Guarded;",
+            "import example.circuitbreaker.proxy.Unguarded;",
+            "import java.io.IOException;",
+            "import java.util.List;",
+            "import java.util.concurrent.CompletableFuture;",
+            "",
+            "@Guarded(\"inventory\")",
+            "public interface Inventory<K> {",
+            "    int stock(K sku) throws IOException;",
+            "",
+            "    @Guarded(\"reservations\")",
+            "    void reserve(K sku, int quantity);",
+            "",
+            "    CompletableFuture<String> describe(K sku);",
+            "",
+            "    <T extends Comparable<T>> List<T> sorted(List<T> values, String... labels);",
+            "",
+            "    @Unguarded",
+            "    String region();",
+            "",
+            "    String toString();",
+            "}");
+
+    @TempDir
+    Path output;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final Map<String, DefaultCircuitBreaker> breakers = new HashMap<>();
+    private ScheduledExecutorService executor;
+    private URLClassLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        executor.shutdownNow();
+        if (loader != null) {
+            loader.close();
+        }
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics,
+                List.of("-d", output.toString(), "-s", output.toString(),
+                        "-classpath", System.getProperty("java.class.path")), null, List.of(file));
+        task.setProcessors(List.of(new GuardedProcessor()));
+        task.call();
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+
+    private DefaultCircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, n -> new DefaultCircuitBreaker(n, executor, CircuitBreakerConfig.builder()
+                .maxFailures(MAX_FAILURES)
+                .resetTimeout(Duration.ofMinutes(1))
+                .build()));
+    }
+
+    // the generated class of the Inventory, delegating to the given handler
+    private Object guardedInventory(InvocationHandler delegate) throws Exception {
+        assertEquals(List.of(), compile("com.acme.Inventory", INVENTORY));
+        loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, getClass().getClassLoader());
+        Class<?> type = loader.loadClass("com.acme.Inventory");
+        Object implementation = Proxy.newProxyInstance(loader, new Class<?>[]{type}, delegate);
+        Function<String, DefaultCircuitBreaker> resolver = this::breaker;
+        return loader.loadClass("com.acme.GuardedInventory").getConstructor(type, Function.class)
+                .newInstance(implementation, resolver);
+    }
+
+    private static Object call(Object target, String name, Object... args) throws Throwable {
+        for (Method method : target.getClass().getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+        throw new AssertionError("No method " + name);
+    }
+
+    @Test
+    void generatesSourceWithoutReflection() throws Exception {
+        guardedInventory((proxy, method, args) -> null);
+
+        String source = Files.readString(output.resolve("com/acme/GuardedInventory.java"));
+        assertFalse(source.contains("java.lang.reflect"));
+        assertTrue(source.contains("executeAsInt"));
+        assertEquals(List.of("inventory", "reservations"), breakers.keySet().stream().sorted().toList());
+    }
+
+    @Test
+    void throwsCheckedExceptionOfDelegateAsIs() throws Exception {
+        IOException failure = new IOException("Connection reset");
+        Object inventory = guardedInventory((proxy, method, args) -> {
+            throw failure;
+        });
+
+        IOException thrown = assertThrows(IOException.class, () -> call(inventory, "stock", "abc"));
+
+        assertSame(failure, thrown);
+        assertEquals(1, breakers.get("inventory").getFailures());
+    }
+
+    @Test
+    void openMethodBreakerRejectsWithoutCallingDelegate() throws Exception {
+        Object inventory = guardedInventory((proxy, method, args) -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Out of stock");
+        });
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(IllegalStateException.class, () -> call(inventory, "reserve", "abc", 1));
+        }
+        calls.set(0);
+
+        assertThrows(CircuitBreakerOpenException.class, () -> call(inventory, "reserve", "abc", 1));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void futureReturningMethodGoesThroughExecuteAsync() throws Throwable {
+        Object inventory = guardedInventory((proxy, method, args) -> CompletableFuture.completedFuture("item"));
+
+        assertEquals("item", ((CompletableFuture<?>) call(inventory, "describe", "abc")).get());
+
+        breaker("inventory").forceOpen();
+        CompletableFuture<?> rejected = (CompletableFuture<?>) call(inventory, "describe", "abc");
+        ExecutionException thrown = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(CircuitBreakerOpenException.class, thrown.getCause());
+    }
+
+    @Test
+    void genericMethodAndUnguardedMethodDelegate() throws Throwable {
+        Object inventory = guardedInventory((proxy, method, args) ->
+                method.getName().equals("region") ? "eu" : args[0]);
+        breaker("inventory").forceOpen();
+
+        assertEquals("eu", call(inventory, "region"));
+        breaker("inventory").forceClose();
+        assertEquals(List.of(1, 2), call(inventory, "sorted", List.of(1, 2), new String[0]));
+    }
+
+    @Test
+    void rejectsAnnotatedClass() {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("com.acme.Client", String.join("\n",
+                "package com.acme;",
+                "",
+                "@example.circuitbreaker.proxy.Guarded",
+                "public class Client {",
+                "}"));
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).getMessage(null).contains("only supported on interfaces"));
+    }
+}
@@ -0,0 +1,120 @@
+package example.circuitbreaker.prometheus;
+
+import example.circuitbreaker.CircuitBreakerRegistry;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrometheusExporterTest {
+    private static final int MAX_FAILURES = 2;
+    //@formatter:off
+    private final Supplier<String> anyFunc = () -> "OK";
+    private final Supplier<String> throwFunc = () -> {throw new RuntimeException();};
+    //@formatter:on
+    private ScheduledExecutorService executor;
+    private CircuitBreakerRegistry registry;
+    private PrometheusExporter sut;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(1);
+        registry = new CircuitBreakerRegistry();
+        sut = new PrometheusExporter(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void exposeBreakers() throws IOException {
+        DefaultCircuitBreaker payments = registry.register(newBreaker("payments"));
+        DefaultCircuitBreaker inventory = registry.register(newBreaker("inventory \"eu\"\n"));
+        payments.execute(anyFunc);
+        payments.execute(anyFunc);
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> inventory.execute(throwFunc));
+        }
+        assertThrows(Exception.class, () -> inventory.execute(anyFunc));
+
+        List<String> lines = scrape();
+
+        assertTrue(lines.contains("circuit_breaker_state{name=\"payments\",state=\"closed\"} 1"));
+        assertTrue(lines.contains("circuit_breaker_state{name=\"payments\",state=\"open\"} 0"));
+        assertTrue(lines.contains("circuit_breaker_state{name=\"inventory \\\"eu\\\"\\n\",state=\"open\"} 1"));
+        assertTrue(lines.contains("circuit_breaker_calls_total{name=\"payments\",outcome=\"successful\"} 2"));
+        assertTrue(lines.contains("circuit_breaker_calls_total{name=\"inventory \\\"eu\\\"\\n\",outcome=\"failed\"} 2"));
+        assertTrue(lines.contains("circuit_breaker_calls_total{name=\"inventory \\\"eu\\\"\\n\",outcome=\"rejected\"} 1"));
+        assertTrue(lines.contains("circuit_breaker_call_duration_seconds_bucket{name=\"payments\",le=\"+Inf\"} 2"));
+        assertTrue(lines.contains("circuit_breaker_call_duration_seconds_count{name=\"payments\"} 2"));
+        assertTrue(lines.contains("# TYPE circuit_breaker_call_duration_seconds histogram"));
+    }
+
+    @Test
+    void histogramBucketsAreCumulative() throws IOException {
+        DefaultCircuitBreaker payments = registry.register(newBreaker("payments"));
+        payments.execute(anyFunc);
+
+        long previous = 0;
+        int buckets = 0;
+        for (String line : scrape()) {
+            if (line.startsWith("circuit_breaker_call_duration_seconds_bucket{name=\"payments\"")) {
+                long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(count >= previous, line);
+                previous = count;
+                buckets++;
+            }
+        }
+        assertEquals(9, buckets);
+        assertEquals(1, previous);
+    }
+
+    @Test
+    void serveOverHttp() throws Exception {
+        registry.register(newBreaker("payments"));
+        sut.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        InetSocketAddress address = sut.getAddress();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + address.getPort() + "/metrics")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(PrometheusExporter.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        assertTrue(response.body().contains("circuit_breaker_state{name=\"payments\",state=\"closed\"} 1\n"));
+    }
+
+    private List<String> scrape() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sut.scrape(out);
+        return out.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private DefaultCircuitBreaker newBreaker(String name) {
+        return new DefaultCircuitBreaker(name, executor, MAX_FAILURES, Duration.ofSeconds(1),
+                ResetTimeoutPolicy.fixed(Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,205 @@
+package example.circuitbreaker.proxy;
+
+import example.circuitbreaker.CircuitBreakerConfig;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.DefaultCircuitBreaker;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerProxyTest {
+    private static final int MAX_FAILURES = 2;
+
+    @Guarded
+    interface Inventory {
+        int stock(String sku) throws IOException;
+
+        @Guarded
+        void reserve(String sku, int quantity);
+
+        CompletableFuture<String> describe(String sku);
+
+        @Unguarded
+        String region();
+    }
+
+    interface Plain {
+        String echo(String value);
+    }
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicReference<Thread> callingThread = new AtomicReference<>();
+    private final Map<String, DefaultCircuitBreaker> breakers = new HashMap<>();
+    private IOException stockFailure;
+    private ScheduledExecutorService executor;
+
+    private final Inventory implementation = new Inventory() {
+        @Override
+        public int stock(String sku) throws IOException {
+            calls.incrementAndGet();
+            if (stockFailure != null) {
+                throw stockFailure;
+            }
+            return sku.length();
+        }
+
+        @Override
+        public void reserve(String sku, int quantity) {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Out of stock");
+        }
+
+        @Override
+        public CompletableFuture<String> describe(String sku) {
+            calls.incrementAndGet();
+            callingThread.set(Thread.currentThread());
+            return CompletableFuture.completedFuture("item " + sku);
+        }
+
+        @Override
+        public String region() {
+            calls.incrementAndGet();
+            return "eu";
+        }
+
+        @Override
+        public String toString() {
+            return "inventory";
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private DefaultCircuitBreaker breaker(String name) {
+        return breakers.computeIfAbsent(name, n -> new DefaultCircuitBreaker(n, executor, CircuitBreakerConfig.builder()
+                .maxFailures(MAX_FAILURES)
+                .resetTimeout(Duration.ofMinutes(1))
+                .build()));
+    }
+
+    private Inventory proxy() {
+        return CircuitBreakerProxy.create(Inventory.class, implementation, this::breaker);
+    }
+
+    @Test
+    void resolvesBreakerPerInterfaceAndPerMethod() throws IOException {
+        Inventory inventory = proxy();
+
+        assertEquals(3, inventory.stock("abc"));
+        assertEquals(List.of("Inventory", "Inventory.reserve"), breakers.keySet().stream().sorted().toList());
+        assertEquals(1, breakers.get("Inventory").getMetrics().getSuccessfulCalls());
+    }
+
+    @Test
+    void throwsCheckedExceptionOfImplementationAsIs() {
+        stockFailure = new IOException("Connection reset");
+        Inventory inventory = proxy();
+
+        IOException thrown = assertThrows(IOException.class, () -> inventory.stock("abc"));
+
+        assertSame(stockFailure, thrown);
+        assertEquals(1, breakers.get("Inventory").getFailures());
+    }
+
+    @Test
+    void openMethodBreakerRejectsWithoutCallingImplementation() throws IOException {
+        Inventory inventory = proxy();
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(IllegalStateException.class, () -> inventory.reserve("abc", 1));
+        }
+        calls.set(0);
+
+        assertThrows(CircuitBreakerOpenException.class, () -> inventory.reserve("abc", 1));
+        assertEquals(0, calls.get());
+        // the interface breaker is not affected
+        assertEquals(CircuitState.CLOSED, breakers.get("Inventory").getState());
+        assertEquals(3, inventory.stock("abc"));
+    }
+
+    @Test
+    void futureReturningMethodGoesThroughExecuteAsync() throws Exception {
+        Inventory inventory = proxy();
+
+        assertEquals("item abc", inventory.describe("abc").get());
+        // the synchronous path would have called it on a thread of the breaker's executor
+        assertSame(Thread.currentThread(), callingThread.get());
+        assertEquals(1, breakers.get("Inventory").getMetrics().getSuccessfulCalls());
+    }
+
+    @Test
+    void openCircuitFailsReturnedFuture() {
+        Inventory inventory = proxy();
+        breaker("Inventory").forceOpen();
+
+        CompletableFuture<String> future = inventory.describe("abc");
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(CircuitBreakerOpenException.class, thrown.getCause());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void unguardedMethodIsCalledDirectly() {
+        Inventory inventory = proxy();
+        breaker("Inventory").forceOpen();
+
+        assertEquals("eu", inventory.region());
+    }
+
+    @Test
+    void interfaceWithoutAnnotationsIsNotGuarded() {
+        Plain proxy = CircuitBreakerProxy.create(Plain.class, value -> value, name -> {
+            throw new AssertionError("No breaker expected");
+        });
+
+        assertEquals("a", proxy.echo("a"));
+    }
+
+    @Test
+    void objectMethodsStayOnProxy() {
+        Inventory inventory = proxy();
+        Inventory other = proxy();
+
+        assertEquals(inventory, inventory);
+        assertNotEquals(inventory, other);
+        assertEquals(System.identityHashCode(inventory), inventory.hashCode());
+        assertEquals("CircuitBreakerProxy[inventory]", inventory.toString());
+    }
+
+    @Test
+    void rejectsClassesAndMissingBreakers() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CircuitBreakerProxy.create(Object.class, new Object(), this::breaker));
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> CircuitBreakerProxy.create(Inventory.class, implementation, name -> null));
+        assertTrue(thrown.getMessage().contains("Inventory"));
+    }
+}
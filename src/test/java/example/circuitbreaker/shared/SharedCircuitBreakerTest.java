@@ -0,0 +1,117 @@
+package example.circuitbreaker.shared;
+
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two mappings of the same file stand for two processes of the host.
+ */
+class SharedCircuitBreakerTest {
+    private static final int MAX_FAILURES = 3;
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+    private static final Duration RESET_TIMEOUT = Duration.ofMillis(100);
+    //@formatter:off
+    private final Runnable throwAction = () -> {throw new RuntimeException();};
+    private final Runnable anyAction = () -> {};
+    //@formatter:on
+    @TempDir
+    Path dir;
+    private ScheduledExecutorService executor;
+    private SharedStateFile firstProcess;
+    private SharedStateFile secondProcess;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newScheduledThreadPool(2);
+        firstProcess = SharedStateFile.open(dir.resolve("breakers.state"), 64);
+        secondProcess = SharedStateFile.open(dir.resolve("breakers.state"), 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        firstProcess.close();
+        secondProcess.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void existingFileKeepsItsSlotCount() {
+        assertEquals(64, secondProcess.getSlotCount());
+    }
+
+    @Test
+    void failuresAreCountedAcrossProcesses() {
+        SharedCircuitBreaker first = newBreaker(firstProcess, "sidecar");
+        SharedCircuitBreaker second = newBreaker(secondProcess, "sidecar");
+
+        assertThrows(Exception.class, () -> first.execute(throwAction));
+        assertThrows(Exception.class, () -> second.execute(throwAction));
+        assertEquals(2, first.getFailures());
+        assertThrows(Exception.class, () -> first.execute(throwAction));
+
+        assertEquals(CircuitState.OPEN, second.getState());
+        assertThrows(CircuitBreakerOpenException.class, () -> second.execute(anyAction));
+    }
+
+    @Test
+    void breakersAreIndependentByName() {
+        SharedCircuitBreaker database = newBreaker(firstProcess, "database");
+        SharedCircuitBreaker sidecar = newBreaker(secondProcess, "sidecar");
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> database.execute(throwAction));
+        }
+        assertEquals(CircuitState.OPEN, database.getState());
+        assertDoesNotThrow(() -> sidecar.execute(anyAction));
+    }
+
+    @Test
+    void singleTrialRequestAcrossProcesses() throws InterruptedException {
+        SharedCircuitBreaker first = newBreaker(firstProcess, "sidecar");
+        SharedCircuitBreaker second = newBreaker(secondProcess, "sidecar");
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> first.execute(throwAction));
+        }
+        Thread.sleep(RESET_TIMEOUT.toMillis() + 50);
+
+        // the first process takes the trial request, the second one is rejected meanwhile
+        first.executeAsync(() -> {
+            assertThrows(CircuitBreakerOpenException.class, () -> second.execute(anyAction));
+            return CompletableFuture.completedFuture(null);
+        }).join();
+
+        assertEquals(CircuitState.CLOSED, second.getState());
+        assertDoesNotThrow(() -> second.execute(anyAction));
+    }
+
+    @Test
+    void staleOutcomeIsDiscarded() {
+        SharedCircuitBreaker first = newBreaker(firstProcess, "sidecar");
+        SharedCircuitBreaker second = newBreaker(secondProcess, "sidecar");
+        // a call admitted while closed completes after the circuit opened from another process
+        first.execute(() -> {
+            for (int i = 0; i < MAX_FAILURES; i++) {
+                assertThrows(Exception.class, () -> second.execute(throwAction));
+            }
+        });
+        assertEquals(CircuitState.OPEN, first.getState());
+    }
+
+    private SharedCircuitBreaker newBreaker(SharedStateFile file, String name) {
+        return new SharedCircuitBreaker(file, name, executor, MAX_FAILURES, TIMEOUT, RESET_TIMEOUT);
+    }
+}
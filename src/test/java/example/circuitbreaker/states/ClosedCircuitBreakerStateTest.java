@@ -82,6 +82,36 @@ class ClosedCircuitBreakerStateTest {
         }
     }
 
+    @Nested
+    class BatchOutcomesBehavior {
+
+        @Test
+        void failuresAddedInBulk() {
+            sut.invocationsComplete(5, MAX_FAILURES - 1);
+            assertEquals(MAX_FAILURES - 1, sut.getFailures().get());
+            verify(switcher, never()).openCircuit(any());
+
+            sut.invocationsComplete(0, 1);
+            verify(switcher).openCircuit(same(sut));
+        }
+
+        @Test
+        void successInBatchResetsEarlierFailures() {
+            sut.invocationFails();
+            sut.invocationFails();
+            sut.invocationsComplete(1, 1);
+            assertEquals(1, sut.getFailures().get());
+            verify(switcher, never()).openCircuit(any());
+        }
+
+        @Test
+        void successfulBatchResetFailureCounter() {
+            sut.invocationFails();
+            sut.invocationsComplete(3, 0);
+            assertEquals(0, sut.getFailures().get());
+        }
+    }
+
     @Nested
     class ResetBehavior {
 
@@ -2,6 +2,7 @@ package example.circuitbreaker.states;
 
 import example.circuitbreaker.CircuitBreakerInvoker;
 import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.Outcome;
 import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -13,10 +14,14 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -24,6 +29,7 @@ import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class HalfOpenCircuitBreakerStateTest {
@@ -40,6 +46,27 @@ class HalfOpenCircuitBreakerStateTest {
         sut = new HalfOpenCircuitBreakerState(switcher, invoker, TIMEOUT);
     }
 
+    @Test
+    void enterResetsTheSameTrialFlag() {
+        AtomicInteger flag = sut.isBeingInvoked();
+        sut.invoke(mock(Runnable.class));
+        assertEquals(1, flag.get());
+
+        // a caller that raced the transition still sees the flag of the new Half-Open period
+        sut.enter();
+        assertSame(flag, sut.isBeingInvoked());
+        assertEquals(0, flag.get());
+    }
+
+    @Test
+    void skippedTrialCanBeTakenAgain() {
+        sut.invoke(mock(Runnable.class));
+        assertEquals(1, sut.isBeingInvoked().get());
+
+        sut.invocationSkipped();
+        assertEquals(0, sut.isBeingInvoked().get());
+    }
+
     @Nested
     class StateInvokeTest {
 
@@ -86,6 +113,43 @@ class HalfOpenCircuitBreakerStateTest {
         }
     }
 
+    @Nested
+    class StateInvokeBatchTest {
+
+        @Test
+        void invokeFirstFunctionOfBatchOnly() {
+            Supplier<String> func = () -> "OK";
+            when(invoker.invokeBatchThrough(same(sut), eq(List.of(func)), eq(1), eq(TIMEOUT)))
+                    .thenReturn(List.of(Outcome.success("OK")));
+
+            List<Outcome<String>> outcomes = sut.invokeBatch(List.of(func, func, func), 3);
+            assertEquals(3, outcomes.size());
+            assertEquals("OK", outcomes.get(0).getValue());
+            assertInstanceOf(CircuitBreakerOpenException.class, outcomes.get(1).getFailure());
+            assertInstanceOf(CircuitBreakerOpenException.class, outcomes.get(2).getFailure());
+
+            // the trial is in progress, later batches are rejected
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.invokeBatch(List.of(func), 1));
+        }
+
+        @Test
+        void emptyBatchLeavesTrialFree() {
+            assertEquals(List.of(), sut.invokeBatch(List.<Supplier<String>>of(), 1));
+            assertEquals(List.of(), sut.<String>invokeAllAsync(List.of(), 1).join());
+            assertEquals(0, sut.isBeingInvoked().get());
+            verifyNoMoreInteractions(invoker);
+        }
+
+        @Test
+        void batchOutcomesDecideTransition() {
+            sut.invocationsComplete(1, 0);
+            Mockito.verify(switcher).closeCircuit(same(sut));
+
+            sut.invocationsComplete(0, 1);
+            Mockito.verify(switcher).openCircuit(same(sut));
+        }
+    }
+
     @Nested
     class StateInvokeAsyncTest {
 
@@ -1,7 +1,127 @@
 package example.circuitbreaker.states;
 
-import static org.junit.jupiter.api.Assertions.*;
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.CircuitBreakerSwitch;
+import example.circuitbreaker.ResetTimeoutPolicy;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
 class OpenCircuitBreakerStateTest {
 
-}
\ No newline at end of file
+    //@formatter:off
+    private static final Duration RESET_TIMEOUT = Duration.ofMillis(100);
+    @Mock private CircuitBreakerSwitch switcher;
+    @Mock private CircuitBreakerInvoker invoker;
+    //@formatter:on
+
+    @Nested
+    class FixedResetTimeout {
+        private OpenCircuitBreakerState sut;
+
+        @BeforeEach
+        void setUp() {
+            sut = new OpenCircuitBreakerState(switcher, invoker, RESET_TIMEOUT);
+        }
+
+        @Test
+        void enterSchedulesAttemptToClose() {
+            ArgumentCaptor<Runnable> attempt = ArgumentCaptor.forClass(Runnable.class);
+            sut.enter();
+            verify(invoker).invokeScheduled(attempt.capture(), eq(RESET_TIMEOUT));
+
+            attempt.getValue().run();
+            verify(switcher).attemptToCloseCircuit(same(sut));
+        }
+
+        @Test
+        void deferredResetOutlastsResetTimeout() {
+            ArgumentCaptor<Duration> resetTimeout = ArgumentCaptor.forClass(Duration.class);
+            sut.deferReset(System.currentTimeMillis() + 60_000);
+            sut.enter();
+            verify(invoker).invokeScheduled(any(), resetTimeout.capture());
+
+            assertTrue(resetTimeout.getValue().compareTo(Duration.ofSeconds(59)) > 0);
+        }
+
+        @Test
+        void deferredResetAppliesToNextOpeningOnly() {
+            sut.deferReset(System.currentTimeMillis() + 60_000);
+            sut.enter();
+            sut.enter();
+            verify(invoker).invokeScheduled(any(), eq(RESET_TIMEOUT));
+        }
+
+        @Test
+        void elapsedDeferredResetIsIgnored() {
+            sut.deferReset(System.currentTimeMillis() - 1);
+            sut.enter();
+            verify(invoker).invokeScheduled(any(), eq(RESET_TIMEOUT));
+        }
+
+        @Test
+        void rejectInvocations() {
+            Supplier<CompletableFuture<Object>> futureSupplier = () -> CompletableFuture.completedFuture(null);
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.invoke(() -> { }));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.invoke(Object::new));
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.invokeAsync(futureSupplier));
+            verifyNoInteractions(invoker);
+        }
+    }
+
+    @Nested
+    class ExponentialResetTimeout {
+        private OpenCircuitBreakerState sut;
+
+        @BeforeEach
+        void setUp() {
+            ResetTimeoutPolicy policy = ResetTimeoutPolicy.exponential(RESET_TIMEOUT, 2.0, Duration.ofMillis(300), 0.0);
+            sut = new OpenCircuitBreakerState(switcher, invoker, policy);
+        }
+
+        @Test
+        void resetTimeoutGrowsOnConsecutiveOpenings() {
+            InOrder inOrder = inOrder(invoker);
+            sut.enter();
+            sut.enter();
+            sut.enter();
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(100)));
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(200)));
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(300)));
+            assertEquals(3, sut.getConsecutiveOpenings());
+        }
+
+        @Test
+        void resetConsecutiveOpeningsRestartsFromInitialTimeout() {
+            InOrder inOrder = inOrder(invoker);
+            sut.enter();
+            sut.enter();
+            sut.resetConsecutiveOpenings();
+            sut.enter();
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(100)));
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(200)));
+            inOrder.verify(invoker).invokeScheduled(any(), eq(Duration.ofMillis(100)));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package example.circuitbreaker.states;
+
+import example.circuitbreaker.CircuitBreakerInvoker;
+import example.circuitbreaker.CircuitBreakerSwitch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class StripedClosedCircuitBreakerStateTest {
+
+    //@formatter:off
+    private static final Duration TIMEOUT = Duration.ofMillis(100);
+    private static final int MAX_FAILURES = 8;
+    private static final int STRIPES = 4;
+    @Mock private CircuitBreakerSwitch switcher;
+    @Mock private CircuitBreakerInvoker invoker;
+    private StripedClosedCircuitBreakerState sut;
+    //@formatter:on
+
+    @BeforeEach
+    void setUp() {
+        sut = new StripedClosedCircuitBreakerState(switcher, invoker, MAX_FAILURES, TIMEOUT, STRIPES);
+    }
+
+    @Test
+    void stripesAreRoundedUpToPowerOfTwo() {
+        assertEquals(1, new StripedClosedCircuitBreakerState(switcher, invoker, MAX_FAILURES, TIMEOUT, 1).getStripes());
+        assertEquals(8, new StripedClosedCircuitBreakerState(switcher, invoker, MAX_FAILURES, TIMEOUT, 5).getStripes());
+        assertEquals(64, new StripedClosedCircuitBreakerState(switcher, invoker, MAX_FAILURES, TIMEOUT, 100).getStripes());
+        assertThrows(IllegalArgumentException.class,
+                () -> new StripedClosedCircuitBreakerState(switcher, invoker, MAX_FAILURES, TIMEOUT, 0));
+    }
+
+    @Test
+    void failuresFromManyThreadsAreSummed() throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < MAX_FAILURES - 1; i++) {
+            threads.add(new Thread(sut::invocationFails));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(MAX_FAILURES - 1, sut.getFailureCount());
+        verify(switcher, never()).openCircuit(same(sut));
+
+        sut.invocationFails();
+        verify(switcher).openCircuit(same(sut));
+    }
+
+    @Test
+    void successResetsEveryStripe() throws InterruptedException {
+        Thread other = new Thread(() -> sut.invocationsComplete(0, 2));
+        other.start();
+        other.join();
+        sut.invocationFails();
+        assertEquals(3, sut.getFailureCount());
+
+        sut.invocationSucceeds();
+        assertEquals(0, sut.getFailureCount());
+        sut.invocationSucceeds();
+        assertEquals(0, sut.getFailureCount());
+    }
+
+    @Test
+    void batchWithFailuresOpensAtThreshold() {
+        sut.invocationsComplete(10, MAX_FAILURES);
+        verify(switcher, atLeastOnce()).openCircuit(same(sut));
+    }
+
+    @Test
+    void setFailureCountAndEnter() {
+        sut.setFailureCount(5);
+        assertEquals(5, sut.getFailureCount());
+        sut.invocationFails();
+        assertEquals(6, sut.getFailureCount());
+
+        sut.enter();
+        assertEquals(0, sut.getFailureCount());
+    }
+}
@@ -0,0 +1,152 @@
+package example.circuitbreaker.word;
+
+import example.circuitbreaker.CircuitBreaker;
+import example.circuitbreaker.CircuitBreakerListener;
+import example.circuitbreaker.CircuitState;
+import example.circuitbreaker.exceptions.CircuitBreakerOpenException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AtomicCircuitBreakerTest {
+    private static final int MAX_FAILURES = 3;
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+    private static final Duration RESET_TIMEOUT = Duration.ofMillis(100);
+    //@formatter:off
+    private final Runnable throwAction = () -> {throw new RuntimeException();};
+    private final Runnable anyAction = () -> {};
+    //@formatter:on
+    private ScheduledExecutorService executor;
+    private AtomicCircuitBreaker sut;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newScheduledThreadPool(4);
+        sut = new AtomicCircuitBreaker(executor, MAX_FAILURES, TIMEOUT, RESET_TIMEOUT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void opensAfterMaxFailuresAndClosesAfterTrial() throws InterruptedException {
+        for (int i = 0; i < MAX_FAILURES - 1; i++) {
+            assertThrows(Exception.class, () -> sut.execute(throwAction));
+        }
+        assertEquals(MAX_FAILURES - 1, sut.getFailures());
+        sut.execute(anyAction);
+        assertEquals(0, sut.getFailures());
+
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> sut.execute(throwAction));
+        }
+        assertEquals(CircuitState.OPEN, sut.getState());
+        assertThrows(CircuitBreakerOpenException.class, () -> sut.execute(anyAction));
+
+        Thread.sleep(RESET_TIMEOUT.toMillis() + 50);
+        assertDoesNotThrow(() -> sut.execute(anyAction));
+        assertEquals(CircuitState.CLOSED, sut.getState());
+    }
+
+    @Test
+    void singleTrialRequest() throws InterruptedException {
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> sut.execute(throwAction));
+        }
+        Thread.sleep(RESET_TIMEOUT.toMillis() + 50);
+
+        sut.execute(() -> {
+            assertEquals(CircuitState.HALF_OPEN, sut.getState());
+            assertThrows(CircuitBreakerOpenException.class, () -> sut.execute(anyAction));
+        });
+        assertEquals(CircuitState.CLOSED, sut.getState());
+    }
+
+    @Test
+    void staleOutcomeIsDiscarded() throws Exception {
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slowCall = CompletableFuture.runAsync(() -> sut.execute(() -> {
+            admitted.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException();
+        }));
+        assertTrue(admitted.await(1, TimeUnit.SECONDS));
+
+        // the circuit opens and closes again while the slow call admitted in the first Closed period is running
+        for (int i = 0; i < MAX_FAILURES; i++) {
+            assertThrows(Exception.class, () -> sut.execute(throwAction));
+        }
+        Thread.sleep(RESET_TIMEOUT.toMillis() + 50);
+        sut.execute(anyAction);
+        assertEquals(CircuitState.CLOSED, sut.getState());
+
+        release.countDown();
+        assertThrows(Exception.class, slowCall::join);
+        assertEquals(0, sut.getFailures());
+    }
+
+    @Test
+    void concurrentFailuresOpenOnce() throws InterruptedException {
+        AtomicInteger openings = new AtomicInteger();
+        sut.setEventListener(new CircuitBreakerListener() {
+            @Override
+            public void onCircuitOpened(CircuitBreaker breaker) {
+                openings.incrementAndGet();
+            }
+
+            @Override
+            public void onCircuitClosed(CircuitBreaker breaker) {
+            }
+
+            @Override
+            public void onCircuitHalfOpened(CircuitBreaker breaker) {
+            }
+        });
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    sut.execute(throwAction);
+                } catch (RuntimeException e) {
+                    // failed or rejected
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(CircuitState.OPEN, sut.getState());
+        assertEquals(1, openings.get());
+    }
+}
@@ -0,0 +1,48 @@
+package example.circuitbreaker.word;
+
+import example.circuitbreaker.CircuitState;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateWordTest {
+
+    @Test
+    void zeroWordIsClosedWithoutFailures() {
+        assertEquals(CircuitState.CLOSED, StateWord.state(0L));
+        assertEquals(0, StateWord.failures(0L));
+        assertEquals(0, StateWord.epoch(0L));
+    }
+
+    @Test
+    void packAndUnpack() {
+        long closed = StateWord.closed(7, 42);
+        assertEquals(CircuitState.CLOSED, StateWord.state(closed));
+        assertEquals(7, StateWord.epoch(closed));
+        assertEquals(42, StateWord.failures(closed));
+
+        long open = StateWord.open(8, 123_456_789L);
+        assertEquals(CircuitState.OPEN, StateWord.state(open));
+        assertEquals(8, StateWord.epoch(open));
+        assertEquals(123_456_789L, StateWord.deadline(open));
+
+        long halfOpen = StateWord.halfOpen(9, StateWord.MAX_DEADLINE);
+        assertEquals(CircuitState.HALF_OPEN, StateWord.state(halfOpen));
+        assertEquals(StateWord.MAX_DEADLINE, StateWord.deadline(halfOpen));
+    }
+
+    @Test
+    void epochWrapsAround() {
+        long last = StateWord.closed(4095, 0);
+        assertEquals(0, StateWord.nextEpoch(last));
+    }
+
+    @Test
+    void sameEpochIgnoresCounters() {
+        assertTrue(StateWord.sameEpoch(StateWord.closed(3, 0), StateWord.closed(3, 5)));
+        assertFalse(StateWord.sameEpoch(StateWord.closed(3, 0), StateWord.closed(4, 0)));
+        assertFalse(StateWord.sameEpoch(StateWord.closed(3, 0), StateWord.open(3, 0)));
+    }
+}